@@ -0,0 +1,56 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.data.CourseDatabase;
+import com.courseevaluation.data.DurabilityPolicy;
+import com.courseevaluation.models.Course;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourseDatabaseBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int courses;
+
+    private File dataDirectory;
+    private CourseDatabase courseDatabase;
+    private String[] hits;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = SyntheticData.createDataDirectory(courses, 0);
+        courseDatabase = new CourseDatabase(dataDirectory, DurabilityPolicy.osBuffered());
+        Random random = new Random(3);
+        hits = new String[1024];
+        misses = new String[1024];
+        for (int i = 0; i < hits.length; i++) {
+            // Fresh strings, so lookups hash them like codes typed into the GUI
+            hits[i] = new String(SyntheticData.courseCode(random.nextInt(courses)));
+            misses[i] = SyntheticData.courseCode(courses + random.nextInt(courses));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticData.delete(dataDirectory);
+    }
+
+    @Benchmark
+    public Course findCourseHit() {
+        return courseDatabase.findCourse(hits[next++ & (hits.length - 1)]);
+    }
+
+    @Benchmark
+    public Course findCourseMiss() {
+        return courseDatabase.findCourse(misses[next++ & (misses.length - 1)]);
+    }
+}
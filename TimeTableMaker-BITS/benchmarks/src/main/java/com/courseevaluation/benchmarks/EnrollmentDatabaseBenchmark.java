@@ -0,0 +1,71 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.data.CourseDatabase;
+import com.courseevaluation.data.DurabilityPolicy;
+import com.courseevaluation.data.EnrollmentDatabase;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Student;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Every student holds five enrollments spread over a catalogue of 1000
+// courses; lookups mix enrolled and not-enrolled pairs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnrollmentDatabaseBenchmark {
+    private static final int COURSES = 1000;
+
+    @Param({"100", "1000", "10000", "100000"})
+    int students;
+
+    private File dataDirectory;
+    private EnrollmentDatabase enrollmentDatabase;
+    private Student[] queryStudents;
+    private Course[] queryCourses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = SyntheticData.createDataDirectory(COURSES, students);
+        DurabilityPolicy policy = DurabilityPolicy.osBuffered();
+        CourseDatabase courseDatabase = new CourseDatabase(dataDirectory, policy);
+        enrollmentDatabase = new EnrollmentDatabase(courseDatabase, dataDirectory, policy);
+        List<Course> courses = courseDatabase.getAllCourses();
+        Random random = new Random(4);
+        queryStudents = new Student[1024];
+        queryCourses = new Course[1024];
+        for (int i = 0; i < queryStudents.length; i++) {
+            int student = random.nextInt(students);
+            queryStudents[i] = SyntheticData.student(student);
+            int course = random.nextBoolean()
+                ? SyntheticData.enrolledCourses(student, COURSES)[0]
+                : random.nextInt(COURSES);
+            queryCourses[i] = courses.get(course);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        enrollmentDatabase.close();
+        SyntheticData.delete(dataDirectory);
+    }
+
+    @Benchmark
+    public boolean isEnrolled() {
+        int i = next++ & (queryStudents.length - 1);
+        return enrollmentDatabase.isEnrolled(queryStudents[i], queryCourses[i]);
+    }
+
+    @Benchmark
+    public List<Course> getEnrolledCourses() {
+        return enrollmentDatabase.getEnrolledCourses(queryStudents[next++ & (queryStudents.length - 1)]);
+    }
+}
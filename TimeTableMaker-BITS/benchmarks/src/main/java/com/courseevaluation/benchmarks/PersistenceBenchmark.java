@@ -0,0 +1,72 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.data.CourseDatabase;
+import com.courseevaluation.data.DurabilityPolicy;
+import com.courseevaluation.data.EnrollmentDatabase;
+import com.courseevaluation.data.StorageFormat;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Full loads and saves of the course and enrollment stores: `size` courses
+// and `size` students with five enrollments each. Saves are synchronous and
+// skip fsync so the numbers reflect encoding rather than the disk.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int size;
+
+    @Param({"CSV", "BINARY"})
+    StorageFormat format;
+
+    private File dataDirectory;
+    private DurabilityPolicy policy;
+    private CourseDatabase courseDatabase;
+    private EnrollmentDatabase enrollmentDatabase;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataDirectory = SyntheticData.createDataDirectory(size, size);
+        policy = DurabilityPolicy.osBuffered();
+        courseDatabase = new CourseDatabase(dataDirectory, policy);
+        enrollmentDatabase = new EnrollmentDatabase(courseDatabase, dataDirectory, policy);
+        if (format == StorageFormat.BINARY) {
+            courseDatabase.saveAs(format);
+            enrollmentDatabase.saveAs(format);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        enrollmentDatabase.close();
+        SyntheticData.delete(dataDirectory);
+    }
+
+    @Benchmark
+    public CourseDatabase loadCourses() {
+        return new CourseDatabase(dataDirectory, policy);
+    }
+
+    @Benchmark
+    public void saveCourses() {
+        courseDatabase.saveAs(format);
+    }
+
+    @Benchmark
+    public StorageFormat loadEnrollments() throws IOException {
+        try (EnrollmentDatabase loaded = new EnrollmentDatabase(courseDatabase, dataDirectory, policy)) {
+            return loaded.getFormat();
+        }
+    }
+
+    @Benchmark
+    public void saveEnrollments() {
+        enrollmentDatabase.saveAs(format);
+    }
+}
@@ -0,0 +1,112 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Student;
+import com.courseevaluation.utils.CsvWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Deterministic datasets for the benchmarks. Courses are spread over the
+// 5 x 6 weekly grid used by Timetable; data directories are laid out the
+// way the databases expect (courses.csv, enrollments.csv).
+final class SyntheticData {
+    static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri"};
+    static final String[] TIME_SLOTS = {
+        "09:00-10:30", "10:30-12:00", "12:00-13:30",
+        "13:30-15:00", "15:00-16:30", "16:30-18:00"
+    };
+    static final int COURSES_PER_STUDENT = 5;
+
+    private SyntheticData() {
+    }
+
+    static String courseCode(int index) {
+        return String.format("C%06d", index);
+    }
+
+    static String studentName(int index) {
+        return "student" + index;
+    }
+
+    static String schedule(int index) {
+        return DAYS[index % DAYS.length] + " " + TIME_SLOTS[(index / DAYS.length) % TIME_SLOTS.length];
+    }
+
+    static List<Course> courses(int count) {
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            courses.add(new Course(courseCode(i), "Course " + i, "instructor" + (i % 100),
+                3, schedule(i), 60));
+        }
+        return courses;
+    }
+
+    static Student student(int index) {
+        return new Student(studentName(index), "password", "Student " + index, "Department",
+            "S" + index, "Major", 1 + index % 4);
+    }
+
+    // The course indexes a student is enrolled in; always the same for a given student
+    static int[] enrolledCourses(int student, int courseCount) {
+        Random random = new Random(student);
+        int[] picked = new int[Math.min(COURSES_PER_STUDENT, courseCount)];
+        int count = 0;
+        while (count < picked.length) {
+            int course = random.nextInt(courseCount);
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                duplicate |= picked[i] == course;
+            }
+            if (!duplicate) {
+                picked[count++] = course;
+            }
+        }
+        return picked;
+    }
+
+    static File createDataDirectory(int courseCount, int studentCount) throws IOException {
+        File directory = Files.createTempDirectory("benchmark-data").toFile();
+        try (CsvWriter writer = writer(new File(directory, "courses.csv"))) {
+            for (Course course : courses(courseCount)) {
+                writer.field(course.getCourseCode())
+                    .field(course.getTitle())
+                    .field(course.getCredits())
+                    .field(course.getInstructor())
+                    .field(course.getSchedule())
+                    .field(0)
+                    .field(course.getMaxStudents())
+                    .endRecord();
+            }
+        }
+        try (CsvWriter writer = writer(new File(directory, "enrollments.csv"))) {
+            for (int s = 0; s < studentCount; s++) {
+                for (int course : enrolledCourses(s, courseCount)) {
+                    writer.field(studentName(s))
+                        .field(courseCode(course))
+                        .field("2024-01-15")
+                        .field("ENROLLED")
+                        .endRecord();
+                }
+            }
+        }
+        return directory;
+    }
+
+    private static CsvWriter writer(File file) throws IOException {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    static void delete(File directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
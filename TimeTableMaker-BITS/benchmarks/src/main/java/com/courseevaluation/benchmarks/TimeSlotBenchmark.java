@@ -0,0 +1,48 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.TimeSlot;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Pairwise overlap checks over a pool of slots on the weekly grid; about a
+// fifth of the pairs share a day, so both the cheap and the full path run.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSlotBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int slots;
+
+    private TimeSlot[] pool;
+    private int[] partners;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Course> courses = SyntheticData.courses(slots);
+        pool = new TimeSlot[slots];
+        for (int i = 0; i < slots; i++) {
+            String[] parts = courses.get(i).getSchedule().split(" ");
+            String[] times = parts[1].split("-");
+            pool[i] = new TimeSlot(parts[0], times[0], times[1], courses.get(i));
+        }
+        Random random = new Random(1);
+        partners = new int[slots];
+        for (int i = 0; i < slots; i++) {
+            partners[i] = random.nextInt(slots);
+        }
+    }
+
+    @Benchmark
+    public boolean overlaps() {
+        int i = next;
+        next = i + 1 == slots ? 0 : i + 1;
+        return pool[i].overlaps(pool[partners[i]]);
+    }
+}
@@ -0,0 +1,68 @@
+package com.courseevaluation.benchmarks;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Timetable;
+import com.courseevaluation.scheduling.TimetableGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The generators walk every course of the catalogue, so a catalogue of 100k
+// courses takes tens of seconds per call; run it explicitly with
+// -p courses=100000 when needed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimetableBenchmark {
+    @Param({"100", "1000", "10000"})
+    int courses;
+
+    private List<Course> catalogue;
+    private List<String> preferences;
+    private Timetable fullTimetable;
+    private TimeSlot[] candidates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        catalogue = SyntheticData.courses(courses);
+        preferences = new ArrayList<>();
+        Random random = new Random(2);
+        for (int i = 0; i < SyntheticData.COURSES_PER_STUDENT; i++) {
+            preferences.add(SyntheticData.courseCode(random.nextInt(courses)));
+        }
+        fullTimetable = Timetable.generateTimetable(catalogue, preferences);
+        candidates = new TimeSlot[256];
+        for (int i = 0; i < candidates.length; i++) {
+            Course course = catalogue.get(random.nextInt(courses));
+            String[] parts = course.getSchedule().split(" ");
+            String[] times = parts[1].split("-");
+            candidates[i] = new TimeSlot(parts[0], times[0], times[1], course);
+        }
+    }
+
+    // Against a timetable that already fills the week
+    @Benchmark
+    public boolean hasConflict() {
+        TimeSlot candidate = candidates[next++ & (candidates.length - 1)];
+        return fullTimetable.hasConflict(candidate);
+    }
+
+    @Benchmark
+    public Timetable generateTimetable() {
+        return Timetable.generateTimetable(catalogue, preferences);
+    }
+
+    @Benchmark
+    public List<Timetable> generateMultipleTimetables() {
+        TimetableGenerator generator = new TimetableGenerator(catalogue, preferences);
+        generator.setTargetCount(5);
+        return generator.generate();
+    }
+}
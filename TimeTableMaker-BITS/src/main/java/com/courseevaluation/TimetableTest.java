@@ -2,6 +2,7 @@ package com.courseevaluation;
 
 import com.courseevaluation.models.Course;
 import com.courseevaluation.models.Timetable;
+import com.courseevaluation.scheduling.TimetableGenerator;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +29,9 @@ public class TimetableTest {
         preferences.add("CS104");
         
         // Generate multiple timetables
-        List<Timetable> timetables = Timetable.generateMultipleTimetables(courses, preferences, 3);
+        TimetableGenerator generator = new TimetableGenerator(courses, preferences);
+        generator.setTargetCount(3);
+        List<Timetable> timetables = generator.generate();
         
         // Print the generated timetables
         for (int i = 0; i < timetables.size(); i++) {
@@ -0,0 +1,217 @@
+package com.courseevaluation.data;
+
+import com.courseevaluation.models.Admin;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.Instructor;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.Student;
+import com.courseevaluation.models.User;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary snapshot format for the three stores. A file is a header
+// (magic, version, record count) followed by fixed-order records; strings
+// are a length-prefixed UTF-8 run and numbers are big-endian ints. Files are
+// read through a read-only memory map, so loading is a sequence of bulk
+// gets with no tokenizing or number parsing. Since version 2 a course's
+// schedule text is followed by its packed meetings, so schedules are not
+// parsed on load either; version 1 files are still read.
+final class BinarySnapshot {
+    private static final int USERS_MAGIC = 0x43455553;       // "CEUS"
+    private static final int COURSES_MAGIC = 0x43454353;     // "CECS"
+    private static final int ENROLLMENTS_MAGIC = 0x43454553; // "CEES"
+    private static final int VERSION = 2;
+    private static final int FIRST_VERSION = 1;
+
+    private static final byte STUDENT = 'S';
+    private static final byte INSTRUCTOR = 'I';
+    private static final byte ADMIN = 'A';
+
+    private BinarySnapshot() {
+    }
+
+    static void writeUsers(List<User> users, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        writeHeader(out, USERS_MAGIC, users.size());
+        for (User user : users) {
+            if (user instanceof Student) {
+                out.writeByte(STUDENT);
+            } else if (user instanceof Instructor) {
+                out.writeByte(INSTRUCTOR);
+            } else {
+                out.writeByte(ADMIN);
+            }
+            writeString(out, user.getUsername());
+            writeString(out, user.getPassword());
+            writeString(out, user.getName());
+            writeString(out, user.getDepartment());
+            if (user instanceof Student) {
+                Student student = (Student) user;
+                writeString(out, student.getStudentId());
+                writeString(out, student.getMajor());
+                out.writeInt(student.getYear());
+            } else if (user instanceof Instructor) {
+                Instructor instructor = (Instructor) user;
+                writeString(out, instructor.getInstructorId());
+                writeString(out, instructor.getSpecialization());
+            } else {
+                Admin admin = (Admin) user;
+                writeString(out, admin.getAdminId());
+                writeString(out, admin.getAccessLevel());
+            }
+            writeString(out, user.getStatus());
+        }
+        out.flush();
+    }
+
+    static List<User> readUsers(File file) throws IOException {
+        SnapshotReader in = new SnapshotReader(file, USERS_MAGIC);
+        List<User> users = new ArrayList<>(in.count);
+        for (int i = 0; i < in.count; i++) {
+            byte type = in.buffer.get();
+            String username = in.readString();
+            String password = in.readString();
+            String name = in.readString();
+            String department = in.readString();
+            User user;
+            if (type == STUDENT) {
+                user = new Student(username, password, name, department,
+                    in.readString(), in.readString(), in.buffer.getInt());
+            } else if (type == INSTRUCTOR) {
+                user = new Instructor(username, password, name, department,
+                    in.readString(), in.readString());
+            } else {
+                user = new Admin(username, password, name, department,
+                    in.readString(), in.readString());
+            }
+            user.setStatus(in.readString());
+            users.add(user);
+        }
+        return users;
+    }
+
+    static void writeCourses(List<Course> courses, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        writeHeader(out, COURSES_MAGIC, courses.size());
+        for (Course course : courses) {
+            writeString(out, course.getCourseCode());
+            writeString(out, course.getTitle());
+            writeString(out, course.getInstructor());
+            out.writeInt(course.getCredits());
+            writeString(out, course.getSchedule());
+            Schedule schedule = course.getParsedSchedule();
+            out.writeInt(schedule.getMeetingCount());
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                out.writeInt(schedule.getMeeting(m));
+            }
+            out.writeInt(course.getEnrolledStudents());
+            out.writeInt(course.getMaxStudents());
+        }
+        out.flush();
+    }
+
+    static List<Course> readCourses(File file) throws IOException {
+        SnapshotReader in = new SnapshotReader(file, COURSES_MAGIC);
+        List<Course> courses = new ArrayList<>(in.count);
+        for (int i = 0; i < in.count; i++) {
+            String courseCode = in.readString();
+            String title = in.readString();
+            String instructor = in.readString();
+            int credits = in.buffer.getInt();
+            String text = in.readString();
+            Schedule schedule;
+            if (in.version == FIRST_VERSION) {
+                schedule = Schedule.parse(text);
+            } else {
+                int[] meetings = new int[in.buffer.getInt()];
+                in.buffer.asIntBuffer().get(meetings);
+                in.buffer.position(in.buffer.position() + 4 * meetings.length);
+                schedule = Schedule.ofPacked(text, meetings);
+            }
+            int enrolledStudents = in.buffer.getInt();
+            int maxStudents = in.buffer.getInt();
+            Course course = new Course(courseCode, title, instructor, credits, schedule, maxStudents);
+            course.setEnrolledStudents(enrolledStudents);
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    static void writeEnrollments(List<Enrollment> enrollments, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        writeHeader(out, ENROLLMENTS_MAGIC, enrollments.size());
+        for (Enrollment enrollment : enrollments) {
+            writeString(out, enrollment.getStudentUsername());
+            writeString(out, enrollment.getCourseCode());
+            writeString(out, enrollment.getEnrollmentDate());
+            writeString(out, enrollment.getStatus());
+        }
+        out.flush();
+    }
+
+    static List<Enrollment> readEnrollments(File file) throws IOException {
+        SnapshotReader in = new SnapshotReader(file, ENROLLMENTS_MAGIC);
+        List<Enrollment> enrollments = new ArrayList<>(in.count);
+        for (int i = 0; i < in.count; i++) {
+            enrollments.add(new Enrollment(in.readString(), in.readString(), in.readString(), in.readString()));
+        }
+        return enrollments;
+    }
+
+    private static void writeHeader(DataOutputStream out, int magic, int count) throws IOException {
+        out.writeInt(magic);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+    }
+
+    // A null string is written as length -1
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class SnapshotReader {
+        final MappedByteBuffer buffer;
+        final int version;
+        final int count;
+        private byte[] scratch = new byte[64];
+
+        SnapshotReader(File file, int magic) throws IOException {
+            // The mapping stays valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.remaining() < 12 || buffer.getInt() != magic) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            version = buffer.getInt();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            count = buffer.getInt();
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.courseevaluation.data;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.MeetingIndex;
+import com.courseevaluation.models.Schedule;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Which catalogue courses overlap in time, kept as one BitSet row per
+// course so a pairwise check (the enrollment dialog's clash warning) is a
+// bit lookup rather than a schedule comparison. The scheduling solvers do
+// not use it: they place courses at other slots than their own, so they
+// test overlaps on their own grid masks.
+// CourseDatabase keeps it current as courses are added, edited and removed:
+// a change touches only the changed course's row and the rows of the
+// courses it overlaps, found through a MeetingIndex of every meeting.
+// Ids are internal; those of removed courses are reused.
+public class CourseConflictMatrix {
+    private final Map<String, Integer> idByCode = new HashMap<>();
+    // By id; null for free ids
+    private final List<Course> courses = new ArrayList<>();
+    private final List<BitSet> rows = new ArrayList<>();
+    private final BitSet used = new BitSet();
+    private final MeetingIndex<Integer> meetings = new MeetingIndex<>();
+
+    CourseConflictMatrix(Collection<Course> catalogue) {
+        for (Course course : catalogue) {
+            add(course);
+        }
+    }
+
+    void add(Course course) {
+        remove(course.getCourseCode());
+        int id = used.nextClearBit(0);
+        used.set(id);
+        if (id == courses.size()) {
+            courses.add(course);
+            rows.add(new BitSet());
+        } else {
+            courses.set(id, course);
+        }
+        idByCode.put(course.getCourseCode(), id);
+
+        BitSet row = rows.get(id);
+        Schedule schedule = course.getParsedSchedule();
+        List<Integer> overlapping = new ArrayList<>();
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            overlapping.clear();
+            meetings.findOverlapping(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m),
+                overlapping);
+            for (int other : overlapping) {
+                row.set(other);
+                rows.get(other).set(id);
+            }
+        }
+        meetings.add(schedule, id);
+    }
+
+    // Swaps in an edited copy of a course, keeping its row when the
+    // schedule did not change
+    void replace(Course previous, Course updated) {
+        Integer id = idByCode.get(previous.getCourseCode());
+        if (id != null && previous.getCourseCode().equals(updated.getCourseCode())
+                && previous.getParsedSchedule().equals(updated.getParsedSchedule())) {
+            courses.set(id, updated);
+            return;
+        }
+        remove(previous.getCourseCode());
+        add(updated);
+    }
+
+    void remove(String courseCode) {
+        Integer id = idByCode.remove(courseCode);
+        if (id == null) {
+            return;
+        }
+        BitSet row = rows.get(id);
+        for (int other = row.nextSetBit(0); other >= 0; other = row.nextSetBit(other + 1)) {
+            rows.get(other).clear(id);
+        }
+        row.clear();
+        meetings.remove(courses.get(id).getParsedSchedule(), id);
+        courses.set(id, null);
+        used.clear(id);
+    }
+
+    public int size() {
+        return idByCode.size();
+    }
+
+    private int idOf(String courseCode) {
+        Integer id = idByCode.get(courseCode);
+        return id != null ? id : -1;
+    }
+
+    // Courses outside the catalogue (such as preview copies), or stale
+    // copies of ones in it, are compared by schedule instead
+    public boolean conflicts(Course a, Course b) {
+        int idA = idOf(a.getCourseCode());
+        int idB = idOf(b.getCourseCode());
+        if (idA < 0 || idB < 0 || courses.get(idA) != a || courses.get(idB) != b) {
+            return a.getParsedSchedule().overlaps(b.getParsedSchedule());
+        }
+        return rows.get(idA).get(idB);
+    }
+
+    public List<Course> getConflictingCourses(Course course, Collection<Course> among) {
+        List<Course> conflicting = new ArrayList<>();
+        for (Course other : among) {
+            if (other != course && !other.getCourseCode().equals(course.getCourseCode()) && conflicts(course, other)) {
+                conflicting.add(other);
+            }
+        }
+        return conflicting;
+    }
+}
@@ -1,34 +1,83 @@
 package com.courseevaluation.data;
 
 import com.courseevaluation.models.Course;
+import com.courseevaluation.utils.CsvReader;
+import com.courseevaluation.utils.CsvWriter;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class CourseDatabase {
-    private static final String COURSE_FILE = "data/courses.csv";
-    private List<Course> courses;
+    private final String courseFile;
+    // Primary index keyed by course code; insertion order doubles as the file order
+    private Map<String, Course> coursesByCode;
+    // Secondary index keyed by instructor
+    private Map<String, List<Course>> coursesByInstructor;
+    // Built once the file is loaded, then kept current by indexCourse and
+    // removeCourse
+    private CourseConflictMatrix conflictMatrix;
+    // Enrollment commits hold the read side while they look courses up and
+    // take or release seats; adding, removing or replacing a Course takes
+    // the write side, so no seat lands on an object after its count has
+    // been copied to the replacement. Readers take the read side too: the
+    // indexes and the conflict matrix are not thread-safe on their own, and
+    // the schedulers read the catalogue from background threads.
+    private final ReentrantReadWriteLock seatLock = new ReentrantReadWriteLock();
+    private StorageFormat format;
+    private DurabilityPolicy durabilityPolicy;
+    private SnapshotWriter writer;
+    private StorageFormat writerFormat;
 
     public CourseDatabase() {
-        courses = new ArrayList<>();
+        this(DurabilityPolicy.fromSystemProperty());
+    }
+
+    public CourseDatabase(DurabilityPolicy durabilityPolicy) {
+        this(new File("data"), durabilityPolicy);
+    }
+
+    public CourseDatabase(File dataDirectory, DurabilityPolicy durabilityPolicy) {
+        this.courseFile = new File(dataDirectory, "courses").getPath();
+        this.durabilityPolicy = durabilityPolicy;
+        coursesByCode = new LinkedHashMap<>();
+        coursesByInstructor = new HashMap<>();
+        format = StorageFormat.detect(courseFile);
         loadCourses();
+        conflictMatrix = new CourseConflictMatrix(coursesByCode.values());
     }
 
     private void loadCourses() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(COURSE_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
+        if (format == StorageFormat.BINARY) {
+            try {
+                for (Course course : BinarySnapshot.readCourses(format.fileFor(courseFile))) {
+                    indexCourse(course);
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading courses: " + e.getMessage());
+            }
+            return;
+        }
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(
+                new FileInputStream(StorageFormat.CSV.fileFor(courseFile)), StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
                 Course course = new Course(
-                    parts[0],  // courseCode
-                    parts[1],  // title
-                    parts[3],  // instructor
-                    Integer.parseInt(parts[2]),  // credits
-                    parts[4],  // schedule
-                    Integer.parseInt(parts[6])   // maxStudents
+                    reader.getString(0),  // courseCode
+                    reader.getString(1),  // title
+                    reader.getString(3),  // instructor
+                    reader.getInt(2),     // credits
+                    reader.getString(4),  // schedule
+                    reader.getInt(6)      // maxStudents
                 );
-                course.setEnrolledStudents(Integer.parseInt(parts[5]));
-                courses.add(course);
+                course.setEnrolledStudents(reader.getInt(5));
+                indexCourse(course);
             }
         } catch (IOException e) {
             System.err.println("Error loading courses: " + e.getMessage());
@@ -36,44 +85,229 @@ public class CourseDatabase {
     }
 
     public void saveCourses() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(COURSE_FILE))) {
-            for (Course course : courses) {
-                writer.println(course.toString());
+        writerFor(format).save(snapshotContent(format));
+    }
+
+    // Copies the courses now: the content may be written after the caller returns
+    private SnapshotWriter.Content snapshotContent(StorageFormat saveFormat) {
+        List<Course> snapshot = getAllCourses();
+        return out -> {
+            if (saveFormat == StorageFormat.BINARY) {
+                BinarySnapshot.writeCourses(snapshot, out);
+            } else {
+                writeCsv(snapshot, out);
             }
+        };
+    }
+
+    private SnapshotWriter writerFor(StorageFormat saveFormat) {
+        if (writer == null || writerFormat != saveFormat) {
+            writer = new SnapshotWriter(saveFormat.fileFor(courseFile), durabilityPolicy);
+            writerFormat = saveFormat;
+        }
+        return writer;
+    }
+
+    private static void writeCsv(List<Course> snapshot, OutputStream out) throws IOException {
+        CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        for (Course course : snapshot) {
+            writer.field(course.getCourseCode())
+                .field(course.getTitle())
+                .field(course.getCredits())
+                .field(course.getInstructor())
+                .field(course.getSchedule())
+                .field(course.getEnrolledStudents())
+                .field(course.getMaxStudents())
+                .endRecord();
+        }
+        writer.flush();
+    }
+
+    // Writes the courses in the given format and makes it the primary store
+    public void saveAs(StorageFormat newFormat) {
+        StorageFormat oldFormat = format;
+        format = newFormat;
+        try {
+            // Synchronous, so the old file is only removed once the new one is in place
+            SnapshotWriter.writeAtomically(format.fileFor(courseFile), snapshotContent(format),
+                durabilityPolicy.usesFsync());
         } catch (IOException e) {
             System.err.println("Error saving courses: " + e.getMessage());
+            return;
+        }
+        if (oldFormat == StorageFormat.BINARY && newFormat == StorageFormat.CSV) {
+            // detect() prefers the binary file, so it has to go
+            oldFormat.fileFor(courseFile).delete();
         }
     }
 
-    public Course findCourse(String courseCode) {
-        for (Course course : courses) {
-            if (course.getCourseCode().equals(courseCode)) {
-                return course;
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    private void indexCourse(Course course) {
+        Course previous = coursesByCode.put(course.getCourseCode(), course);
+        if (previous != null) {
+            unindexInstructor(previous);
+        }
+        // Still null while the file is loading
+        if (conflictMatrix != null) {
+            if (previous != null) {
+                conflictMatrix.replace(previous, course);
+            } else {
+                conflictMatrix.add(course);
             }
         }
-        return null;
+        coursesByInstructor
+            .computeIfAbsent(course.getInstructor(), k -> new ArrayList<>())
+            .add(course);
+    }
+
+    private void unindexInstructor(Course course) {
+        List<Course> instructorCourses = coursesByInstructor.get(course.getInstructor());
+        if (instructorCourses != null) {
+            instructorCourses.remove(course);
+            if (instructorCourses.isEmpty()) {
+                coursesByInstructor.remove(course.getInstructor());
+            }
+        }
+    }
+
+    public Course findCourse(String courseCode) {
+        seatLock.readLock().lock();
+        try {
+            return coursesByCode.get(courseCode);
+        } finally {
+            seatLock.readLock().unlock();
+        }
+    }
+
+    Lock seatLock() {
+        return seatLock.readLock();
     }
 
     public void addCourse(Course course) {
-        courses.add(course);
+        seatLock.writeLock().lock();
+        try {
+            indexCourse(course);
+        } finally {
+            seatLock.writeLock().unlock();
+        }
+        saveCourses();
+    }
+
+    public boolean removeCourse(Course course) {
+        seatLock.writeLock().lock();
+        try {
+            Course removed = coursesByCode.remove(course.getCourseCode());
+            if (removed == null) {
+                return false;
+            }
+            unindexInstructor(removed);
+            conflictMatrix.remove(removed.getCourseCode());
+        } finally {
+            seatLock.writeLock().unlock();
+        }
         saveCourses();
+        return true;
+    }
+
+    // False if there is no such course, or if the code changes while the
+    // course has students (their enrollments are keyed by the old code) or
+    // to the code of another course
+    public boolean updateCourse(String originalCode, Course updated) {
+        seatLock.writeLock().lock();
+        try {
+            Course existing = coursesByCode.get(originalCode);
+            if (existing == null) {
+                return false;
+            }
+            if (!originalCode.equals(updated.getCourseCode())) {
+                if (existing.getEnrolledStudents() > 0 || coursesByCode.containsKey(updated.getCourseCode())) {
+                    return false;
+                }
+                coursesByCode.remove(originalCode);
+                unindexInstructor(existing);
+                conflictMatrix.remove(originalCode);
+            }
+            updated.setEnrolledStudents(existing.getEnrolledStudents());
+            indexCourse(updated);
+        } finally {
+            seatLock.writeLock().unlock();
+        }
+        saveCourses();
+        return true;
+    }
+
+    // Gives many courses a new schedule (by course code) with a single save;
+    // returns how many actually changed
+    public int updateSchedules(Map<String, String> schedulesByCode) {
+        int updated = 0;
+        seatLock.writeLock().lock();
+        try {
+            for (Map.Entry<String, String> entry : schedulesByCode.entrySet()) {
+                Course existing = coursesByCode.get(entry.getKey());
+                if (existing == null || existing.getSchedule().equals(entry.getValue())) {
+                    continue;
+                }
+                Course rescheduled = new Course(existing.getCourseCode(), existing.getTitle(),
+                    existing.getInstructor(), existing.getCredits(), entry.getValue(), existing.getMaxStudents());
+                rescheduled.setEnrolledStudents(existing.getEnrolledStudents());
+                indexCourse(rescheduled);
+                updated++;
+            }
+        } finally {
+            seatLock.writeLock().unlock();
+        }
+        if (updated > 0) {
+            saveCourses();
+        }
+        return updated;
     }
 
     public List<Course> getAllCourses() {
-        return new ArrayList<>(courses);
+        seatLock.readLock().lock();
+        try {
+            return new ArrayList<>(coursesByCode.values());
+        } finally {
+            seatLock.readLock().unlock();
+        }
     }
 
     public List<Course> getCoursesByInstructor(String instructorId) {
-        List<Course> instructorCourses = new ArrayList<>();
-        for (Course course : courses) {
-            if (course.getInstructor().equals(instructorId)) {
-                instructorCourses.add(course);
+        seatLock.readLock().lock();
+        try {
+            List<Course> instructorCourses = coursesByInstructor.get(instructorId);
+            if (instructorCourses == null) {
+                return Collections.emptyList();
             }
+            return new ArrayList<>(instructorCourses);
+        } finally {
+            seatLock.readLock().unlock();
+        }
+    }
+
+    // Time overlaps through the catalogue's conflict matrix. The matrix is
+    // only read under the lock, so it is not handed out.
+    public boolean conflicts(Course a, Course b) {
+        seatLock.readLock().lock();
+        try {
+            return conflictMatrix.conflicts(a, b);
+        } finally {
+            seatLock.readLock().unlock();
+        }
+    }
+
+    public List<Course> getConflictingCourses(Course course, Collection<Course> among) {
+        seatLock.readLock().lock();
+        try {
+            return conflictMatrix.getConflictingCourses(course, among);
+        } finally {
+            seatLock.readLock().unlock();
         }
-        return instructorCourses;
     }
 
     public Course getCourseByCode(String courseCode) {
         return findCourse(courseCode);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.courseevaluation.data;
+
+// How hard the stores try to get writes onto disk before returning:
+//   SYNC_EVERY_COMMIT - every journal commit and file save is fsync'd before
+//                       the call returns (default)
+//   SYNC_INTERVAL     - commits return once handed to the OS; the journal is
+//                       fsync'd every intervalMillis and file saves run on a
+//                       background writer
+//   OS_BUFFERED       - never fsync; the OS decides when data reaches disk
+// Saves are always written to a temp file and renamed into place, so a
+// crash never leaves a half-written file whatever the policy.
+//
+// The default can be chosen with -Dcourseevaluation.durability=commit,
+// interval:<millis> or buffered.
+public final class DurabilityPolicy {
+    public static final String PROPERTY = "courseevaluation.durability";
+
+    public enum Mode {
+        SYNC_EVERY_COMMIT,
+        SYNC_INTERVAL,
+        OS_BUFFERED
+    }
+
+    private final Mode mode;
+    private final long intervalMillis;
+
+    private DurabilityPolicy(Mode mode, long intervalMillis) {
+        this.mode = mode;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static DurabilityPolicy syncEveryCommit() {
+        return new DurabilityPolicy(Mode.SYNC_EVERY_COMMIT, 0);
+    }
+
+    public static DurabilityPolicy syncEvery(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sync interval must be positive: " + intervalMillis);
+        }
+        return new DurabilityPolicy(Mode.SYNC_INTERVAL, intervalMillis);
+    }
+
+    public static DurabilityPolicy osBuffered() {
+        return new DurabilityPolicy(Mode.OS_BUFFERED, 0);
+    }
+
+    public static DurabilityPolicy parse(String value) {
+        if (value == null || value.isEmpty() || value.equals("commit")) {
+            return syncEveryCommit();
+        }
+        if (value.equals("buffered")) {
+            return osBuffered();
+        }
+        if (value.startsWith("interval:")) {
+            return syncEvery(Long.parseLong(value.substring("interval:".length())));
+        }
+        throw new IllegalArgumentException("Unknown durability policy: " + value);
+    }
+
+    public static DurabilityPolicy fromSystemProperty() {
+        return parse(System.getProperty(PROPERTY));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    // Whether a commit has to wait for its own fsync
+    boolean syncsOnCommit() {
+        return mode == Mode.SYNC_EVERY_COMMIT;
+    }
+
+    // Whether files and journals are ever fsync'd
+    boolean usesFsync() {
+        return mode != Mode.OS_BUFFERED;
+    }
+
+    // Whether file saves may run on a background thread
+    boolean savesInBackground() {
+        return mode != Mode.SYNC_EVERY_COMMIT;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case SYNC_INTERVAL:
+                return "interval:" + intervalMillis;
+            case OS_BUFFERED:
+                return "buffered";
+            default:
+                return "commit";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.courseevaluation.data;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Student;
+import java.util.ArrayList;
+import java.util.List;
+
+// A set of enrolls and drops that EnrollmentDatabase.commit applies
+// all-or-nothing, in the order they were added.
+public class EnrollmentBatch {
+    private final List<Operation> operations;
+
+    public EnrollmentBatch() {
+        this.operations = new ArrayList<>();
+    }
+
+    public EnrollmentBatch enroll(Student student, Course course) {
+        operations.add(new Operation(true, student, course));
+        return this;
+    }
+
+    public EnrollmentBatch drop(Student student, Course course) {
+        operations.add(new Operation(false, student, course));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    List<Operation> getOperations() {
+        return operations;
+    }
+
+    static class Operation {
+        final boolean enroll;
+        final Student student;
+        final Course course;
+
+        Operation(boolean enroll, Student student, Course course) {
+            this.enroll = enroll;
+            this.student = student;
+            this.course = course;
+        }
+    }
+}
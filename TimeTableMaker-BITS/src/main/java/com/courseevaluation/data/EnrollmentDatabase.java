@@ -3,39 +3,109 @@ package com.courseevaluation.data;
 import com.courseevaluation.models.Enrollment;
 import com.courseevaluation.models.Student;
 import com.courseevaluation.models.Course;
+import com.courseevaluation.utils.CsvReader;
+import com.courseevaluation.utils.CsvWriter;
 import com.courseevaluation.utils.DateTimeUtil;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class EnrollmentDatabase {
-    private static final String FILE_PATH = "data/enrollments.csv";
-    private List<Enrollment> enrollments;
+public class EnrollmentDatabase implements Closeable {
+    // Journal records after which the journal is folded into a new snapshot
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final int LOCK_STRIPES = 256;
+    // studentUsername -> (courseCode -> enrollment)
+    private Map<String, Map<String, Enrollment>> enrollmentsByStudent;
+    // courseCode -> (studentUsername -> enrollment)
+    private Map<String, Map<String, Enrollment>> enrollmentsByCourse;
+    // Changes are serialized per student (striped by username), so different
+    // students never wait on each other; seats are claimed lock-free through
+    // Course.tryReserveSeat. Commits share the read side of stateLock and a
+    // compaction takes the write side to copy a snapshot that matches the
+    // journal it rotates away.
+    private final ReentrantLock[] studentLocks;
+    private final ReentrantReadWriteLock stateLock;
+    private final String filePath;
     private CourseDatabase courseDatabase;
+    private EnrollmentJournal journal;
+    private ExecutorService compactionExecutor;
+    private volatile boolean compactionRunning;
+    // Set once a journal write or fsync has failed: the journal may end in
+    // a torn or unsynced record, so later commits are refused until the
+    // database is reopened (replay drops a torn tail)
+    private volatile boolean failed;
+    private StorageFormat format;
+    private DurabilityPolicy durabilityPolicy;
 
     public EnrollmentDatabase(CourseDatabase courseDatabase) {
-        this.enrollments = new ArrayList<>();
+        this(courseDatabase, DurabilityPolicy.fromSystemProperty());
+    }
+
+    public EnrollmentDatabase(CourseDatabase courseDatabase, DurabilityPolicy durabilityPolicy) {
+        this(courseDatabase, new File("data"), durabilityPolicy);
+    }
+
+    public EnrollmentDatabase(CourseDatabase courseDatabase, File dataDirectory, DurabilityPolicy durabilityPolicy) {
+        this.filePath = new File(dataDirectory, "enrollments").getPath();
+        this.durabilityPolicy = durabilityPolicy;
+        this.enrollmentsByStudent = new ConcurrentHashMap<>();
+        this.enrollmentsByCourse = new ConcurrentHashMap<>();
+        this.studentLocks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            studentLocks[i] = new ReentrantLock();
+        }
+        this.stateLock = new ReentrantReadWriteLock();
         this.courseDatabase = courseDatabase;
+        this.journal = new EnrollmentJournal(filePath + ".journal", durabilityPolicy);
+        this.compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "enrollment-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.format = StorageFormat.detect(filePath);
         loadEnrollments();
+        openJournal();
+        syncSeatCounts();
     }
 
     private void loadEnrollments() {
-        File file = new File(FILE_PATH);
+        File file = format.fileFor(filePath);
         if (!file.exists()) {
             return;
         }
+        if (format == StorageFormat.BINARY) {
+            try {
+                for (Enrollment enrollment : BinarySnapshot.readEnrollments(file)) {
+                    index(enrollment);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    enrollments.add(new Enrollment(
-                        parts[0],  // studentUsername
-                        parts[1],  // courseCode
-                        parts[2],  // enrollmentDate
-                        parts[3]   // status
+        try (CsvReader reader = new CsvReader(new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                if (reader.getFieldCount() >= 4) {
+                    index(new Enrollment(
+                        reader.getString(0),  // studentUsername
+                        reader.getString(1),  // courseCode
+                        reader.getString(2),  // enrollmentDate
+                        reader.getString(3)   // status
                     ));
                 }
             }
@@ -44,80 +114,445 @@ public class EnrollmentDatabase {
         }
     }
 
-    public void saveEnrollments() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_PATH))) {
-            for (Enrollment enrollment : enrollments) {
-                writer.println(enrollment.toString());
+    private void openJournal() {
+        try {
+            boolean interruptedCompaction = journal.isCompacting();
+            journal.open(this::applyJournalRecord);
+            if (interruptedCompaction) {
+                writeSnapshot(getAllEnrollments());
+                journal.compactionFinished();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void applyJournalRecord(String record) {
+        try (CsvReader reader = new CsvReader(new StringReader(record))) {
+            if (!reader.next()) {
+                return;
+            }
+            if (reader.fieldEquals(0, EnrollmentJournal.ENROLL) && reader.getFieldCount() >= 5) {
+                index(new Enrollment(reader.getString(1), reader.getString(2),
+                    reader.getString(3), reader.getString(4)));
+            } else if (reader.fieldEquals(0, EnrollmentJournal.DROP) && reader.getFieldCount() >= 3) {
+                unindex(reader.getString(1), reader.getString(2));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String enrollRecord(Enrollment enrollment) {
+        return CsvWriter.formatRecord(EnrollmentJournal.ENROLL,
+            enrollment.getStudentUsername(), enrollment.getCourseCode(),
+            enrollment.getEnrollmentDate(), enrollment.getStatus());
+    }
+
+    private static String dropRecord(String studentUsername, String courseCode) {
+        return CsvWriter.formatRecord(EnrollmentJournal.DROP, studentUsername, courseCode);
+    }
+
+    // Seat counts are derived from the enrollment records, so course saves
+    // are not needed on every enroll or drop
+    private void syncSeatCounts() {
+        for (Course course : courseDatabase.getAllCourses()) {
+            Map<String, Enrollment> courseEnrollments = enrollmentsByCourse.get(course.getCourseCode());
+            course.setEnrolledStudents(courseEnrollments == null ? 0 : courseEnrollments.size());
+        }
+    }
+
+    // Folds the journal into a fresh snapshot right away, after any
+    // background compaction has finished; false if it could not be written
+    // or the wait was interrupted
+    public boolean saveEnrollments() {
+        while (true) {
+            if (!awaitCompaction()) {
+                return false;
+            }
+            stateLock.writeLock().lock();
+            try {
+                // Another compaction may have started in the meantime
+                if (compactionRunning) {
+                    continue;
+                }
+                journal.rotate();
+                writeSnapshot(getAllEnrollments());
+                journal.compactionFinished();
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+        }
+    }
+
+    // The compaction executor has one thread, so a task queued behind a
+    // compaction runs once it is done
+    private boolean awaitCompaction() {
+        if (!compactionRunning) {
+            return true;
+        }
+        try {
+            compactionExecutor.submit(() -> { }).get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // Closed: close() already waited for the compaction
+            return true;
+        }
+    }
+
+    // Writes the snapshot in the given format and makes it the primary store
+    public void saveAs(StorageFormat newFormat) {
+        stateLock.writeLock().lock();
+        try {
+            StorageFormat oldFormat = format;
+            format = newFormat;
+            try {
+                // Written directly rather than through saveEnrollments, which
+                // would first wait for a background compaction
+                writeSnapshot(getAllEnrollments());
+            } catch (IOException e) {
+                e.printStackTrace();
+                format = oldFormat;
+                return;
+            }
+            if (oldFormat == StorageFormat.BINARY && newFormat == StorageFormat.CSV) {
+                // detect() prefers the binary file, so it has to go
+                oldFormat.fileFor(filePath).delete();
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    // Lets a running compaction finish and releases the journal. The
+    // application never needs this (the journal is flushed on every commit);
+    // it is for tools that open and discard databases.
+    @Override
+    public void close() throws IOException {
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    // Must be called with the student locks and the read lock held. Returns
+    // the journal sequence number to pass to awaitDurable once the locks are
+    // released, or -1 if the records could not be written.
+    private long writeToJournal(List<String> records) {
+        long seq;
+        try {
+            seq = journal.write(records);
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+            return -1;
+        }
+        return seq;
+    }
+
+    // Called after a commit has released its locks; the snapshot is taken
+    // under the write lock, so it covers every journaled change
+    private void maybeCompact() {
+        if (compactionRunning || journal.getRecordCount() < COMPACTION_THRESHOLD) {
+            return;
+        }
+        stateLock.writeLock().lock();
+        try {
+            if (!compactionRunning && journal.getRecordCount() >= COMPACTION_THRESHOLD) {
+                compactInBackground();
             }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    // Waits for the fsync (if the durability policy asks for one) outside
+    // the locks, so that commits from other threads can be written
+    // meanwhile and share the same flush. False if the fsync failed.
+    private boolean awaitDurable(long seq) {
+        try {
+            journal.commit(seq);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+            return false;
+        }
+    }
+
+    private void compactInBackground() {
+        List<Enrollment> snapshot = getAllEnrollments();
+        try {
+            journal.rotate();
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+        compactionRunning = true;
+        compactionExecutor.execute(() -> {
+            try {
+                writeSnapshot(snapshot);
+                journal.compactionFinished();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                compactionRunning = false;
+            }
+        });
+    }
+
+    private void writeSnapshot(List<Enrollment> snapshot) throws IOException {
+        StorageFormat snapshotFormat = format;
+        SnapshotWriter.writeAtomically(snapshotFormat.fileFor(filePath), out -> {
+            if (snapshotFormat == StorageFormat.BINARY) {
+                BinarySnapshot.writeEnrollments(snapshot, out);
+            } else {
+                CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+                for (Enrollment enrollment : snapshot) {
+                    writer.field(enrollment.getStudentUsername())
+                        .field(enrollment.getCourseCode())
+                        .field(enrollment.getEnrollmentDate())
+                        .field(enrollment.getStatus())
+                        .endRecord();
+                }
+                writer.flush();
+            }
+        }, durabilityPolicy.usesFsync());
+    }
+
+    // Both indexes are always updated together, under the student's lock.
+    // Per-course maps are never removed, so adders for other students can
+    // keep using the map they looked up.
+    private void index(Enrollment enrollment) {
+        enrollmentsByStudent
+            .computeIfAbsent(enrollment.getStudentUsername(), k -> new ConcurrentHashMap<>())
+            .put(enrollment.getCourseCode(), enrollment);
+        enrollmentsByCourse
+            .computeIfAbsent(enrollment.getCourseCode(), k -> new ConcurrentHashMap<>())
+            .put(enrollment.getStudentUsername(), enrollment);
+    }
+
+    private boolean unindex(String studentUsername, String courseCode) {
+        Map<String, Enrollment> studentEnrollments = enrollmentsByStudent.get(studentUsername);
+        if (studentEnrollments == null || studentEnrollments.remove(courseCode) == null) {
+            return false;
+        }
+        if (studentEnrollments.isEmpty()) {
+            enrollmentsByStudent.remove(studentUsername);
+        }
+        Map<String, Enrollment> courseEnrollments = enrollmentsByCourse.get(courseCode);
+        if (courseEnrollments != null) {
+            courseEnrollments.remove(studentUsername);
+        }
+        return true;
+    }
+
+    private ReentrantLock lockFor(String studentUsername) {
+        return studentLocks[stripe(studentUsername)];
+    }
+
+    private static int stripe(String studentUsername) {
+        return (studentUsername.hashCode() & 0x7fffffff) % LOCK_STRIPES;
+    }
+
+    // Applies every operation of the batch or none of them: an enroll fails
+    // if the student is already enrolled or no seat can be reserved, a drop
+    // fails if the student is not enrolled. Seats freed by drops in the batch
+    // are released only after it commits, so an enroll cannot count on them.
+    // Seats are taken on the catalogue's current Course for each code, not
+    // on the (possibly replaced) object the batch was built with, and an
+    // enroll in a course that no longer exists fails. All records go to the
+    // journal as one transaction with a single durable flush.
+    // False is also returned when the journal cannot be written or synced,
+    // after which the database is failed and refuses every commit. If only
+    // the fsync failed, the batch has already been applied in memory and
+    // handed to the OS, so whether it survives a crash is unknown.
+    public boolean commit(EnrollmentBatch batch) {
+        if (failed) {
+            return false;
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<EnrollmentBatch.Operation> operations = batch.getOperations();
+        ReentrantLock[] locks = locksFor(operations);
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        long seq;
+        stateLock.readLock().lock();
+        Lock seatLock = courseDatabase.seatLock();
+        seatLock.lock();
+        try {
+            List<Course> courses = new ArrayList<>(operations.size());
+            for (EnrollmentBatch.Operation op : operations) {
+                Course course = courseDatabase.findCourse(op.course.getCourseCode());
+                if (course == null && op.enroll) {
+                    return false;
+                }
+                courses.add(course);
+            }
+
+            // Validate against the current state plus the effect of earlier
+            // operations in the same batch
+            Map<String, Boolean> pending = new HashMap<>();
+            for (EnrollmentBatch.Operation op : operations) {
+                String key = op.student.getUsername() + "," + op.course.getCourseCode();
+                Boolean pendingState = pending.get(key);
+                boolean enrolled = pendingState != null ? pendingState
+                    : isEnrolled(op.student.getUsername(), op.course.getCourseCode());
+                if (enrolled == op.enroll) {
+                    return false;
+                }
+                pending.put(key, op.enroll);
+            }
+
+            List<Course> reserved = new ArrayList<>();
+            for (int i = 0; i < operations.size(); i++) {
+                if (operations.get(i).enroll) {
+                    if (!courses.get(i).tryReserveSeat()) {
+                        reserved.forEach(Course::releaseSeat);
+                        return false;
+                    }
+                    reserved.add(courses.get(i));
+                }
+            }
+
+            String date = DateTimeUtil.getCurrentDate();
+            List<Enrollment> added = new ArrayList<>(operations.size());
+            List<String> records = new ArrayList<>(operations.size());
+            for (EnrollmentBatch.Operation op : operations) {
+                if (op.enroll) {
+                    Enrollment enrollment = new Enrollment(
+                        op.student.getUsername(), op.course.getCourseCode(), date, "ENROLLED");
+                    added.add(enrollment);
+                    records.add(enrollRecord(enrollment));
+                } else {
+                    added.add(null);
+                    records.add(dropRecord(op.student.getUsername(), op.course.getCourseCode()));
+                }
+            }
+            seq = writeToJournal(records);
+            if (seq < 0) {
+                reserved.forEach(Course::releaseSeat);
+                return false;
+            }
+
+            for (int i = 0; i < operations.size(); i++) {
+                EnrollmentBatch.Operation op = operations.get(i);
+                if (op.enroll) {
+                    index(added.get(i));
+                } else {
+                    unindex(op.student.getUsername(), op.course.getCourseCode());
+                    if (courses.get(i) != null) {
+                        courses.get(i).releaseSeat();
+                    }
+                }
+            }
+        } finally {
+            seatLock.unlock();
+            stateLock.readLock().unlock();
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
         }
+        maybeCompact();
+        return awaitDurable(seq);
     }
 
-    public void addEnrollment(Enrollment enrollment) {
-        enrollments.add(enrollment);
-        saveEnrollments();
+    // Whether a journal failure has stopped this database taking commits
+    public boolean isFailed() {
+        return failed;
     }
 
-    public void removeEnrollment(Enrollment enrollment) {
-        enrollments.removeIf(e -> 
-            e.getStudentUsername().equals(enrollment.getStudentUsername()) && 
-            e.getCourseCode().equals(enrollment.getCourseCode()));
-        saveEnrollments();
+    // Distinct student lock stripes of the batch, in a fixed global order so
+    // that overlapping batches cannot deadlock
+    private ReentrantLock[] locksFor(List<EnrollmentBatch.Operation> operations) {
+        int[] stripes = new int[operations.size()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = stripe(operations.get(i).student.getUsername());
+        }
+        Arrays.sort(stripes);
+        int distinct = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1]) {
+                stripes[distinct++] = stripes[i];
+            }
+        }
+        ReentrantLock[] locks = new ReentrantLock[distinct];
+        for (int i = 0; i < distinct; i++) {
+            locks[i] = studentLocks[stripes[i]];
+        }
+        return locks;
     }
 
     public List<Enrollment> getEnrollmentsByStudent(String studentUsername) {
-        return enrollments.stream()
-            .filter(e -> e.getStudentUsername().equals(studentUsername))
-            .collect(Collectors.toList());
+        Map<String, Enrollment> studentEnrollments = enrollmentsByStudent.get(studentUsername);
+        if (studentEnrollments == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(studentEnrollments.values());
     }
 
     public List<Enrollment> getEnrollmentsByCourse(String courseCode) {
-        return enrollments.stream()
-            .filter(e -> e.getCourseCode().equals(courseCode))
-            .collect(Collectors.toList());
+        Map<String, Enrollment> courseEnrollments = enrollmentsByCourse.get(courseCode);
+        if (courseEnrollments == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(courseEnrollments.values());
     }
 
     public List<Enrollment> getAllEnrollments() {
-        return new ArrayList<>(enrollments);
+        List<Enrollment> all = new ArrayList<>();
+        for (Map<String, Enrollment> studentEnrollments : enrollmentsByStudent.values()) {
+            all.addAll(studentEnrollments.values());
+        }
+        return all;
     }
 
     public List<Course> getEnrolledCourses(Student student) {
-        return getEnrollmentsByStudent(student.getUsername()).stream()
-            .map(enrollment -> courseDatabase.findCourse(enrollment.getCourseCode()))
-            .filter(course -> course != null)
-            .collect(Collectors.toList());
+        Map<String, Enrollment> studentEnrollments = enrollmentsByStudent.get(student.getUsername());
+        List<Course> courses = new ArrayList<>();
+        if (studentEnrollments == null) {
+            return courses;
+        }
+        for (String courseCode : studentEnrollments.keySet()) {
+            Course course = courseDatabase.findCourse(courseCode);
+            if (course != null) {
+                courses.add(course);
+            }
+        }
+        return courses;
     }
 
     public boolean isEnrolled(Student student, Course course) {
-        return enrollments.stream()
-            .anyMatch(e -> e.getStudentUsername().equals(student.getUsername()) &&
-                         e.getCourseCode().equals(course.getCourseCode()));
-    }
-
-    public void enrollStudent(Student student, Course course) {
-        if (!isEnrolled(student, course)) {
-            Enrollment enrollment = new Enrollment(
-                student.getUsername(),
-                course.getCourseCode(),
-                DateTimeUtil.getCurrentDate(),
-                "ENROLLED"
-            );
-            addEnrollment(enrollment);
-            course.setEnrolledStudents(course.getEnrolledStudents() + 1);
-            courseDatabase.saveCourses();
-        }
-    }
-
-    public void dropCourse(Student student, Course course) {
-        Enrollment enrollment = new Enrollment(
-            student.getUsername(),
-            course.getCourseCode(),
-            DateTimeUtil.getCurrentDate(),
-            "DROPPED"
-        );
-        removeEnrollment(enrollment);
-        course.setEnrolledStudents(course.getEnrolledStudents() - 1);
-        courseDatabase.saveCourses();
-    }
-} 
\ No newline at end of file
+        return isEnrolled(student.getUsername(), course.getCourseCode());
+    }
+
+    private boolean isEnrolled(String studentUsername, String courseCode) {
+        Map<String, Enrollment> studentEnrollments = enrollmentsByStudent.get(studentUsername);
+        return studentEnrollments != null && studentEnrollments.containsKey(courseCode);
+    }
+
+    public boolean enrollStudent(Student student, Course course) {
+        return commit(new EnrollmentBatch().enroll(student, course));
+    }
+
+    public boolean dropCourse(Student student, Course course) {
+        return commit(new EnrollmentBatch().drop(student, course));
+    }
+}
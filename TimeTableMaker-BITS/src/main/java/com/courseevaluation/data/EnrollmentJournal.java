@@ -0,0 +1,243 @@
+package com.courseevaluation.data;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Append-only log of enrollment changes. Each record is one line terminated
+// by '\n'. A transaction of several records is framed as "BEGIN,<n>" followed
+// by the n records, so replay applies it all or not at all. On startup the
+// journal is replayed on top of the last snapshot; a torn final line or an
+// incomplete transaction (crash mid-append) is discarded.
+//
+// Writing and syncing are separate steps: write() only hands bytes to the OS,
+// and sync() forces them to disk. Committers that arrive while another
+// thread is forcing wait for it and are usually covered by the next force,
+// so concurrent commits share one fsync (group commit). Under a
+// SYNC_INTERVAL policy commits do not wait at all and a background thread
+// forces the journal periodically; under OS_BUFFERED nothing is forced.
+class EnrollmentJournal implements Closeable {
+    static final String ENROLL = "ENROLL";
+    static final String DROP = "DROP";
+    static final String BEGIN = "BEGIN";
+
+    private final File file;
+    private final File compactingFile;
+    private final DurabilityPolicy policy;
+    private final Object syncLock = new Object();
+    private ScheduledExecutorService flusher;
+    private FileOutputStream out;
+    private FileChannel channel;
+    private int recordCount;
+    private long writtenSeq;
+    private volatile long syncedSeq;
+
+    EnrollmentJournal(String path, DurabilityPolicy policy) {
+        this.file = new File(path);
+        this.compactingFile = new File(path + ".compacting");
+        this.policy = policy;
+    }
+
+    // Replays the journal being compacted (if a compaction was interrupted)
+    // followed by the live journal, then opens the live journal for appends.
+    void open(Consumer<String> handler) throws IOException {
+        if (compactingFile.exists()) {
+            replayFile(compactingFile, handler);
+        }
+        recordCount = replayFile(file, handler);
+        out = new FileOutputStream(file, true);
+        channel = out.getChannel();
+        if (policy.getMode() == DurabilityPolicy.Mode.SYNC_INTERVAL && flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = policy.getIntervalMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            long target;
+            synchronized (this) {
+                target = writtenSeq;
+            }
+            sync(target);
+        } catch (IOException e) {
+            System.err.println("Error flushing journal: " + e.getMessage());
+        }
+    }
+
+    private int replayFile(File source, Consumer<String> handler) throws IOException {
+        if (!source.exists()) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(source.toPath());
+        List<String> transaction = new ArrayList<>();
+        int expected = 0;
+        int count = 0;
+        int lineStart = 0;
+        int committedEnd = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            if (i > lineStart) {
+                String record = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                if (expected == 0 && record.startsWith(BEGIN + ",")) {
+                    expected = Integer.parseInt(record.substring(BEGIN.length() + 1));
+                } else if (expected > 0) {
+                    transaction.add(record);
+                    if (transaction.size() == expected) {
+                        transaction.forEach(handler);
+                        count += expected;
+                        transaction.clear();
+                        expected = 0;
+                    }
+                } else {
+                    handler.accept(record);
+                    count++;
+                }
+            }
+            lineStart = i + 1;
+            if (expected == 0) {
+                committedEnd = lineStart;
+            }
+        }
+        if (committedEnd < bytes.length && source.equals(file)) {
+            // Drop the torn tail so later appends start on a clean line
+            try (FileChannel truncate = new RandomAccessFile(source, "rw").getChannel()) {
+                truncate.truncate(committedEnd);
+                if (policy.usesFsync()) {
+                    truncate.force(true);
+                }
+            }
+        }
+        return count;
+    }
+
+    // Hands the records to the OS as a single transaction and returns its
+    // sequence number; call sync() with it before reporting success.
+    synchronized long write(List<String> records) throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        if (records.size() > 1) {
+            buffer.append(BEGIN).append(',').append(records.size()).append('\n');
+        }
+        for (String record : records) {
+            if (record.indexOf('\n') >= 0 || record.indexOf('\r') >= 0) {
+                // One record per line is what makes torn tails detectable
+                throw new IOException("Journal records cannot contain line breaks: " + record);
+            }
+            buffer.append(record).append('\n');
+        }
+        out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+        recordCount += records.size();
+        return ++writtenSeq;
+    }
+
+    // Makes the transaction durable as far as the policy requires
+    void commit(long seq) throws IOException {
+        if (policy.syncsOnCommit()) {
+            sync(seq);
+        }
+    }
+
+    void sync(long seq) throws IOException {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = writtenSeq;
+                current = channel;
+            }
+            if (current == null) {
+                return;
+            }
+            current.force(false);
+            syncedSeq = target;
+        }
+    }
+
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    boolean isCompacting() {
+        return compactingFile.exists();
+    }
+
+    // Moves the live journal aside so a snapshot can be written in the
+    // background while new records go to a fresh, empty journal. If an
+    // earlier compaction failed, its journal is still there and in no
+    // snapshot, so the live records are appended to it instead: the next
+    // snapshot covers both. A crash before the live journal is emptied
+    // replays its records twice, which leaves the same state as once.
+    void rotate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (policy.usesFsync()) {
+                    channel.force(false);
+                }
+                syncedSeq = writtenSeq;
+                closeFile();
+                if (compactingFile.exists()) {
+                    appendTo(compactingFile);
+                    new FileOutputStream(file).close();
+                } else if (!file.renameTo(compactingFile)) {
+                    throw new IOException("Could not rotate journal " + file);
+                }
+                out = new FileOutputStream(file, true);
+                channel = out.getChannel();
+                recordCount = 0;
+            }
+        }
+    }
+
+    private void appendTo(File target) throws IOException {
+        byte[] records = Files.readAllBytes(file.toPath());
+        try (FileOutputStream append = new FileOutputStream(target, true)) {
+            append.write(records);
+            if (policy.usesFsync()) {
+                append.getChannel().force(false);
+            }
+        }
+    }
+
+    // Called once the snapshot covering the rotated journal is durable
+    void compactionFinished() {
+        compactingFile.delete();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+            flushQuietly();
+        }
+        closeFile();
+    }
+
+    private synchronized void closeFile() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            channel = null;
+        }
+    }
+}
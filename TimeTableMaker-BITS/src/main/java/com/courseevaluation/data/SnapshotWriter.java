@@ -0,0 +1,105 @@
+package com.courseevaluation.data;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Replaces a data file crash-safely: the new content goes to a temp file in
+// the same directory, is fsync'd, and is then renamed over the old file, so
+// readers see either the old or the new file and never a truncated one.
+// Depending on the DurabilityPolicy the save runs on the calling thread or
+// on a shared background writer that only keeps the latest pending content.
+final class SnapshotWriter {
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Let queued background saves finish on a normal exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            BACKGROUND.shutdown();
+            try {
+                BACKGROUND.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    private final File target;
+    private final DurabilityPolicy policy;
+    private final AtomicReference<Content> pending = new AtomicReference<>();
+
+    SnapshotWriter(File target, DurabilityPolicy policy) {
+        this.target = target;
+        this.policy = policy;
+    }
+
+    // The content must be a self-contained copy: in background mode it is
+    // written after this call has returned
+    void save(Content content) {
+        if (!policy.savesInBackground()) {
+            writeOrReport(content);
+            return;
+        }
+        if (pending.getAndSet(content) == null) {
+            BACKGROUND.execute(() -> {
+                Content latest = pending.getAndSet(null);
+                if (latest != null) {
+                    writeOrReport(latest);
+                }
+            });
+        }
+    }
+
+    private void writeOrReport(Content content) {
+        try {
+            writeAtomically(target, content, policy.usesFsync());
+        } catch (IOException e) {
+            System.err.println("Error saving " + target + ": " + e.getMessage());
+        }
+    }
+
+    static void writeAtomically(File target, Content content, boolean fsync) throws IOException {
+        Path targetPath = target.getAbsoluteFile().toPath();
+        Path directory = targetPath.getParent();
+        Path temp = Files.createTempFile(directory, target.getName(), ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                content.writeTo(out);
+                out.flush();
+                if (fsync) {
+                    out.getFD().sync();
+                }
+            }
+            Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (fsync) {
+            syncDirectory(directory);
+        }
+    }
+
+    // Makes the rename itself durable; not supported on every platform
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.courseevaluation.data;
+
+import java.io.File;
+
+public enum StorageFormat {
+    CSV(".csv"),
+    BINARY(".bin");
+
+    private final String extension;
+
+    StorageFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public File fileFor(String basePath) {
+        return new File(basePath + extension);
+    }
+
+    // The binary snapshot wins when both files are present
+    public static StorageFormat detect(String basePath) {
+        return BINARY.fileFor(basePath).exists() ? BINARY : CSV;
+    }
+}
@@ -4,31 +4,71 @@ import com.courseevaluation.models.User;
 import com.courseevaluation.models.Student;
 import com.courseevaluation.models.Instructor;
 import com.courseevaluation.models.Admin;
+import com.courseevaluation.utils.CsvReader;
+import com.courseevaluation.utils.CsvWriter;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UserDatabase {
-    private static final String USER_FILE = "data/users.csv";
+    private final String userFile;
     private List<User> users;
+    private StorageFormat format;
+    private DurabilityPolicy durabilityPolicy;
+    private SnapshotWriter writer;
+    private StorageFormat writerFormat;
 
     public UserDatabase() {
+        this(DurabilityPolicy.fromSystemProperty());
+    }
+
+    public UserDatabase(DurabilityPolicy durabilityPolicy) {
+        this(new File("data"), durabilityPolicy);
+    }
+
+    public UserDatabase(File dataDirectory, DurabilityPolicy durabilityPolicy) {
+        this.userFile = new File(dataDirectory, "users").getPath();
+        this.durabilityPolicy = durabilityPolicy;
         users = new ArrayList<>();
+        format = StorageFormat.detect(userFile);
         loadUsers();
     }
 
     private void loadUsers() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(USER_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts[0].equals("STUDENT")) {
-                    users.add(new Student(parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], Integer.parseInt(parts[7])));
-                } else if (parts[0].equals("INSTRUCTOR")) {
-                    users.add(new Instructor(parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]));
-                } else if (parts[0].equals("ADMIN")) {
-                    users.add(new Admin(parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]));
+        if (format == StorageFormat.BINARY) {
+            try {
+                users.addAll(BinarySnapshot.readUsers(format.fileFor(userFile)));
+            } catch (IOException e) {
+                System.err.println("Error loading users: " + e.getMessage());
+            }
+            return;
+        }
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(
+                new FileInputStream(StorageFormat.CSV.fileFor(userFile)), StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                User user;
+                int statusField;
+                if (reader.fieldEquals(0, "STUDENT")) {
+                    user = new Student(reader.getString(1), reader.getString(2), reader.getString(3),
+                        reader.getString(4), reader.getString(5), reader.getString(6), reader.getInt(7));
+                    statusField = 8;
+                } else if (reader.fieldEquals(0, "INSTRUCTOR")) {
+                    user = new Instructor(reader.getString(1), reader.getString(2), reader.getString(3),
+                        reader.getString(4), reader.getString(5), reader.getString(6));
+                    statusField = 7;
+                } else if (reader.fieldEquals(0, "ADMIN")) {
+                    user = new Admin(reader.getString(1), reader.getString(2), reader.getString(3),
+                        reader.getString(4), reader.getString(5), reader.getString(6));
+                    statusField = 7;
+                } else {
+                    continue;
                 }
+                // Status is an optional trailing column
+                if (reader.getFieldCount() > statusField) {
+                    user.setStatus(reader.getString(statusField));
+                }
+                users.add(user);
             }
         } catch (IOException e) {
             System.err.println("Error loading users: " + e.getMessage());
@@ -36,15 +76,84 @@ public class UserDatabase {
     }
 
     public void saveUsers() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USER_FILE))) {
-            for (User user : users) {
-                writer.println(user.toString());
+        writerFor(format).save(snapshotContent(format));
+    }
+
+    // Copies the users now: the content may be written after the caller returns
+    private SnapshotWriter.Content snapshotContent(StorageFormat saveFormat) {
+        List<User> snapshot = new ArrayList<>(users);
+        return out -> {
+            if (saveFormat == StorageFormat.BINARY) {
+                BinarySnapshot.writeUsers(snapshot, out);
+            } else {
+                writeCsv(snapshot, out);
             }
+        };
+    }
+
+    private SnapshotWriter writerFor(StorageFormat saveFormat) {
+        if (writer == null || writerFormat != saveFormat) {
+            writer = new SnapshotWriter(saveFormat.fileFor(userFile), durabilityPolicy);
+            writerFormat = saveFormat;
+        }
+        return writer;
+    }
+
+    private static void writeCsv(List<User> snapshot, OutputStream out) throws IOException {
+        CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        for (User user : snapshot) {
+            if (user instanceof Student) {
+                Student student = (Student) user;
+                writeCommonFields(writer.field("STUDENT"), user)
+                    .field(student.getStudentId())
+                    .field(student.getMajor())
+                    .field(student.getYear());
+            } else if (user instanceof Instructor) {
+                Instructor instructor = (Instructor) user;
+                writeCommonFields(writer.field("INSTRUCTOR"), user)
+                    .field(instructor.getInstructorId())
+                    .field(instructor.getSpecialization());
+            } else {
+                Admin admin = (Admin) user;
+                writeCommonFields(writer.field("ADMIN"), user)
+                    .field(admin.getAdminId())
+                    .field(admin.getAccessLevel());
+            }
+            writer.field(user.getStatus()).endRecord();
+        }
+        writer.flush();
+    }
+
+    private static CsvWriter writeCommonFields(CsvWriter writer, User user) throws IOException {
+        return writer
+            .field(user.getUsername())
+            .field(user.getPassword())
+            .field(user.getName())
+            .field(user.getDepartment());
+    }
+
+    // Writes the users in the given format and makes it the primary store
+    public void saveAs(StorageFormat newFormat) {
+        StorageFormat oldFormat = format;
+        format = newFormat;
+        try {
+            // Synchronous, so the old file is only removed once the new one is in place
+            SnapshotWriter.writeAtomically(format.fileFor(userFile), snapshotContent(format),
+                durabilityPolicy.usesFsync());
         } catch (IOException e) {
             System.err.println("Error saving users: " + e.getMessage());
+            return;
+        }
+        if (oldFormat == StorageFormat.BINARY && newFormat == StorageFormat.CSV) {
+            // detect() prefers the binary file, so it has to go
+            oldFormat.fileFor(userFile).delete();
         }
     }
 
+    public StorageFormat getFormat() {
+        return format;
+    }
+
     public User findUser(String username) {
         for (User user : users) {
             if (user.getUsername().equals(username)) {
@@ -2,6 +2,12 @@ package com.courseevaluation.gui;
 
 import com.courseevaluation.models.*;
 import com.courseevaluation.data.*;
+import com.courseevaluation.scheduling.CourseConflictGraph;
+import com.courseevaluation.scheduling.CourseSlotSolver;
+import com.courseevaluation.scheduling.RepairPlan;
+import com.courseevaluation.scheduling.ScheduleRepair;
+import com.courseevaluation.scheduling.SlotAnnealer;
+import com.courseevaluation.scheduling.SlotAssignment;
 import com.courseevaluation.utils.DateTimeUtil;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -9,6 +15,10 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class AdminHome extends JFrame {
@@ -233,14 +243,17 @@ public class AdminHome extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton viewButton = createStyledButton("View Timetable");
         JButton generateButton = createStyledButton("Generate Timetable");
+        JButton improveButton = createStyledButton("Improve Current Timetable");
         JButton exportButton = createStyledButton("Export Timetable");
 
         viewButton.addActionListener(e -> showScheduleDialog());
         generateButton.addActionListener(e -> showTimetableGenerationDialog());
+        improveButton.addActionListener(e -> improveTimetable(null, null));
         exportButton.addActionListener(e -> exportTimetable());
 
         buttonPanel.add(viewButton);
         buttonPanel.add(generateButton);
+        buttonPanel.add(improveButton);
         buttonPanel.add(exportButton);
         panel.add(buttonPanel, BorderLayout.NORTH);
 
@@ -809,12 +822,144 @@ public class AdminHome extends JFrame {
         dialog.setSize(500, 400);
         dialog.setLocationRelativeTo(this);
 
-        // Create form with pre-filled values
-        // (Similar to add course dialog but with course data pre-filled)
-        
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        // Course code field
+        gbc.gridx = 0; gbc.gridy = 0;
+        formPanel.add(new JLabel("Course Code:"), gbc);
+        gbc.gridx = 1;
+        JTextField codeField = new JTextField(course.getCourseCode(), 20);
+        formPanel.add(codeField, gbc);
+
+        // Title field
+        gbc.gridx = 0; gbc.gridy = 1;
+        formPanel.add(new JLabel("Title:"), gbc);
+        gbc.gridx = 1;
+        JTextField titleField = new JTextField(course.getTitle(), 20);
+        formPanel.add(titleField, gbc);
+
+        // Instructor field
+        gbc.gridx = 0; gbc.gridy = 2;
+        formPanel.add(new JLabel("Instructor:"), gbc);
+        gbc.gridx = 1;
+        JTextField instructorField = new JTextField(course.getInstructor(), 20);
+        formPanel.add(instructorField, gbc);
+
+        // Credits field
+        gbc.gridx = 0; gbc.gridy = 3;
+        formPanel.add(new JLabel("Credits:"), gbc);
+        gbc.gridx = 1;
+        JTextField creditsField = new JTextField(String.valueOf(course.getCredits()), 20);
+        formPanel.add(creditsField, gbc);
+
+        // Schedule field
+        gbc.gridx = 0; gbc.gridy = 4;
+        formPanel.add(new JLabel("Schedule:"), gbc);
+        gbc.gridx = 1;
+        JTextField scheduleField = new JTextField(course.getSchedule(), 20);
+        formPanel.add(scheduleField, gbc);
+
+        // Max students field
+        gbc.gridx = 0; gbc.gridy = 5;
+        formPanel.add(new JLabel("Max Students:"), gbc);
+        gbc.gridx = 1;
+        JTextField maxStudentsField = new JTextField(String.valueOf(course.getMaxStudents()), 20);
+        formPanel.add(maxStudentsField, gbc);
+
+        // Buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton saveButton = new JButton("Save");
+        JButton cancelButton = new JButton("Cancel");
+
+        saveButton.addActionListener(e -> {
+            try {
+                String code = codeField.getText().trim();
+                String title = titleField.getText().trim();
+                String instructor = instructorField.getText().trim();
+                int credits = Integer.parseInt(creditsField.getText().trim());
+                String schedule = scheduleField.getText().trim();
+                int maxStudents = Integer.parseInt(maxStudentsField.getText().trim());
+
+                if (code.isEmpty() || title.isEmpty() || instructor.isEmpty() || schedule.isEmpty()) {
+                    JOptionPane.showMessageDialog(dialog, "All fields are required");
+                    return;
+                }
+
+                if (!code.equals(courseCode) && course.getEnrolledStudents() > 0) {
+                    JOptionPane.showMessageDialog(dialog,
+                        "The code of a course with enrolled students cannot be changed");
+                    return;
+                }
+
+                // Planned against the old schedule, before the edit is saved
+                RepairPlan repair = schedule.equals(course.getSchedule()) ? null
+                    : new ScheduleRepair(courseDatabase, enrollmentDatabase).plan(courseCode, schedule);
+                Course updated = new Course(code, title, instructor, credits, schedule, maxStudents);
+                if (!courseDatabase.updateCourse(courseCode, updated)) {
+                    JOptionPane.showMessageDialog(dialog, "A course with code " + code + " already exists");
+                    return;
+                }
+                loadData();
+                dialog.dispose();
+                statusLabel.setText("Course updated successfully");
+                if (repair != null && !repair.getBrokenWithoutRepair().isEmpty()) {
+                    offerRepair(repair);
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(dialog, "Please enter valid numbers for credits and max students");
+            }
+        });
+
+        cancelButton.addActionListener(e -> dialog.dispose());
+
+        buttonPanel.add(saveButton);
+        buttonPanel.add(cancelButton);
+
+        dialog.add(formPanel, BorderLayout.CENTER);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
         dialog.setVisible(true);
     }
 
+    // Tells the admin whose timetables the new schedule broke and offers to
+    // move the clashing neighbouring courses
+    private void offerRepair(RepairPlan repair) {
+        StringBuilder message = new StringBuilder();
+        message.append(describeStudents(repair.getBrokenWithoutRepair()))
+            .append(" now clash with ").append(repair.getCourseCode()).append(".\n");
+        if (repair.getMoves().isEmpty()) {
+            message.append("No other course can be moved to avoid this.");
+            JOptionPane.showMessageDialog(this, message.toString(), "Schedule Clashes", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        message.append("\nMoving these courses would leave ")
+            .append(repair.getBrokenStudents().isEmpty() ? "no new clashes"
+                : describeStudents(repair.getBrokenStudents()) + " with new clashes")
+            .append(":\n");
+        for (Map.Entry<String, String> move : repair.getMoves().entrySet()) {
+            message.append("  ").append(move.getKey()).append(" -> ").append(move.getValue()).append("\n");
+        }
+        message.append("\nMove them?");
+        int choice = JOptionPane.showConfirmDialog(this, message.toString(), "Schedule Clashes",
+            JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice == JOptionPane.YES_OPTION) {
+            int updated = courseDatabase.updateSchedules(repair.getMoves());
+            loadData();
+            statusLabel.setText("Course updated, " + updated + " clashing courses moved");
+        }
+    }
+
+    // "3 students (a, b, c)", listing at most ten names
+    private static String describeStudents(List<String> students) {
+        String names = students.stream().limit(10).collect(Collectors.joining(", "));
+        if (students.size() > 10) {
+            names += ", ...";
+        }
+        return students.size() + (students.size() == 1 ? " student (" : " students (") + names + ")";
+    }
+
     private void deleteSelectedCourse() {
         int selectedRow = courseTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -832,8 +977,7 @@ public class AdminHome extends JFrame {
                 JOptionPane.YES_NO_OPTION);
                 
             if (confirm == JOptionPane.YES_OPTION) {
-                courseDatabase.getAllCourses().remove(course);
-                courseDatabase.saveCourses();
+                courseDatabase.removeCourse(course);
                 loadData();
                 statusLabel.setText("Course deleted successfully");
             }
@@ -890,6 +1034,7 @@ public class AdminHome extends JFrame {
         });
         courseList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         coursePanel.add(new JScrollPane(courseList), BorderLayout.CENTER);
+        coursePanel.add(new JLabel("Leave the selection empty to schedule every course."), BorderLayout.SOUTH);
 
         // Buttons
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -899,12 +1044,11 @@ public class AdminHome extends JFrame {
         generateButton.addActionListener(e -> {
             List<Course> selectedCourses = courseList.getSelectedValuesList();
             if (selectedCourses.isEmpty()) {
-                JOptionPane.showMessageDialog(dialog, "Please select at least one course");
-                return;
+                selectedCourses = courseDatabase.getAllCourses();
             }
 
             dialog.dispose();
-            showGeneratedTimetable(selectedCourses);
+            scheduleCourses(selectedCourses);
         });
 
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -919,24 +1063,183 @@ public class AdminHome extends JFrame {
         dialog.setVisible(true);
     }
 
-    private void showGeneratedTimetable(List<Course> courses) {
+    // Assigns the courses to grid slots so that as few students as possible
+    // have two of them at once, and no instructor teaches two at once. The
+    // solver runs in the background; Stop keeps the slots it has so far.
+    private void scheduleCourses(List<Course> courses) {
+        JDialog dialog = new JDialog(this, "Generating Timetable", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(500, 150);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        JLabel progressLabel = new JLabel("Building the conflict graph...");
+        progressLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        dialog.add(progressLabel, BorderLayout.CENTER);
+
+        AtomicReference<CourseSlotSolver> solver = new AtomicReference<>();
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        JButton stopButton = new JButton("Stop");
+        stopButton.addActionListener(e -> {
+            stopRequested.set(true);
+            CourseSlotSolver running = solver.get();
+            if (running != null) {
+                running.stop();
+            }
+        });
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        long startMillis = System.currentTimeMillis();
+        Timer progressTimer = new Timer(500, e -> {
+            CourseSlotSolver running = solver.get();
+            if (running != null) {
+                progressLabel.setText(String.format("Scheduling %d courses: pass %d  %ds", courses.size(),
+                    running.getPasses(), (System.currentTimeMillis() - startMillis) / 1000));
+            }
+        });
+
+        new SwingWorker<SlotAssignment, Void>() {
+            private CourseConflictGraph graph;
+
+            @Override
+            protected SlotAssignment doInBackground() {
+                graph = CourseConflictGraph.build(courses, enrollmentDatabase.getAllEnrollments());
+                CourseSlotSolver slotSolver = new CourseSlotSolver(graph);
+                solver.set(slotSolver);
+                if (stopRequested.get()) {
+                    slotSolver.stop();
+                }
+                return slotSolver.solve();
+            }
+
+            @Override
+            protected void done() {
+                progressTimer.stop();
+                dialog.dispose();
+                try {
+                    showGeneratedTimetable(graph, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(AdminHome.this,
+                        "Could not generate a timetable: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+        progressTimer.start();
+        dialog.setVisible(true);
+    }
+
+    private void showGeneratedTimetable(CourseConflictGraph graph, SlotAssignment assignment) {
         JDialog dialog = new JDialog(this, "Generated Timetable", true);
         dialog.setLayout(new BorderLayout(10, 10));
         dialog.setSize(800, 600);
         dialog.setLocationRelativeTo(this);
 
-        TimetablePanel timetablePanel = new TimetablePanel(courses);
+        long[] before = graph.clashesAsScheduled();
+        JLabel summary = new JLabel(String.format(
+            "Student clashes: %d now, %d after.  Instructor double-bookings: %d now, %d after.",
+            before[0], assignment.getStudentClashes(), before[1], assignment.getInstructorClashes()));
+        summary.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        dialog.add(summary, BorderLayout.NORTH);
+
+        // Preview copies at their new slots; nothing is saved until Apply
+        List<Course> preview = new ArrayList<>();
+        for (int i = 0; i < graph.size(); i++) {
+            Course course = graph.getCourse(i);
+            preview.add(new Course(course.getCourseCode(), course.getTitle(), course.getInstructor(),
+                course.getCredits(), assignment.getSchedule(i), course.getMaxStudents()));
+        }
+        TimetablePanel timetablePanel = new TimetablePanel(preview);
         dialog.add(new JScrollPane(timetablePanel), BorderLayout.CENTER);
 
+        JButton applyButton = new JButton("Apply");
+        applyButton.addActionListener(e -> {
+            int updated = courseDatabase.updateSchedules(assignment.getSchedules());
+            loadData();
+            statusLabel.setText(updated + " courses rescheduled");
+            dialog.dispose();
+        });
+        JButton improveButton = new JButton("Improve...");
+        improveButton.addActionListener(e -> {
+            dialog.dispose();
+            improveTimetable(graph, assignment.getCells());
+        });
         JButton closeButton = new JButton("Close");
         closeButton.addActionListener(e -> dialog.dispose());
         JPanel buttonPanel = new JPanel();
+        buttonPanel.add(applyButton);
+        buttonPanel.add(improveButton);
         buttonPanel.add(closeButton);
         dialog.add(buttonPanel, BorderLayout.SOUTH);
 
         dialog.setVisible(true);
     }
 
+    // Runs simulated annealing in the background, showing its progress; Stop
+    // keeps the best slots found so far. With no graph every course is
+    // improved, and with no start cells the annealer starts from the slots
+    // the courses have now.
+    private void improveTimetable(CourseConflictGraph built, int[] start) {
+        JDialog dialog = new JDialog(this, "Improving Timetable", true);
+        dialog.setLayout(new BorderLayout(10, 10));
+        dialog.setSize(500, 150);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        JLabel progressLabel = new JLabel(built == null ? "Building the conflict graph..." : "Starting...");
+        progressLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        dialog.add(progressLabel, BorderLayout.CENTER);
+
+        AtomicReference<SlotAnnealer> annealer = new AtomicReference<>();
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        JButton stopButton = new JButton("Stop");
+        stopButton.addActionListener(e -> {
+            stopRequested.set(true);
+            SlotAnnealer running = annealer.get();
+            if (running != null) {
+                running.stop();
+            }
+        });
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+        dialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        new SwingWorker<SlotAssignment, Void>() {
+            private CourseConflictGraph graph = built;
+
+            @Override
+            protected SlotAssignment doInBackground() {
+                if (graph == null) {
+                    graph = CourseConflictGraph.build(courseDatabase.getAllCourses(),
+                        enrollmentDatabase.getAllEnrollments());
+                }
+                SlotAnnealer slotAnnealer = new SlotAnnealer(graph);
+                slotAnnealer.setProgressListener(progress -> SwingUtilities.invokeLater(() -> progressLabel.setText(
+                    String.format("%,d moves (%,.0f/s)  cost %,d  best %,d  %ds", progress.getIterations(),
+                        progress.getIterationsPerSecond(), progress.getCurrentCost(), progress.getBestCost(),
+                        progress.getElapsedMillis() / 1000))));
+                annealer.set(slotAnnealer);
+                if (stopRequested.get()) {
+                    slotAnnealer.stop();
+                }
+                return start != null ? slotAnnealer.optimize(start) : slotAnnealer.optimize();
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+                try {
+                    showGeneratedTimetable(graph, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(AdminHome.this,
+                        "Could not improve the timetable: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+        dialog.setVisible(true);
+    }
+
     private void handleLogout() {
         int confirm = JOptionPane.showConfirmDialog(this,
             "Are you sure you want to logout?",
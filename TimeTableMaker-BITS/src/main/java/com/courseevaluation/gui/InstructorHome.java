@@ -9,7 +9,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class InstructorHome extends JFrame {
     private UserDatabase userDatabase;
@@ -142,9 +141,7 @@ public class InstructorHome extends JFrame {
     }
 
     private void showScheduleDialog() {
-        List<Course> assignedCourses = courseDatabase.getAllCourses().stream()
-            .filter(course -> course.getInstructor().equals(instructor.getUsername()))
-            .collect(Collectors.toList());
+        List<Course> assignedCourses = courseDatabase.getCoursesByInstructor(instructor.getUsername());
 
         if (assignedCourses.isEmpty()) {
             JOptionPane.showMessageDialog(this,
@@ -173,9 +170,7 @@ public class InstructorHome extends JFrame {
 
     private void loadAssignedCourses() {
         tableModel.setRowCount(0);
-        List<Course> assignedCourses = courseDatabase.getAllCourses().stream()
-            .filter(course -> course.getInstructor().equals(instructor.getUsername()))
-            .collect(Collectors.toList());
+        List<Course> assignedCourses = courseDatabase.getCoursesByInstructor(instructor.getUsername());
 
         for (Course course : assignedCourses) {
             List<Enrollment> enrollments = enrollmentDatabase.getEnrollmentsByCourse(course.getCourseCode());
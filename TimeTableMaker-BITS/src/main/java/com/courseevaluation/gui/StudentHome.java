@@ -3,11 +3,18 @@ package com.courseevaluation.gui;
 import com.courseevaluation.data.UserDatabase;
 import com.courseevaluation.data.CourseDatabase;
 import com.courseevaluation.data.EnrollmentDatabase;
+import com.courseevaluation.data.EnrollmentBatch;
 import com.courseevaluation.models.Student;
 import com.courseevaluation.models.Course;
 import com.courseevaluation.models.Enrollment;
 import com.courseevaluation.models.Timetable;
 import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Fingerprint;
+import com.courseevaluation.models.FingerprintSet;
+import com.courseevaluation.scheduling.CreditKnapsack;
+import com.courseevaluation.scheduling.RankedTimetable;
+import com.courseevaluation.scheduling.SectionPackageSolver;
+import com.courseevaluation.scheduling.TimetableObjective;
 import com.courseevaluation.utils.DateTimeUtil;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
@@ -16,11 +23,18 @@ import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.Collections;
 
 public class StudentHome extends JFrame {
+    // Per search of the auto-generator; irregular catalogues can otherwise
+    // take seconds each
+    private static final long SELECTION_BUDGET_MILLIS = 3_000;
+
     private final Student student;
     private final CourseDatabase courseDatabase;
     private final EnrollmentDatabase enrollmentDatabase;
@@ -179,6 +193,7 @@ public class StudentHome extends JFrame {
         JButton dropButton = createButton("Drop Course");
         JButton viewButton = createButton("View Schedule");
         JButton autoGenButton = createButton("Auto-Generate Timetable");
+        JButton sectionsButton = createButton("Required Sections");
         JButton refreshButton = createButton("Refresh");
         JButton logoutButton = createButton("Logout");
         
@@ -188,7 +203,7 @@ public class StudentHome extends JFrame {
         Font buttonFont = new Font("Arial", Font.PLAIN, 14);
         
         // Style regular buttons
-        for (JButton button : new JButton[]{addButton, dropButton, viewButton, autoGenButton, refreshButton}) {
+        for (JButton button : new JButton[]{addButton, dropButton, viewButton, autoGenButton, sectionsButton, refreshButton}) {
             button.setFont(buttonFont);
             button.setBackground(primaryColor);
             button.setForeground(Color.WHITE);
@@ -209,6 +224,7 @@ public class StudentHome extends JFrame {
         dropButton.addActionListener(e -> dropSelectedCourse());
         viewButton.addActionListener(e -> showScheduleDialog());
         autoGenButton.addActionListener(e -> autoGenerateTimetable());
+        sectionsButton.addActionListener(e -> chooseRequiredSections());
         refreshButton.addActionListener(e -> refreshCourseTable());
         logoutButton.addActionListener(e -> handleLogout());
         
@@ -216,6 +232,7 @@ public class StudentHome extends JFrame {
         buttonPanel.add(dropButton);
         buttonPanel.add(viewButton);
         buttonPanel.add(autoGenButton);
+        buttonPanel.add(sectionsButton);
         buttonPanel.add(refreshButton);
         
         // Add logout button to the right side
@@ -351,18 +368,23 @@ public class StudentHome extends JFrame {
                 
                 if (selectedCourse != null) {
                     // Check for schedule conflicts
-                    if (hasScheduleConflict(selectedCourse)) {
+                    List<Course> conflicting = courseDatabase.getConflictingCourses(selectedCourse,
+                        enrolledCourses);
+                    if (!conflicting.isEmpty()) {
                         JOptionPane.showMessageDialog(dialog,
-                            "This course conflicts with your current schedule.",
+                            "This course conflicts with your current schedule ("
+                                + conflicting.stream().map(Course::getCourseCode).collect(Collectors.joining(", ")) + ").",
                             "Schedule Conflict",
                             JOptionPane.ERROR_MESSAGE);
                         return;
                     }
                     
-                    // Enroll the student
-                    enrollmentDatabase.enrollStudent(student, selectedCourse);
-                    selectedCourse.setEnrolledStudents(selectedCourse.getEnrolledStudents() + 1);
-                    courseDatabase.saveCourses();
+                    // Enroll the student; the seat count is updated by the database
+                    if (!enrollmentDatabase.enrollStudent(student, selectedCourse)) {
+                        showEnrollmentFailed(dialog, "Could not enroll in " + courseCode + ". The course may be full.");
+                        loadEnrolledCourses();
+                        return;
+                    }
                     
                     loadEnrolledCourses();
                     statusLabel.setText("Enrolled in " + courseCode + ". Last updated: " + DateTimeUtil.getCurrentDateTime());
@@ -465,64 +487,6 @@ public class StudentHome extends JFrame {
         dialog.setVisible(true);
     }
 
-    private boolean hasScheduleConflict(Course newCourse) {
-        for (Course enrolledCourse : enrolledCourses) {
-            if (hasScheduleConflict(newCourse, enrolledCourse)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean hasScheduleConflict(Course course1, Course course2) {
-        // Parse schedule strings to get day and time
-        String[] schedule1 = course1.getSchedule().split(" ");
-        String[] schedule2 = course2.getSchedule().split(" ");
-        
-        if (schedule1.length < 2 || schedule2.length < 2) {
-            return false;
-        }
-        
-        String day1 = schedule1[0];
-        String time1 = schedule1[1];
-        String day2 = schedule2[0];
-        String time2 = schedule2[1];
-        
-        // Check if courses are on the same day
-        if (!day1.equals(day2)) {
-            return false;
-        }
-        
-        // Parse time slots
-        try {
-            String[] time1Parts = time1.split("-");
-            String[] time2Parts = time2.split("-");
-            
-            if (time1Parts.length < 2 || time2Parts.length < 2) {
-                return false;
-            }
-            
-            // Convert time strings to comparable values (e.g., "9:00" to 900)
-            int start1 = convertTimeToValue(time1Parts[0]);
-            int end1 = convertTimeToValue(time1Parts[1]);
-            int start2 = convertTimeToValue(time2Parts[0]);
-            int end2 = convertTimeToValue(time2Parts[1]);
-            
-            // Check for overlap
-            return (start1 < end2 && start2 < end1);
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private int convertTimeToValue(String time) {
-        // Convert time string (e.g., "9:00" or "13:30") to a comparable integer value
-        String[] parts = time.split(":");
-        int hours = Integer.parseInt(parts[0]);
-        int minutes = Integer.parseInt(parts[1]);
-        return hours * 100 + minutes;
-    }
-
     private void dropSelectedCourse() {
         // Course drop karne ke liye function hai
         int selectedRow = courseTable.getSelectedRow();
@@ -545,9 +509,11 @@ public class StudentHome extends JFrame {
                 JOptionPane.YES_NO_OPTION);
                 
             if (confirm == JOptionPane.YES_OPTION) {
-                enrollmentDatabase.dropCourse(student, course);
-                course.setEnrolledStudents(course.getEnrolledStudents() - 1);
-                courseDatabase.saveCourses();
+                if (!enrollmentDatabase.dropCourse(student, course)) {
+                    showEnrollmentFailed(this, "Could not drop " + courseCode + ".");
+                    loadEnrolledCourses();
+                    return;
+                }
                 
                 loadEnrolledCourses();
                 statusLabel.setText("Dropped " + courseCode + ". Last updated: " + DateTimeUtil.getCurrentDateTime());
@@ -616,45 +582,160 @@ public class StudentHome extends JFrame {
             return;
         }
 
-        // Generate multiple timetables
-        List<List<Course>> generatedTimetables = new ArrayList<>();
-        
-        // Try to generate 5 different timetables
-        for (int i = 0; i < 5; i++) {
-            List<Course> selectedCourses = new ArrayList<>();
-            List<Course> remainingCourses = new ArrayList<>(availableCourses);
-            Collections.shuffle(remainingCourses); // Randomize course order for variety
-            
-            // Try to create a valid timetable with maximum 5 courses
-            for (Course course : remainingCourses) {
-                if (selectedCourses.size() >= 5) break;
-                
-                boolean hasConflict = false;
-                for (Course selected : selectedCourses) {
-                    if (hasScheduleConflict(course, selected)) {
-                        hasConflict = true;
-                        break;
+        // Credit limits and favourite courses for the optimizer
+        JSpinner minCreditsSpinner = new JSpinner(
+            new SpinnerNumberModel(CreditKnapsack.DEFAULT_MIN_CREDITS, 0, 60, 1));
+        JSpinner maxCreditsSpinner = new JSpinner(
+            new SpinnerNumberModel(CreditKnapsack.DEFAULT_MAX_CREDITS, 0, 60, 1));
+        JPanel limitsPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        limitsPanel.add(new JLabel("Minimum total credits:"));
+        limitsPanel.add(minCreditsSpinner);
+        limitsPanel.add(new JLabel("Maximum total credits:"));
+        limitsPanel.add(maxCreditsSpinner);
+
+        JList<Course> preferredList = new JList<>(availableCourses.toArray(new Course[0]));
+        preferredList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                        boolean isSelected, boolean cellHasFocus) {
+                Course course = (Course) value;
+                String text = course.getCourseCode() + " - " + course.getTitle() + " (" + course.getCredits() + " cr)";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        preferredList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        JScrollPane preferredScrollPane = new JScrollPane(preferredList);
+        preferredScrollPane.setPreferredSize(new Dimension(400, 200));
+        preferredScrollPane.setBorder(BorderFactory.createTitledBorder("Preferred courses (optional)"));
+
+        JPanel optionsPanel = new JPanel(new BorderLayout(5, 5));
+        optionsPanel.add(limitsPanel, BorderLayout.NORTH);
+        optionsPanel.add(preferredScrollPane, BorderLayout.CENTER);
+        optionsPanel.add(new JLabel("Credit limits include the courses you are already enrolled in."),
+            BorderLayout.SOUTH);
+        if (JOptionPane.showConfirmDialog(this, optionsPanel, "Auto-Generate Timetable",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        int minCredits = (Integer) minCreditsSpinner.getValue();
+        int maxCredits = (Integer) maxCreditsSpinner.getValue();
+        List<String> preferences = preferredList.getSelectedValuesList().stream()
+            .map(Course::getCourseCode)
+            .collect(Collectors.toList());
+
+        findSelections(new ArrayList<>(availableCourses), new ArrayList<>(enrolledCourses), preferences,
+            minCredits, maxCredits);
+    }
+
+    // The best selection first, then the best one without each of its
+    // courses in turn, up to 5 different options. Each search runs in the
+    // background with a time budget; Stop keeps the options found so far.
+    private void findSelections(List<Course> candidates, List<Course> taken, List<String> preferences,
+            int minCredits, int maxCredits) {
+        JDialog progressDialog = new JDialog(this, "Generating Timetables", true);
+        progressDialog.setLayout(new BorderLayout(10, 10));
+        progressDialog.setSize(400, 130);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        JLabel progressLabel = new JLabel("Finding the best selection...");
+        progressLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        progressDialog.add(progressLabel, BorderLayout.CENTER);
+
+        AtomicReference<CreditKnapsack> running = new AtomicReference<>();
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        JButton stopButton = new JButton("Stop");
+        stopButton.addActionListener(e -> {
+            stopRequested.set(true);
+            CreditKnapsack knapsack = running.get();
+            if (knapsack != null) {
+                knapsack.stop();
+            }
+        });
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+        progressDialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        new SwingWorker<List<List<Course>>, Integer>() {
+            private boolean cutShort;
+
+            @Override
+            protected List<List<Course>> doInBackground() {
+                List<List<Course>> generated = new ArrayList<>();
+                FingerprintSet seenSelections = new FingerprintSet();
+                List<Course> best = bestSelection(candidates);
+                if (best == null || best.isEmpty()) {
+                    return generated;
+                }
+                seenSelections.add(Fingerprint.ofCourses(best));
+                generated.add(best);
+                for (Course leftOut : best) {
+                    if (generated.size() >= 5 || stopRequested.get()) break;
+
+                    publish(generated.size() + 1);
+                    List<Course> others = new ArrayList<>(candidates);
+                    others.remove(leftOut);
+                    List<Course> alternative = bestSelection(others);
+                    if (alternative != null && !alternative.isEmpty()
+                            && seenSelections.add(Fingerprint.ofCourses(alternative))) {
+                        generated.add(alternative);
                     }
                 }
-                
-                if (!hasConflict) {
-                    selectedCourses.add(course);
+                return generated;
+            }
+
+            // The most valuable clash-free courses to add next to the
+            // taken ones within the credit limits, or null if no selection
+            // reaches them
+            private List<Course> bestSelection(List<Course> from) {
+                CreditKnapsack knapsack = new CreditKnapsack(from, preferences, new TimetableObjective());
+                knapsack.setTaken(taken);
+                knapsack.setMinCredits(minCredits);
+                knapsack.setMaxCredits(maxCredits);
+                knapsack.setTimeBudgetMillis(SELECTION_BUDGET_MILLIS);
+                running.set(knapsack);
+                if (stopRequested.get()) {
+                    knapsack.stop();
                 }
+                RankedTimetable selection = knapsack.solve();
+                cutShort |= !knapsack.isComplete();
+                return selection != null ? selection.getCourses() : null;
             }
-            
-            if (!selectedCourses.isEmpty() && !containsSameCourses(generatedTimetables, selectedCourses)) {
-                generatedTimetables.add(selectedCourses);
+
+            @Override
+            protected void process(List<Integer> options) {
+                progressLabel.setText("Finding option " + options.get(options.size() - 1) + " of up to 5...");
             }
-        }
 
-        if (generatedTimetables.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                "Could not generate any valid timetables. All available courses have schedule conflicts.",
-                "Auto-Generate Error",
-                JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                List<List<Course>> generated;
+                try {
+                    generated = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(StudentHome.this,
+                        "Could not generate timetables: " + ex.getMessage(), "Auto-Generate Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (generated.isEmpty()) {
+                    JOptionPane.showMessageDialog(StudentHome.this,
+                        cutShort ? "No valid timetable was found before the search stopped."
+                            : "Could not generate any valid timetables. No clash-free set of available courses fits the credit limits.",
+                        "Auto-Generate Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                statusLabel.setText(cutShort ? "Search stopped early: the options shown may not be the best"
+                    : "Generated " + generated.size() + " timetable options");
+                showGeneratedTimetables(generated);
+            }
+        }.execute();
+        progressDialog.setVisible(true);
+    }
 
+    private void showGeneratedTimetables(List<List<Course>> generatedTimetables) {
         // Show timetable selection dialog
         JDialog dialog = new JDialog(this, "Select Timetable", true);
         dialog.setLayout(new BorderLayout());
@@ -736,101 +817,170 @@ public class StudentHome extends JFrame {
         dialog.setVisible(true);
     }
 
-    private boolean containsSameCourses(List<List<Course>> timetables, List<Course> newTimetable) {
-        for (List<Course> existingTimetable : timetables) {
-            if (existingTimetable.size() == newTimetable.size() &&
-                existingTimetable.containsAll(newTimetable) &&
-                newTimetable.containsAll(existingTimetable)) {
-                return true;
+    // Lets the student list groups of sections (the required parts of a
+    // programme, say) and finds ways of taking exactly one section of each
+    // that clash neither with each other nor with the enrolled courses
+    private void chooseRequiredSections() {
+        availableCourses = courseDatabase.getAllCourses().stream()
+            .filter(course -> !enrollmentDatabase.isEnrolled(student, course))
+            .filter(course -> !course.isFull())
+            .collect(Collectors.toList());
+        if (availableCourses.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                "No available courses found for enrollment. All courses are either full or you're already enrolled.",
+                "Required Sections Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JList<Course> sectionList = new JList<>(availableCourses.toArray(new Course[0]));
+        sectionList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                        boolean isSelected, boolean cellHasFocus) {
+                Course course = (Course) value;
+                String text = course.getCourseCode() + " - " + course.getTitle() + " (" + course.getSchedule() + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        sectionList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        JScrollPane sectionScrollPane = new JScrollPane(sectionList);
+        sectionScrollPane.setPreferredSize(new Dimension(450, 200));
+        sectionScrollPane.setBorder(BorderFactory.createTitledBorder("Sections"));
+
+        List<List<Course>> groups = new ArrayList<>();
+        DefaultListModel<String> groupListModel = new DefaultListModel<>();
+        JList<String> groupList = new JList<>(groupListModel);
+        JScrollPane groupScrollPane = new JScrollPane(groupList);
+        groupScrollPane.setPreferredSize(new Dimension(450, 120));
+        groupScrollPane.setBorder(BorderFactory.createTitledBorder("Groups (one section of each)"));
+
+        JButton addGroupButton = new JButton("Add Selected as Group");
+        addGroupButton.addActionListener(e -> {
+            List<Course> group = sectionList.getSelectedValuesList();
+            if (!group.isEmpty()) {
+                groups.add(group);
+                groupListModel.addElement(group.stream()
+                    .map(Course::getCourseCode)
+                    .collect(Collectors.joining(" | ")));
+                sectionList.clearSelection();
             }
+        });
+        JButton clearGroupsButton = new JButton("Clear Groups");
+        clearGroupsButton.addActionListener(e -> {
+            groups.clear();
+            groupListModel.clear();
+        });
+        JPanel groupButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        groupButtons.add(addGroupButton);
+        groupButtons.add(clearGroupsButton);
+
+        JPanel groupPanel = new JPanel(new BorderLayout(5, 5));
+        groupPanel.add(groupButtons, BorderLayout.NORTH);
+        groupPanel.add(groupScrollPane, BorderLayout.CENTER);
+        JPanel optionsPanel = new JPanel(new BorderLayout(5, 5));
+        optionsPanel.add(sectionScrollPane, BorderLayout.NORTH);
+        optionsPanel.add(groupPanel, BorderLayout.CENTER);
+        if (JOptionPane.showConfirmDialog(this, optionsPanel, "Required Sections",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION
+                || groups.isEmpty()) {
+            return;
         }
-        return false;
+
+        // Every enrolled course is a group of its own, so packages keep
+        // clear of it; it is taken out of the packages again afterwards
+        List<Course> taken = new ArrayList<>(enrolledCourses);
+        List<List<Course>> allGroups = new ArrayList<>(groups);
+        for (Course course : taken) {
+            allGroups.add(Collections.singletonList(course));
+        }
+        SectionPackageSolver solver = new SectionPackageSolver(allGroups);
+
+        JDialog progressDialog = new JDialog(this, "Finding Section Packages", true);
+        progressDialog.setLayout(new BorderLayout(10, 10));
+        progressDialog.setSize(400, 130);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        JLabel progressLabel = new JLabel("Searching " + groups.size() + " groups...");
+        progressLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        progressDialog.add(progressLabel, BorderLayout.CENTER);
+        JButton stopButton = new JButton("Stop");
+        stopButton.addActionListener(e -> solver.stop());
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(stopButton);
+        progressDialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        new SwingWorker<List<List<Course>>, Void>() {
+            @Override
+            protected List<List<Course>> doInBackground() {
+                List<List<Course>> packages = new ArrayList<>();
+                for (List<Course> found : solver.solveAll(5)) {
+                    // Group order: the chosen sections come first
+                    packages.add(new ArrayList<>(found.subList(0, groups.size())));
+                }
+                return packages;
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                List<List<Course>> packages;
+                try {
+                    packages = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(StudentHome.this,
+                        "Could not search the section packages: " + ex.getMessage(), "Required Sections Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                if (packages.isEmpty()) {
+                    JOptionPane.showMessageDialog(StudentHome.this,
+                        solver.isComplete()
+                            ? "No clash-free way of taking one section of each group was found."
+                            : "No clash-free section package was found before the search stopped.",
+                        "Required Sections Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                statusLabel.setText(solver.isComplete() ? "Found " + packages.size() + " section packages"
+                    : "Search stopped early: found " + packages.size() + " section packages");
+                showGeneratedTimetables(packages);
+            }
+        }.execute();
+        progressDialog.setVisible(true);
     }
 
     private void enrollInCourses(List<Course> courses) {
+        // Enroll in the whole timetable with a single commit
+        EnrollmentBatch batch = new EnrollmentBatch();
         for (Course course : courses) {
             if (!enrollmentDatabase.isEnrolled(student, course) && !course.isFull()) {
-                enrollmentDatabase.enrollStudent(student, course);
+                batch.enroll(student, course);
             }
         }
-        enrollmentDatabase.saveEnrollments();
+        if (!enrollmentDatabase.commit(batch)) {
+            showEnrollmentFailed(this, "Could not enroll in these courses. Some of them may have filled up.");
+        }
         loadEnrolledCourses();
         updateTimetableDisplay();
     }
 
+    // A journal failure is reported as such rather than as a full course:
+    // the change may or may not have been saved, and nothing more will be
+    private void showEnrollmentFailed(Component parent, String message) {
+        if (enrollmentDatabase.isFailed()) {
+            message = "Your enrollments could not be saved to disk, so the last change may be lost. "
+                + "Restart the application before making further changes.";
+        }
+        JOptionPane.showMessageDialog(parent, message, "Enrollment Failed", JOptionPane.ERROR_MESSAGE);
+    }
+
     private void updateTimetableDisplay() {
-        // Clear existing timetable display
+        // Same grid as everywhere else, so every meeting of every course shows
         timetablePanel.removeAll();
-        
-        // Create new timetable display
-        timetablePanel.setLayout(new GridLayout(6, 6)); // 5 days + header, 6 time slots + header
-        
-        // Add headers
-        String[] days = {"Time", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-        String[] times = {"", "9:00-10:30", "10:30-12:00", "13:30-15:00", "15:00-16:30", "16:30-18:00"};
-        
-        // Add time column headers
-        for (int i = 0; i < times.length; i++) {
-            JLabel label = new JLabel(times[i]);
-            label.setBorder(BorderFactory.createEtchedBorder());
-            label.setHorizontalAlignment(SwingConstants.CENTER);
-            timetablePanel.add(label);
-        }
-        
-        // Add day headers
-        for (int i = 1; i < days.length; i++) {
-            JLabel label = new JLabel(days[i]);
-            label.setBorder(BorderFactory.createEtchedBorder());
-            label.setHorizontalAlignment(SwingConstants.CENTER);
-            timetablePanel.add(label);
-        }
-        
-        // Add course slots
-        for (Course course : enrolledCourses) {
-            String schedule = course.getSchedule();
-            String[] parts = schedule.split(" ");
-            if (parts.length == 2) {
-                String day = parts[0];
-                String time = parts[1];
-                
-                int dayIndex = getDayIndex(day);
-                int timeIndex = getTimeIndex(time);
-                
-                if (dayIndex >= 0 && timeIndex >= 0) {
-                    int position = (timeIndex * 6) + dayIndex + 1;
-                    if (position < timetablePanel.getComponentCount()) {
-                        JLabel courseLabel = new JLabel(course.getCourseCode() + "<br>" + course.getTitle());
-                        courseLabel.setBorder(BorderFactory.createEtchedBorder());
-                        courseLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                        timetablePanel.add(courseLabel, position);
-                    }
-                }
-            }
-        }
-        
+        timetablePanel.setLayout(new BorderLayout());
+        timetablePanel.add(new TimetablePanel(enrolledCourses), BorderLayout.CENTER);
         timetablePanel.revalidate();
         timetablePanel.repaint();
     }
-
-    private int getDayIndex(String day) {
-        switch (day.toUpperCase()) {
-            case "MON": return 1;
-            case "TUE": return 2;
-            case "WED": return 3;
-            case "THU": return 4;
-            case "FRI": return 5;
-            default: return -1;
-        }
-    }
-
-    private int getTimeIndex(String time) {
-        switch (time) {
-            case "09:00-10:30": return 1;
-            case "10:30-12:00": return 2;
-            case "13:30-15:00": return 3;
-            case "15:00-16:30": return 4;
-            case "16:30-18:00": return 5;
-            default: return -1;
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -1,58 +1,65 @@
 package com.courseevaluation.gui;
 
 import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.WeekGrid;
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
 
 public class TimetablePanel extends JPanel {
     private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-    private static final String[] TIME_SLOTS = {
-        "09:00-10:30", "10:30-12:00", "12:00-13:30", "13:30-15:00", "15:00-16:30"
-    };
+    // Courses listed by name in one cell before the rest are summed up
+    private static final int MAX_LISTED = 4;
     private java.util.List<Course> courses;
-    private Map<String, Map<String, Course>> timeTable;
+    // Per WeekGrid cell, the courses meeting in it; a meeting that does not
+    // fill its cells exactly shows its own times
+    private java.util.List<java.util.List<CellEntry>> cells;
+    // Meetings outside the grid's days and hours, as text
+    private java.util.List<String> otherMeetings;
+
+    private static final class CellEntry {
+        final Course course;
+        final String time;
+
+        CellEntry(Course course, String time) {
+            this.course = course;
+            this.time = time;
+        }
+    }
 
     public TimetablePanel(java.util.List<Course> courses) {
         this.courses = courses != null ? courses : new ArrayList<>();
-        this.timeTable = new HashMap<>();
-        for (String day : DAYS) {
-            timeTable.put(day, new HashMap<>());
-        }
         organizeCourses();
         initializeUI();
     }
 
     private void organizeCourses() {
+        cells = new ArrayList<>();
+        for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+            cells.add(new ArrayList<>());
+        }
+        otherMeetings = new ArrayList<>();
         for (Course course : courses) {
-            String schedule = course.getSchedule();
-            if (schedule != null && !schedule.trim().isEmpty()) {
-                String[] parts = schedule.split(" ");
-                if (parts.length == 2) {
-                    String day = convertDay(parts[0]);
-                    String time = parts[1];
-                    if (day != null && isValidTimeSlot(time)) {
-                        timeTable.get(day).put(time, course);
-                    }
+            Schedule schedule = course.getParsedSchedule();
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                int day = schedule.getDay(m);
+                int start = schedule.getStartMinute(m);
+                int end = schedule.getEndMinute(m);
+                String time = Schedule.formatMinutes(start) + "-" + Schedule.formatMinutes(end);
+                long cover = WeekGrid.coverMask(day, start, end);
+                if (cover == 0) {
+                    otherMeetings.add(course.getCourseCode() + " " + Schedule.DAY_NAMES[day] + " " + time);
+                    continue;
+                }
+                boolean exact = WeekGrid.cellOf(day, start, end) >= 0;
+                for (; cover != 0; cover &= cover - 1) {
+                    cells.get(Long.numberOfTrailingZeros(cover)).add(new CellEntry(course, exact ? null : time));
                 }
             }
         }
     }
 
-    private String convertDay(String shortDay) {
-        Map<String, String> dayMap = new HashMap<>();
-        dayMap.put("Mon", "Monday");
-        dayMap.put("Tue", "Tuesday");
-        dayMap.put("Wed", "Wednesday");
-        dayMap.put("Thu", "Thursday");
-        dayMap.put("Fri", "Friday");
-        return dayMap.get(shortDay);
-    }
-
-    private boolean isValidTimeSlot(String time) {
-        return Arrays.asList(TIME_SLOTS).contains(time);
-    }
-
     private void initializeUI() {
         setLayout(new GridBagLayout());
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -75,21 +82,35 @@ public class TimetablePanel extends JPanel {
         }
 
         // Add time slots and course cells
-        for (int i = 0; i < TIME_SLOTS.length; i++) {
-            gbc.gridy = i + 1;
+        for (int slot = 0; slot < WeekGrid.SLOTS_PER_DAY; slot++) {
+            gbc.gridy = slot + 1;
             gbc.gridx = 0;
-            addHeaderCell(TIME_SLOTS[i], gbc);
-
-            for (int j = 0; j < DAYS.length; j++) {
-                gbc.gridx = j + 1;
-                Course course = timeTable.get(DAYS[j]).get(TIME_SLOTS[i]);
-                if (course != null) {
-                    addCourseCell(course, gbc);
-                } else {
+            int start = WeekGrid.startOf(WeekGrid.cell(0, slot));
+            addHeaderCell(Schedule.formatMinutes(start) + "-" + Schedule.formatMinutes(start + WeekGrid.SLOT_LENGTH),
+                gbc);
+
+            for (int day = 0; day < DAYS.length; day++) {
+                gbc.gridx = day + 1;
+                java.util.List<CellEntry> entries = cells.get(WeekGrid.cell(day, slot));
+                if (entries.isEmpty()) {
                     addEmptyCell(gbc);
+                } else if (entries.size() == 1) {
+                    addCourseCell(entries.get(0), gbc);
+                } else {
+                    addSharedCell(entries, gbc);
                 }
             }
         }
+
+        if (!otherMeetings.isEmpty()) {
+            gbc.gridy = WeekGrid.SLOTS_PER_DAY + 1;
+            gbc.gridx = 0;
+            gbc.gridwidth = DAYS.length + 1;
+            gbc.weighty = 0;
+            JLabel label = new JLabel("Outside the grid: " + String.join(", ", otherMeetings));
+            label.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            add(label, gbc);
+        }
     }
 
     private void addHeaderCell(String text, GridBagConstraints gbc) {
@@ -104,22 +125,45 @@ public class TimetablePanel extends JPanel {
         add(label, gbc);
     }
 
-    private void addCourseCell(Course course, GridBagConstraints gbc) {
-        JPanel coursePanel = new JPanel();
-        coursePanel.setLayout(new BoxLayout(coursePanel, BoxLayout.Y_AXIS));
-        coursePanel.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(Color.GRAY),
-            BorderFactory.createEmptyBorder(5, 5, 5, 5)
-        ));
-        coursePanel.setBackground(Color.WHITE);
-
+    private void addCourseCell(CellEntry entry, GridBagConstraints gbc) {
+        JPanel coursePanel = createCellPanel(Color.WHITE);
+        Course course = entry.course;
         addCenteredLabel(course.getCourseCode(), Font.BOLD, 12, coursePanel);
         addCenteredLabel(course.getTitle(), Font.PLAIN, 11, coursePanel);
         addCenteredLabel("(" + course.getInstructor() + ")", Font.ITALIC, 11, coursePanel);
+        if (entry.time != null) {
+            addCenteredLabel(entry.time, Font.PLAIN, 11, coursePanel);
+        }
+
+        add(coursePanel, gbc);
+    }
+
+    // Several courses in one cell: codes only, tinted to show the overlap
+    private void addSharedCell(java.util.List<CellEntry> entries, GridBagConstraints gbc) {
+        JPanel coursePanel = createCellPanel(new Color(255, 235, 235));
+        for (int i = 0; i < entries.size() && i < MAX_LISTED; i++) {
+            CellEntry entry = entries.get(i);
+            String text = entry.course.getCourseCode() + (entry.time != null ? " " + entry.time : "");
+            addCenteredLabel(text, Font.BOLD, 11, coursePanel);
+        }
+        if (entries.size() > MAX_LISTED) {
+            addCenteredLabel("+" + (entries.size() - MAX_LISTED) + " more", Font.ITALIC, 11, coursePanel);
+        }
 
         add(coursePanel, gbc);
     }
 
+    private JPanel createCellPanel(Color background) {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(Color.GRAY),
+            BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+        panel.setBackground(background);
+        return panel;
+    }
+
     private void addCenteredLabel(String text, int fontStyle, int fontSize, JPanel panel) {
         JLabel label = new JLabel(text);
         label.setFont(new Font("Arial", fontStyle, fontSize));
@@ -137,11 +181,7 @@ public class TimetablePanel extends JPanel {
     }
 
     public void setCourses(java.util.List<Course> courses) {
-        this.courses = courses;
-        this.timeTable.clear();
-        for (String day : DAYS) {
-            timeTable.put(day, new HashMap<>());
-        }
+        this.courses = courses != null ? courses : new ArrayList<>();
         organizeCourses();
         removeAll();
         initializeUI();
@@ -0,0 +1,45 @@
+package com.courseevaluation.loadgen;
+
+import java.util.Arrays;
+
+// Collects raw latencies (in nanoseconds) for one worker thread; recorders
+// are merged once the run is over, so recording never contends.
+class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            for (int i = 0; i < recorder.count; i++) {
+                merged.record(recorder.samples[i]);
+            }
+        }
+        Arrays.sort(merged.samples, 0, merged.count);
+        return merged;
+    }
+
+    // Only meaningful on a merged (sorted) recorder
+    long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * count) - 1;
+        return samples[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    long max() {
+        return count == 0 ? 0 : samples[count - 1];
+    }
+}
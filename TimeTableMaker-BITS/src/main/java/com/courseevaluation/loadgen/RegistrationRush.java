@@ -0,0 +1,373 @@
+package com.courseevaluation.loadgen;
+
+import com.courseevaluation.data.*;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Student;
+import com.courseevaluation.utils.CsvWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+
+// Headless registration rush against the real data layer: a fresh data
+// directory is seeded with generated courses, then worker threads play
+// students who each try to enroll in a few courses (picked with Zipf skew,
+// so a handful of courses are oversubscribed) and sometimes drop one again.
+// Reports throughput, latency percentiles, seat accounting violations and
+// bytes written. Run from the project directory, for example:
+//   java -cp target/classes com.courseevaluation.loadgen.RegistrationRush \
+//       --students 10000 --threads 32 --skew 1.1 --durability interval:50
+// The real data/ directory is never touched unless passed as --data-dir.
+public class RegistrationRush {
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri"};
+    private static final String[] TIME_SLOTS = {
+        "09:00-10:30", "10:30-12:00", "12:00-13:30",
+        "13:30-15:00", "15:00-16:30", "16:30-18:00"
+    };
+
+    private int students = 10000;
+    private int courses = 200;
+    private int seats = 60;
+    private int coursesPerStudent = 5;
+    private double skew = 1.0;
+    private long thinkMillis = 0;
+    private int threads = 32;
+    private double dropRate = 0.1;
+    private long seed = 42;
+    private String durability = "commit";
+    private StorageFormat format = StorageFormat.CSV;
+    private File dataDirectory;
+    private boolean keep;
+
+    private List<Course> courseList;
+    private EnrollmentDatabase enrollmentDatabase;
+    private final AtomicInteger nextStudent = new AtomicInteger();
+    private final AtomicInteger enrolled = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    // Per course: distinct students who asked for it, and enrollments granted
+    private AtomicIntegerArray requested;
+    private AtomicIntegerArray granted;
+
+    public static void main(String[] args) {
+        RegistrationRush rush = new RegistrationRush();
+        try {
+            rush.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+        try {
+            rush.run();
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: RegistrationRush [--students n] [--courses n] [--seats n]"
+            + " [--per-student n] [--skew s] [--think-ms n] [--threads n] [--drop-rate p]"
+            + " [--seed n] [--durability commit|interval:<ms>|buffered] [--format csv|binary]"
+            + " [--data-dir dir] [--keep]");
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--keep")) {
+                keep = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--students":
+                    students = positive(option, Integer.parseInt(value));
+                    break;
+                case "--courses":
+                    courses = positive(option, Integer.parseInt(value));
+                    break;
+                case "--seats":
+                    seats = positive(option, Integer.parseInt(value));
+                    break;
+                case "--per-student":
+                    coursesPerStudent = positive(option, Integer.parseInt(value));
+                    break;
+                case "--skew":
+                    skew = Double.parseDouble(value);
+                    break;
+                case "--think-ms":
+                    thinkMillis = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = positive(option, Integer.parseInt(value));
+                    break;
+                case "--drop-rate":
+                    dropRate = Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--durability":
+                    DurabilityPolicy.parse(value);
+                    durability = value;
+                    break;
+                case "--format":
+                    format = StorageFormat.valueOf(value.toUpperCase());
+                    break;
+                case "--data-dir":
+                    dataDirectory = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        coursesPerStudent = Math.min(coursesPerStudent, courses);
+    }
+
+    private static int positive(String option, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(option + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private void run() throws IOException, InterruptedException {
+        boolean temporary = dataDirectory == null;
+        if (temporary) {
+            dataDirectory = Files.createTempDirectory("registration-rush").toFile();
+        } else if (!dataDirectory.isDirectory() && !dataDirectory.mkdirs()) {
+            throw new IOException("Could not create " + dataDirectory);
+        }
+        DurabilityPolicy policy = DurabilityPolicy.parse(durability);
+        seedCourses();
+        CourseDatabase courseDatabase = new CourseDatabase(dataDirectory, policy);
+        enrollmentDatabase = new EnrollmentDatabase(courseDatabase, dataDirectory, policy);
+        if (format == StorageFormat.BINARY) {
+            courseDatabase.saveAs(format);
+            enrollmentDatabase.saveAs(format);
+        }
+        courseList = courseDatabase.getAllCourses();
+        requested = new AtomicIntegerArray(courseList.size());
+        granted = new AtomicIntegerArray(courseList.size());
+
+        System.out.println("Data directory: " + dataDirectory);
+        System.out.println(students + " students x " + coursesPerStudent + " courses, "
+            + courseList.size() + " courses of " + seats + " seats, skew " + skew
+            + ", think " + thinkMillis + " ms, " + threads + " threads, durability " + policy
+            + ", format " + format);
+
+        long directoryBefore = directorySize(dataDirectory.toPath());
+        long[] ioBefore = processIo();
+        ZipfSampler sampler = new ZipfSampler(courseList.size(), skew);
+        List<LatencyRecorder> enrollLatencies = new ArrayList<>();
+        List<LatencyRecorder> dropLatencies = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LatencyRecorder enrollRecorder = new LatencyRecorder();
+            LatencyRecorder dropRecorder = new LatencyRecorder();
+            enrollLatencies.add(enrollRecorder);
+            dropLatencies.add(dropRecorder);
+            workers.add(new Thread(() -> work(sampler, enrollRecorder, dropRecorder), "rush-" + i));
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        enrollmentDatabase.close();
+        long[] ioAfter = processIo();
+        long directoryAfter = directorySize(dataDirectory.toPath());
+        report(elapsed, LatencyRecorder.merge(enrollLatencies), LatencyRecorder.merge(dropLatencies));
+        System.out.println();
+        System.out.printf("Data directory size: %,d -> %,d bytes%n", directoryBefore, directoryAfter);
+        if (ioBefore != null && ioAfter != null) {
+            System.out.printf("Bytes written by the process: %,d (%,d reached storage)%n",
+                ioAfter[0] - ioBefore[0], ioAfter[1] - ioBefore[1]);
+        }
+
+        if (temporary && !keep) {
+            deleteRecursively(dataDirectory.toPath());
+        }
+    }
+
+    private void seedCourses() throws IOException {
+        File file = StorageFormat.CSV.fileFor(new File(dataDirectory, "courses").getPath());
+        try (CsvWriter writer = new CsvWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            for (int i = 0; i < courses; i++) {
+                String slot = DAYS[i % DAYS.length] + " " + TIME_SLOTS[(i / DAYS.length) % TIME_SLOTS.length];
+                writer.field(String.format("RUSH%04d", i))
+                    .field("Load Test Course " + i)
+                    .field(3)
+                    .field("instructor" + (i % 50))
+                    .field(slot)
+                    .field(0)
+                    .field(seats)
+                    .endRecord();
+            }
+        }
+    }
+
+    private void work(ZipfSampler sampler, LatencyRecorder enrollLatency, LatencyRecorder dropLatency) {
+        int index;
+        while ((index = nextStudent.getAndIncrement()) < students) {
+            // Seeded per student, so the demand does not depend on thread timing
+            Random random = new Random(seed * 31 + index);
+            Student student = new Student("rush" + index, "password", "Student " + index,
+                "Load Test", "R" + index, "Computer Science", 1 + index % 4);
+
+            int[] wanted = pickCourses(sampler, random);
+            List<Integer> mine = new ArrayList<>();
+            for (int course : wanted) {
+                think(random);
+                requested.incrementAndGet(course);
+                long begin = System.nanoTime();
+                boolean ok = enrollmentDatabase.enrollStudent(student, courseList.get(course));
+                enrollLatency.record(System.nanoTime() - begin);
+                if (ok) {
+                    granted.incrementAndGet(course);
+                    enrolled.incrementAndGet();
+                    mine.add(course);
+                } else {
+                    rejected.incrementAndGet();
+                }
+            }
+
+            if (!mine.isEmpty() && random.nextDouble() < dropRate) {
+                think(random);
+                int course = mine.get(random.nextInt(mine.size()));
+                long begin = System.nanoTime();
+                boolean ok = enrollmentDatabase.dropCourse(student, courseList.get(course));
+                dropLatency.record(System.nanoTime() - begin);
+                if (ok) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Distinct courses; popular ones are likely to be among them
+    private int[] pickCourses(ZipfSampler sampler, Random random) {
+        int[] picked = new int[coursesPerStudent];
+        int count = 0;
+        int attempts = 0;
+        while (count < picked.length) {
+            int course = attempts++ < picked.length * 20 ? sampler.sample(random) : random.nextInt(courseList.size());
+            boolean duplicate = false;
+            for (int i = 0; i < count; i++) {
+                if (picked[i] == course) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                picked[count++] = course;
+            }
+        }
+        return picked;
+    }
+
+    private void think(Random random) {
+        if (thinkMillis <= 0) {
+            return;
+        }
+        try {
+            // Uniform around the mean so the workers do not move in lockstep
+            Thread.sleep((long) (random.nextDouble() * 2 * thinkMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(long elapsedNanos, LatencyRecorder enrollLatency, LatencyRecorder dropLatency) {
+        double seconds = elapsedNanos / 1e9;
+        int operations = enrollLatency.getCount() + dropLatency.getCount();
+        System.out.println();
+        System.out.printf("Elapsed: %.2f s, %,d operations, %,.0f ops/s%n", seconds, operations, operations / seconds);
+        System.out.printf("Enrollments: %,d granted, %,d rejected; drops: %,d%n",
+            enrolled.get(), rejected.get(), dropped.get());
+        printLatency("enroll", enrollLatency);
+        printLatency("drop", dropLatency);
+
+        // Oversell: more students than seats, or a seat count that disagrees
+        // with the enrollment records. Undersell: a course turned students
+        // away although it granted fewer enrollments than it has seats.
+        int oversold = 0;
+        int undersold = 0;
+        for (int i = 0; i < courseList.size(); i++) {
+            Course course = courseList.get(i);
+            int records = enrollmentDatabase.getEnrollmentsByCourse(course.getCourseCode()).size();
+            if (records > course.getMaxStudents() || course.getEnrolledStudents() != records) {
+                oversold++;
+                System.out.println("  OVERSOLD " + course.getCourseCode() + ": " + records + " records, count "
+                    + course.getEnrolledStudents() + ", " + course.getMaxStudents() + " seats");
+            }
+            if (granted.get(i) < Math.min(course.getMaxStudents(), requested.get(i))) {
+                undersold++;
+                System.out.println("  UNDERSOLD " + course.getCourseCode() + ": " + granted.get(i)
+                    + " granted of " + requested.get(i) + " requests, " + course.getMaxStudents() + " seats");
+            }
+        }
+        System.out.println("Oversell violations: " + oversold + ", undersell violations: " + undersold);
+    }
+
+    private static void printLatency(String label, LatencyRecorder latency) {
+        if (latency.getCount() == 0) {
+            return;
+        }
+        System.out.printf("  %-6s p50 %8.1f us  p99 %8.1f us  p999 %8.1f us  max %8.1f us%n", label,
+            latency.percentile(50) / 1e3, latency.percentile(99) / 1e3,
+            latency.percentile(99.9) / 1e3, latency.max() / 1e3);
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    // {wchar, write_bytes} from /proc/self/io, or null where it is not available
+    private static long[] processIo() {
+        File io = new File("/proc/self/io");
+        if (!io.canRead()) {
+            return null;
+        }
+        long[] values = new long[2];
+        try (BufferedReader reader = new BufferedReader(new FileReader(io))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("wchar:")) {
+                    values[0] = Long.parseLong(line.substring(6).trim());
+                } else if (line.startsWith("write_bytes:")) {
+                    values[1] = Long.parseLong(line.substring(12).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+        return values;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.courseevaluation.loadgen;
+
+import java.util.Random;
+
+// Picks ranks 0..n-1 with probability proportional to 1 / (rank + 1)^skew,
+// so rank 0 is the most popular. A skew of 0 is uniform. The cumulative
+// distribution is built once; each sample is a binary search.
+class ZipfSampler {
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double skew) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Need at least one item: " + n);
+        }
+        if (skew < 0) {
+            throw new IllegalArgumentException("Skew cannot be negative: " + skew);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
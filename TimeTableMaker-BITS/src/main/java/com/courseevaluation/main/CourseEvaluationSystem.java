@@ -6,11 +6,12 @@ import javax.swing.SwingUtilities;
 
 public class CourseEvaluationSystem {
     public static void main(String[] args) {
+        // Load the stores on the main thread so the EDT is not blocked by I/O
+        UserDatabase userDatabase = new UserDatabase();
+        CourseDatabase courseDatabase = new CourseDatabase();
+        EnrollmentDatabase enrollmentDatabase = new EnrollmentDatabase(courseDatabase);
+
         SwingUtilities.invokeLater(() -> {
-            UserDatabase userDatabase = new UserDatabase();
-            CourseDatabase courseDatabase = new CourseDatabase();
-            EnrollmentDatabase enrollmentDatabase = new EnrollmentDatabase(courseDatabase);
-            
             LoginPage loginPage = new LoginPage(userDatabase, courseDatabase, enrollmentDatabase);
             loginPage.setDefaultCloseOperation(javax.swing.JFrame.EXIT_ON_CLOSE);
             loginPage.setSize(600, 400);
@@ -18,4 +19,4 @@ public class CourseEvaluationSystem {
             loginPage.setVisible(true);
         });
     }
-} 
\ No newline at end of file
+}
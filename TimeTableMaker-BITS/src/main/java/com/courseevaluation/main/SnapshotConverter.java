@@ -0,0 +1,29 @@
+package com.courseevaluation.main;
+
+import com.courseevaluation.data.*;
+
+// Converts the data directory between the CSV files and the binary
+// snapshots. Run from the project directory:
+//   SnapshotConverter to-binary   (CSV -> data/*.bin, binary becomes primary)
+//   SnapshotConverter to-csv      (data/*.bin -> CSV, binary files removed)
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length != 1 || !(args[0].equals("to-binary") || args[0].equals("to-csv"))) {
+            System.err.println("Usage: SnapshotConverter to-binary|to-csv");
+            System.exit(1);
+        }
+        StorageFormat target = args[0].equals("to-binary") ? StorageFormat.BINARY : StorageFormat.CSV;
+
+        UserDatabase userDatabase = new UserDatabase();
+        CourseDatabase courseDatabase = new CourseDatabase();
+        EnrollmentDatabase enrollmentDatabase = new EnrollmentDatabase(courseDatabase);
+
+        userDatabase.saveAs(target);
+        courseDatabase.saveAs(target);
+        enrollmentDatabase.saveAs(target);
+
+        System.out.println("Converted " + userDatabase.getAllUsers().size() + " users, "
+            + courseDatabase.getAllCourses().size() + " courses and "
+            + enrollmentDatabase.getAllEnrollments().size() + " enrollments to " + target);
+    }
+}
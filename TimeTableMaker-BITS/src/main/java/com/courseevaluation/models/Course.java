@@ -1,31 +1,49 @@
 package com.courseevaluation.models;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Course {
     private String courseCode;
+    // Fingerprint.hash64 of the code, for deduplicating timetables
+    private final long codeHash;
     private String title;
     private String instructor;
     private int credits;
     private String schedule;
-    private int enrolledStudents;
+    private Schedule parsedSchedule;
+    // Seats are claimed with compare-and-set so concurrent enrollments never
+    // push the count past maxStudents
+    private final AtomicInteger enrolledStudents;
     private int maxStudents;
-    private String status;
 
     public Course(String courseCode, String title, String instructor, int credits, 
                  String schedule, int maxStudents) {
+        this(courseCode, title, instructor, credits, Schedule.parse(schedule), maxStudents);
+        this.schedule = schedule;
+    }
+
+    // For an already parsed schedule; the text is the schedule's own
+    public Course(String courseCode, String title, String instructor, int credits,
+                 Schedule schedule, int maxStudents) {
         this.courseCode = courseCode;
+        this.codeHash = Fingerprint.hash64(courseCode);
         this.title = title;
         this.instructor = instructor;
         this.credits = credits;
-        this.schedule = schedule;
-        this.enrolledStudents = 0;
+        this.schedule = schedule.toString();
+        this.parsedSchedule = schedule;
+        this.enrolledStudents = new AtomicInteger();
         this.maxStudents = maxStudents;
-        this.status = "OPEN";
     }
 
     public String getCourseCode() {
         return courseCode;
     }
 
+    public long getCodeHash() {
+        return codeHash;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -42,16 +60,38 @@ public class Course {
         return schedule;
     }
 
+    // Parsed when the course is created; use this for conflict checks
+    public Schedule getParsedSchedule() {
+        return parsedSchedule;
+    }
+
     public int getEnrolledStudents() {
-        return enrolledStudents;
+        return enrolledStudents.get();
     }
 
     public void setEnrolledStudents(int enrolledStudents) {
-        this.enrolledStudents = enrolledStudents;
-        if (this.enrolledStudents >= this.maxStudents) {
-            this.status = "FULL";
-        } else {
-            this.status = "OPEN";
+        this.enrolledStudents.set(enrolledStudents);
+    }
+
+    // Takes one seat if any is left; never oversells under contention
+    public boolean tryReserveSeat() {
+        while (true) {
+            int current = enrolledStudents.get();
+            if (current >= maxStudents) {
+                return false;
+            }
+            if (enrolledStudents.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void releaseSeat() {
+        while (true) {
+            int current = enrolledStudents.get();
+            if (current <= 0 || enrolledStudents.compareAndSet(current, current - 1)) {
+                return;
+            }
         }
     }
 
@@ -60,15 +100,15 @@ public class Course {
     }
 
     public String getStatus() {
-        return status;
+        return isFull() ? "FULL" : "OPEN";
     }
 
     public boolean isFull() {
-        return enrolledStudents >= maxStudents;
+        return enrolledStudents.get() >= maxStudents;
     }
 
     @Override
     public String toString() {
-        return String.format("%s - %s (%d/%d)", courseCode, title, enrolledStudents, maxStudents);
+        return String.format("%s - %s (%d/%d)", courseCode, title, enrolledStudents.get(), maxStudents);
     }
 } 
\ No newline at end of file
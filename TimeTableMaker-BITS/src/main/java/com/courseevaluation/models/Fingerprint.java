@@ -0,0 +1,92 @@
+package com.courseevaluation.models;
+
+import java.util.Collection;
+
+// A 128-bit fingerprint of an unordered collection: every element is hashed
+// to two independent 64-bit values and the fingerprint is their sum, so it
+// does not depend on order and can be updated by adding or subtracting one
+// element. Equal collections always get equal fingerprints; with 128 bits
+// different ones practically never do (see FingerprintSet).
+public final class Fingerprint {
+    public static final Fingerprint EMPTY = new Fingerprint(0, 0);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+    private static final long HIGH_SEED = 0xc2b2ae3d27d4eb4fL;
+
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    // 64-bit hash of a string, computed from its chars without copying them
+    public static long hash64(CharSequence text) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // SplitMix64 finalizer: every input bit affects every output bit
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // The two element hashes of a course meeting at [start, end) on day
+    public static long slotLow(long courseHash, int day, int startMinute, int endMinute) {
+        return mix(courseHash + packSlot(day, startMinute, endMinute) * GOLDEN);
+    }
+
+    public static long slotHigh(long courseHash, int day, int startMinute, int endMinute) {
+        return mix(Long.rotateLeft(courseHash, 32) ^ (packSlot(day, startMinute, endMinute) * HIGH_SEED) ^ GOLDEN);
+    }
+
+    // Unparseable values are -1, hence the + 1
+    private static long packSlot(int day, int startMinute, int endMinute) {
+        return ((long) (day + 1) << 42) | ((long) (startMinute + 1) << 21) | (endMinute + 1);
+    }
+
+    // Fingerprint of a set of courses, by course code only
+    public static Fingerprint ofCourses(Collection<Course> courses) {
+        long high = 0;
+        long low = 0;
+        for (Course course : courses) {
+            low += mix(course.getCodeHash() + GOLDEN);
+            high += mix(course.getCodeHash() ^ HIGH_SEED);
+        }
+        return new Fingerprint(high, low);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Fingerprint)) return false;
+        Fingerprint other = (Fingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,22 @@
+package com.courseevaluation.models;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Thread-safe set of the Fingerprints of values already seen (timetables,
+// course selections). Only the 128-bit fingerprints are kept, never the
+// values themselves, so each entry costs a few dozen bytes. Two different
+// values of n share a fingerprint with a chance of about n^2 / 2^129,
+// which is negligible for any number of candidates a search produces.
+public class FingerprintSet {
+    private final Set<Fingerprint> fingerprints = ConcurrentHashMap.newKeySet();
+
+    // True if the fingerprint was not in the set yet
+    public boolean add(Fingerprint fingerprint) {
+        return fingerprints.add(fingerprint);
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+}
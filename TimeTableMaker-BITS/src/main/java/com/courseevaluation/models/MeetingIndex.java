@@ -0,0 +1,257 @@
+package com.courseevaluation.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Meetings at minute resolution, one interval tree per weekday: an AVL tree
+// ordered by start minute where every node also knows the latest end in its
+// subtree. "Does anything overlap [start, end)?" is then O(log n) and
+// "which meetings overlap it?" is O(log n + k), for arbitrary start times
+// and durations. Values sharing the exact same interval share a node.
+public class MeetingIndex<T> {
+    private static final int DAYS = 7;
+
+    private static final class Node<T> {
+        final int start;
+        final int end;
+        final List<T> values = new ArrayList<>(1);
+        int maxEnd;
+        int height = 1;
+        Node<T> left;
+        Node<T> right;
+
+        Node(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+
+    // Arrays of a generic type can only be created with a wildcard; the
+    // roots only ever hold Node<T>, so the cast is safe
+    @SuppressWarnings("unchecked")
+    private final Node<T>[] roots = (Node<T>[]) new Node<?>[DAYS];
+    private int size;
+
+    public void add(int day, int startMinute, int endMinute, T value) {
+        roots[day] = insert(roots[day], startMinute, endMinute, value);
+        size++;
+    }
+
+    public void add(Schedule schedule, T value) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            add(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m), value);
+        }
+    }
+
+    public boolean remove(int day, int startMinute, int endMinute, T value) {
+        int before = size;
+        roots[day] = delete(roots[day], startMinute, endMinute, value);
+        return size < before;
+    }
+
+    public void remove(Schedule schedule, T value) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            remove(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m), value);
+        }
+    }
+
+    public boolean overlapsAny(int day, int startMinute, int endMinute) {
+        Node<T> node = roots[day];
+        while (node != null) {
+            if (node.start < endMinute && startMinute < node.end) {
+                return true;
+            }
+            // If the left subtree reaches past our start and still has no
+            // overlap, everything to the right starts too late as well
+            if (node.left != null && node.left.maxEnd > startMinute) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    public boolean overlapsAny(Schedule schedule) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (overlapsAny(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Adds every value with a meeting overlapping [start, end) to the result
+    public void findOverlapping(int day, int startMinute, int endMinute, List<T> result) {
+        collect(roots[day], startMinute, endMinute, result);
+    }
+
+    // Values overlapping any meeting of the schedule, each listed once
+    public List<T> findOverlapping(Schedule schedule) {
+        List<T> result = new ArrayList<>();
+        List<T> found = new ArrayList<>();
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            found.clear();
+            findOverlapping(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m), found);
+            for (T value : found) {
+                if (!result.contains(value)) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int day = 0; day < DAYS; day++) {
+            roots[day] = null;
+        }
+        size = 0;
+    }
+
+    private void collect(Node<T> node, int startMinute, int endMinute, List<T> result) {
+        if (node == null || node.maxEnd <= startMinute) {
+            return;
+        }
+        collect(node.left, startMinute, endMinute, result);
+        if (node.start >= endMinute) {
+            return;
+        }
+        if (startMinute < node.end) {
+            result.addAll(node.values);
+        }
+        collect(node.right, startMinute, endMinute, result);
+    }
+
+    private static int compare(int start, int end, Node<?> node) {
+        if (start != node.start) {
+            return Integer.compare(start, node.start);
+        }
+        return Integer.compare(end, node.end);
+    }
+
+    private Node<T> insert(Node<T> node, int start, int end, T value) {
+        if (node == null) {
+            Node<T> created = new Node<>(start, end);
+            created.values.add(value);
+            return created;
+        }
+        int c = compare(start, end, node);
+        if (c == 0) {
+            node.values.add(value);
+            return node;
+        }
+        if (c < 0) {
+            node.left = insert(node.left, start, end, value);
+        } else {
+            node.right = insert(node.right, start, end, value);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> delete(Node<T> node, int start, int end, T value) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(start, end, node);
+        if (c < 0) {
+            node.left = delete(node.left, start, end, value);
+        } else if (c > 0) {
+            node.right = delete(node.right, start, end, value);
+        } else {
+            if (!node.values.remove(value)) {
+                return node;
+            }
+            size--;
+            if (!node.values.isEmpty()) {
+                return node;
+            }
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replace with the in-order successor, which keeps its values
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node<T> replacement = new Node<>(successor.start, successor.end);
+            replacement.values.addAll(successor.values);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        int maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static <T> Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
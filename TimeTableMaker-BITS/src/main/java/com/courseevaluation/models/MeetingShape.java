@@ -0,0 +1,125 @@
+package com.courseevaluation.models;
+
+import java.util.Arrays;
+
+// Where a course's meetings go when a solver moves it to an anchor cell:
+// on the days of its day pattern (see WeekGrid.dayPattern), each starting
+// at the anchor's slot and lasting as long as the course meets that day
+// now, so labs and other longer or shorter meetings keep their length
+// (meetings on one day add up to one). A meeting may fill several cells,
+// and anchors where one would run past the last slot are not allowed.
+// Courses meeting at the weekend or for longer than the teaching day
+// cannot be moved like this: they are pinned, and their only anchor
+// leaves them where they are.
+public final class MeetingShape {
+    private static final int DAY_START = WeekGrid.FIRST_START;
+    private static final int DAY_END = WeekGrid.FIRST_START + WeekGrid.SLOTS_PER_DAY * WeekGrid.SLOT_LENGTH;
+
+    private final Schedule schedule;
+    private final int dayPattern;
+    // Minutes on each day of the pattern, in day order
+    private final int[] lengths;
+    private final boolean pinned;
+    // Bit c set: the course may be anchored at cell c
+    private final long anchors;
+    private final long[] cellsByAnchor;
+
+    public MeetingShape(Schedule schedule) {
+        this.schedule = schedule;
+        this.dayPattern = WeekGrid.dayPattern(schedule);
+        int[] minutes = new int[WeekGrid.DAYS];
+        int firstDay = WeekGrid.DAYS;
+        boolean weekend = false;
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            int day = schedule.getDay(m);
+            if (day >= WeekGrid.DAYS) {
+                weekend = true;
+                continue;
+            }
+            minutes[day] += schedule.getEndMinute(m) - schedule.getStartMinute(m);
+            firstDay = Math.min(firstDay, day);
+        }
+        this.lengths = new int[Integer.bitCount(dayPattern)];
+        int longest = 0;
+        int k = 0;
+        for (int days = dayPattern; days != 0; days &= days - 1) {
+            // A course with no weekday meeting gets one slot
+            lengths[k] = firstDay < WeekGrid.DAYS
+                ? minutes[firstDay + Integer.numberOfTrailingZeros(days)] : WeekGrid.SLOT_LENGTH;
+            longest = Math.max(longest, lengths[k++]);
+        }
+        this.pinned = weekend || longest > DAY_END - DAY_START;
+
+        this.cellsByAnchor = new long[WeekGrid.CELLS];
+        if (pinned) {
+            long cells = 0;
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                cells |= WeekGrid.coverMask(schedule.getDay(m), schedule.getStartMinute(m),
+                    schedule.getEndMinute(m));
+            }
+            Arrays.fill(cellsByAnchor, cells);
+            this.anchors = WeekGrid.bit(Math.max(0, WeekGrid.anchorCell(schedule)));
+            return;
+        }
+        long allowed = 0;
+        for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+            int[] meetings = meetingsAt(cell);
+            for (int meeting : meetings) {
+                cellsByAnchor[cell] |= WeekGrid.coverMask(Schedule.dayOf(meeting), Schedule.startOf(meeting),
+                    Schedule.endOf(meeting));
+            }
+            if (WeekGrid.startOf(cell) + longest <= DAY_END) {
+                allowed |= WeekGrid.bit(cell);
+            }
+        }
+        this.anchors = allowed;
+    }
+
+    private int[] meetingsAt(int cell) {
+        int[] meetings = new int[lengths.length];
+        int start = WeekGrid.startOf(cell);
+        int k = 0;
+        for (int days = dayPattern; days != 0; days &= days - 1) {
+            int day = (WeekGrid.dayOf(cell) + Integer.numberOfTrailingZeros(days)) % WeekGrid.DAYS;
+            meetings[k] = Schedule.pack(day, start, start + lengths[k]);
+            k++;
+        }
+        // Packed meetings sort by day first
+        Arrays.sort(meetings);
+        return meetings;
+    }
+
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    public long getAnchors() {
+        return anchors;
+    }
+
+    public boolean allows(int cell) {
+        return (anchors & WeekGrid.bit(cell)) != 0;
+    }
+
+    // True when every allowed anchor fills just its own cell, so the cells
+    // can be skipped for the anchor itself
+    public boolean isOneCell() {
+        return !pinned && lengths.length == 1 && lengths[0] <= WeekGrid.SLOT_LENGTH;
+    }
+
+    // Cells the meetings fill at the anchor (for a pinned course, where it is)
+    public long cells(int cell) {
+        return cellsByAnchor[cell];
+    }
+
+    // The schedule at the anchor; a pinned course keeps its own
+    public Schedule scheduleAt(int cell) {
+        return pinned ? schedule : Schedule.of(meetingsAt(cell));
+    }
+
+    // Shapes that fill the same cells at every anchor
+    public boolean sameAs(MeetingShape other) {
+        return !pinned && !other.pinned && anchors == other.anchors
+            && Arrays.equals(cellsByAnchor, other.cellsByAnchor);
+    }
+}
@@ -0,0 +1,239 @@
+package com.courseevaluation.models;
+
+import java.util.Arrays;
+
+// Weekly meeting times parsed once from text such as "Mon 09:00-10:30",
+// "Monday 09:00-10:30; Wed 09:00-10:30" or "Mon/Wed/Fri 09:00-10:30".
+// Each meeting is packed into one int (day ordinal, 0 = Monday, then start
+// and end minutes since midnight), so comparing schedules is plain integer
+// arithmetic. Meetings that cannot be parsed are left out, which means a
+// malformed schedule never conflicts with anything.
+//
+// The whole meeting set is also summarized in one long: the WeekGrid cells
+// it overlaps (bits 0-29) plus, per day, a bit for meetings running outside
+// the grid's days or hours (bit 32 + day). Two schedules can only overlap if
+// their masks share a bit, so most pairs are told apart with a single AND
+// however many meetings they have.
+public final class Schedule {
+    public static final String[] DAY_NAMES = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+    public static final String[] FULL_DAY_NAMES = {
+        "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+    };
+    public static final Schedule EMPTY = new Schedule("", new int[0], 0);
+
+    // Minutes go up to 24 * 60, which needs 11 bits
+    private static final int MINUTE_BITS = 11;
+    private static final int MINUTE_MASK = (1 << MINUTE_BITS) - 1;
+    private static final int OFF_GRID_SHIFT = 32;
+    private static final int GRID_END = WeekGrid.FIRST_START + WeekGrid.SLOTS_PER_DAY * WeekGrid.SLOT_LENGTH;
+
+    private final String text;
+    private final int[] meetings;
+    private final long mask;
+
+    private Schedule(String text, int[] meetings, int count) {
+        this.text = text;
+        this.meetings = Arrays.copyOf(meetings, count);
+        long mask = 0;
+        for (int meeting : this.meetings) {
+            mask |= maskOf(dayOf(meeting), startOf(meeting), endOf(meeting));
+        }
+        this.mask = mask;
+    }
+
+    public static Schedule parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return EMPTY;
+        }
+        String[] parts = text.split(";");
+        int[] meetings = new int[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            String meeting = part.trim();
+            int space = meeting.indexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            String times = meeting.substring(space + 1).trim();
+            int dash = times.indexOf('-');
+            if (dash < 0) {
+                continue;
+            }
+            int start = parseMinutes(times, 0, dash);
+            int end = parseMinutes(times, dash + 1, times.length());
+            if (start < 0 || end <= start) {
+                continue;
+            }
+            // "Mon/Wed 09:00-10:30" is one meeting on each of the days
+            for (String dayName : meeting.substring(0, space).split("/")) {
+                int day = parseDay(dayName.trim());
+                if (day < 0) {
+                    continue;
+                }
+                if (count == meetings.length) {
+                    meetings = Arrays.copyOf(meetings, count * 2);
+                }
+                meetings[count++] = pack(day, start, end);
+            }
+        }
+        return new Schedule(text, meetings, count);
+    }
+
+    // A schedule of packed meetings, with canonical text
+    public static Schedule of(int... meetings) {
+        StringBuilder text = new StringBuilder();
+        for (int meeting : meetings) {
+            if (text.length() > 0) {
+                text.append("; ");
+            }
+            text.append(DAY_NAMES[dayOf(meeting)]).append(' ')
+                .append(formatMinutes(startOf(meeting))).append('-').append(formatMinutes(endOf(meeting)));
+        }
+        return new Schedule(text.toString(), meetings, meetings.length);
+    }
+
+    // For stores that keep the packed meetings next to the text, so loading
+    // skips parsing; the meetings must be what parse(text) would give
+    public static Schedule ofPacked(String text, int[] meetings) {
+        return meetings.length == 0 && (text == null || text.isEmpty())
+            ? EMPTY : new Schedule(text == null ? "" : text, meetings, meetings.length);
+    }
+
+    public static int pack(int day, int startMinute, int endMinute) {
+        return (day << (2 * MINUTE_BITS)) | (startMinute << MINUTE_BITS) | endMinute;
+    }
+
+    public static int dayOf(int meeting) {
+        return meeting >>> (2 * MINUTE_BITS);
+    }
+
+    public static int startOf(int meeting) {
+        return (meeting >>> MINUTE_BITS) & MINUTE_MASK;
+    }
+
+    public static int endOf(int meeting) {
+        return meeting & MINUTE_MASK;
+    }
+
+    private static long maskOf(int day, int startMinute, int endMinute) {
+        long mask = WeekGrid.coverMask(day, startMinute, endMinute);
+        if (day >= WeekGrid.DAYS || startMinute < WeekGrid.FIRST_START || endMinute > GRID_END) {
+            mask |= 1L << (OFF_GRID_SHIFT + day);
+        }
+        return mask;
+    }
+
+    // Day ordinal for "Mon" or "Monday" (any case), or -1
+    public static int parseDay(String name) {
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (name.equalsIgnoreCase(DAY_NAMES[i]) || name.equalsIgnoreCase(FULL_DAY_NAMES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Minutes since midnight for "H:MM" or "HH:MM", or -1
+    public static int parseMinutes(CharSequence time, int from, int to) {
+        int hours = 0;
+        int i = from;
+        int digits = 0;
+        while (i < to && time.charAt(i) != ':') {
+            int digit = time.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || ++digits > 2) {
+                return -1;
+            }
+            hours = hours * 10 + digit;
+            i++;
+        }
+        if (digits == 0 || i + 3 != to) {
+            return -1;
+        }
+        int tens = time.charAt(i + 1) - '0';
+        int ones = time.charAt(i + 2) - '0';
+        if (tens < 0 || tens > 5 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        int minutes = hours * 60 + tens * 10 + ones;
+        return minutes <= 24 * 60 ? minutes : -1;
+    }
+
+    public static String formatMinutes(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    public int getMeetingCount() {
+        return meetings.length;
+    }
+
+    public boolean isEmpty() {
+        return meetings.length == 0;
+    }
+
+    // The packed meeting; see dayOf, startOf and endOf
+    public int getMeeting(int meeting) {
+        return meetings[meeting];
+    }
+
+    public int[] getMeetings() {
+        return meetings.clone();
+    }
+
+    public int getDay(int meeting) {
+        return dayOf(meetings[meeting]);
+    }
+
+    public int getStartMinute(int meeting) {
+        return startOf(meetings[meeting]);
+    }
+
+    public int getEndMinute(int meeting) {
+        return endOf(meetings[meeting]);
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    public boolean overlaps(Schedule other) {
+        if ((mask & other.mask) == 0) {
+            return false;
+        }
+        for (int meeting : meetings) {
+            if (other.overlaps(dayOf(meeting), startOf(meeting), endOf(meeting))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean overlaps(int day, int startMinute, int endMinute) {
+        for (int meeting : meetings) {
+            if (dayOf(meeting) == day && startOf(meeting) < endMinute && startMinute < endOf(meeting)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Schedule)) {
+            return false;
+        }
+        return Arrays.equals(meetings, ((Schedule) o).meetings);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(meetings);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
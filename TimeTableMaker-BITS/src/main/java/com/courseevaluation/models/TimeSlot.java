@@ -5,23 +5,50 @@ public class TimeSlot {
     private String startTime;
     private String endTime;
     private Course course;
+    // Parsed once so overlaps() is integer comparisons only
+    private int dayIndex;
+    private int startMinute;
+    private int endMinute;
+    private int gridCell;
 
     public TimeSlot(String day, String startTime, String endTime, Course course) {
         this.day = day;
         this.startTime = startTime;
         this.endTime = endTime;
         this.course = course;
+        this.dayIndex = Schedule.parseDay(day);
+        this.startMinute = Schedule.parseMinutes(startTime, 0, startTime.length());
+        this.endMinute = Schedule.parseMinutes(endTime, 0, endTime.length());
+        this.gridCell = WeekGrid.cellOf(dayIndex, startMinute, endMinute);
+    }
+
+    // The text fields are only formatted when asked for
+    public TimeSlot(int dayIndex, int startMinute, int endMinute, Course course) {
+        this.course = course;
+        this.dayIndex = dayIndex;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.gridCell = WeekGrid.cellOf(dayIndex, startMinute, endMinute);
     }
 
     public String getDay() {
+        if (day == null) {
+            day = Schedule.DAY_NAMES[dayIndex];
+        }
         return day;
     }
 
     public String getStartTime() {
+        if (startTime == null) {
+            startTime = Schedule.formatMinutes(startMinute);
+        }
         return startTime;
     }
 
     public String getEndTime() {
+        if (endTime == null) {
+            endTime = Schedule.formatMinutes(endMinute);
+        }
         return endTime;
     }
 
@@ -29,28 +56,30 @@ public class TimeSlot {
         return course;
     }
 
-    public boolean overlaps(TimeSlot other) {
-        if (!this.day.equals(other.day)) {
-            return false;
-        }
+    public int getDayIndex() {
+        return dayIndex;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
 
-        int thisStart = convertTimeToMinutes(this.startTime);
-        int thisEnd = convertTimeToMinutes(this.endTime);
-        int otherStart = convertTimeToMinutes(other.startTime);
-        int otherEnd = convertTimeToMinutes(other.endTime);
+    public int getEndMinute() {
+        return endMinute;
+    }
 
-        return (thisStart < otherEnd && thisEnd > otherStart);
+    // The WeekGrid cell this slot fills exactly, or -1 if it is off the grid
+    public int getGridCell() {
+        return gridCell;
     }
 
-    private int convertTimeToMinutes(String time) {
-        String[] parts = time.split(":");
-        int hours = Integer.parseInt(parts[0]);
-        int minutes = Integer.parseInt(parts[1]);
-        return hours * 60 + minutes;
+    public boolean overlaps(TimeSlot other) {
+        return dayIndex == other.dayIndex
+            && startMinute < other.endMinute && endMinute > other.startMinute;
     }
 
     @Override
     public String toString() {
-        return day + " " + startTime + "-" + endTime + " " + course.getCourseCode();
+        return getDay() + " " + getStartTime() + "-" + getEndTime() + " " + course.getCourseCode();
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,28 +1,114 @@
 package com.courseevaluation.models;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 public class Timetable {
     private List<TimeSlot> timeSlots;
-    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri"};
-    private static final String[] TIME_SLOTS = {
-        "09:00-10:30", "10:30-12:00", "12:00-13:30",
-        "13:30-15:00", "15:00-16:30", "16:30-18:00"
-    };
+    // Grid cells taken by slots that fill a WeekGrid cell exactly, and the
+    // slot in each taken cell
+    private long occupancy;
+    private TimeSlot[] cellSlots;
+    // Slots off the grid (irregular times, weekends) at minute resolution
+    private MeetingIndex<TimeSlot> offGridSlots;
+    // Order-independent fingerprint of the slots, kept up to date on every
+    // add and remove so deduplication never has to walk the slots
+    private long fingerprintHigh;
+    private long fingerprintLow;
 
     public Timetable() {
         this.timeSlots = new ArrayList<>();
+        this.cellSlots = new TimeSlot[WeekGrid.CELLS];
+        this.offGridSlots = new MeetingIndex<>();
     }
 
     public void addTimeSlot(TimeSlot timeSlot) {
         if (!hasConflict(timeSlot)) {
             timeSlots.add(timeSlot);
+            updateFingerprint(timeSlot, 1);
+            int cell = timeSlot.getGridCell();
+            if (cell >= 0) {
+                occupancy |= WeekGrid.bit(cell);
+                cellSlots[cell] = timeSlot;
+            } else if (timeSlot.getDayIndex() >= 0) {
+                offGridSlots.add(timeSlot.getDayIndex(), timeSlot.getStartMinute(), timeSlot.getEndMinute(), timeSlot);
+            }
+        }
+    }
+
+    public boolean removeTimeSlot(TimeSlot timeSlot) {
+        if (!timeSlots.remove(timeSlot)) {
+            return false;
+        }
+        updateFingerprint(timeSlot, -1);
+        int cell = timeSlot.getGridCell();
+        if (cell >= 0) {
+            occupancy &= ~WeekGrid.bit(cell);
+            cellSlots[cell] = null;
+        } else if (timeSlot.getDayIndex() >= 0) {
+            offGridSlots.remove(timeSlot.getDayIndex(), timeSlot.getStartMinute(), timeSlot.getEndMinute(), timeSlot);
         }
+        return true;
+    }
+
+    private void updateFingerprint(TimeSlot slot, int sign) {
+        long courseHash = slot.getCourse().getCodeHash();
+        int day = slot.getDayIndex();
+        int start = slot.getStartMinute();
+        int end = slot.getEndMinute();
+        fingerprintHigh += sign * Fingerprint.slotHigh(courseHash, day, start, end);
+        fingerprintLow += sign * Fingerprint.slotLow(courseHash, day, start, end);
+    }
+
+    // Equal for timetables with the same course meetings, in any order
+    public Fingerprint getFingerprint() {
+        return new Fingerprint(fingerprintHigh, fingerprintLow);
     }
 
     public boolean hasConflict(TimeSlot newSlot) {
-        return timeSlots.stream().anyMatch(slot -> slot.overlaps(newSlot));
+        int cell = newSlot.getGridCell();
+        return conflicts(newSlot.getDayIndex(), newSlot.getStartMinute(), newSlot.getEndMinute(),
+            cell >= 0 ? WeekGrid.bit(cell) : -1);
+    }
+
+    public boolean hasConflict(int day, int startMinute, int endMinute) {
+        return conflicts(day, startMinute, endMinute, -1);
+    }
+
+    // A grid-aligned slot conflicts with another one exactly when they share
+    // a cell, and with an off-grid slot when it overlaps the cells the latter
+    // touches; only off-grid slots need a real interval query.
+    private boolean conflicts(int day, int startMinute, int endMinute, long cellMask) {
+        long mask = cellMask != -1 ? cellMask : WeekGrid.coverMask(day, startMinute, endMinute);
+        if ((occupancy & mask) != 0) {
+            return true;
+        }
+        // Slots whose day could not be parsed never conflict
+        return day >= 0 && !offGridSlots.isEmpty() && offGridSlots.overlapsAny(day, startMinute, endMinute);
+    }
+
+    // Every slot in the timetable that overlaps the given one
+    public List<TimeSlot> getConflictingSlots(TimeSlot slot) {
+        return getConflictingSlots(slot.getDayIndex(), slot.getStartMinute(), slot.getEndMinute());
+    }
+
+    public List<TimeSlot> getConflictingSlots(int day, int startMinute, int endMinute) {
+        List<TimeSlot> conflicting = new ArrayList<>();
+        long taken = occupancy & WeekGrid.coverMask(day, startMinute, endMinute);
+        while (taken != 0) {
+            conflicting.add(cellSlots[Long.numberOfTrailingZeros(taken)]);
+            taken &= taken - 1;
+        }
+        if (day >= 0) {
+            offGridSlots.findOverlapping(day, startMinute, endMinute, conflicting);
+        }
+        return conflicting;
+    }
+
+    // Bit i set means WeekGrid cell i is taken
+    public long getOccupancy() {
+        return occupancy;
     }
 
     public List<TimeSlot> getTimeSlots() {
@@ -38,55 +124,73 @@ public class Timetable {
     public static Timetable generateTimetable(List<Course> courses, List<String> preferences) {
         Timetable timetable = new Timetable();
         List<Course> availableCourses = new ArrayList<>(courses);
+        Set<String> preferred = new HashSet<>(preferences);
         
         // Shuffle courses to get different arrangements
         Collections.shuffle(availableCourses);
         
         // Sort by preferences
         availableCourses.sort((c1, c2) -> {
-            boolean c1Preferred = preferences.contains(c1.getCourseCode());
-            boolean c2Preferred = preferences.contains(c2.getCourseCode());
+            boolean c1Preferred = preferred.contains(c1.getCourseCode());
+            boolean c2Preferred = preferred.contains(c2.getCourseCode());
             if (c1Preferred && !c2Preferred) return -1;
             if (!c1Preferred && c2Preferred) return 1;
             return 0;
         });
 
+        // Reused for every course, so the search below allocates nothing
+        Random random = ThreadLocalRandom.current();
+        int[] dayOrder = new int[WeekGrid.DAYS];
+        int[] slotOrder = new int[WeekGrid.SLOTS_PER_DAY];
+        for (int i = 0; i < dayOrder.length; i++) {
+            dayOrder[i] = i;
+        }
+        for (int i = 0; i < slotOrder.length; i++) {
+            slotOrder[i] = i;
+        }
+
         // Try to schedule each course
         for (Course course : availableCourses) {
-            boolean scheduled = false;
-            
-            // First try the course's preferred schedule
-            if (course.getSchedule() != null && !course.getSchedule().isEmpty()) {
-                String[] scheduleParts = course.getSchedule().split(" ");
-                String day = scheduleParts[0];
-                String timeSlot = scheduleParts[1];
-                
-                TimeSlot slot = new TimeSlot(day, timeSlot.split("-")[0], timeSlot.split("-")[1], course);
-                if (!timetable.hasConflict(slot)) {
-                    timetable.addTimeSlot(slot);
-                    scheduled = true;
+            // First try the course's preferred schedule (every meeting of it)
+            Schedule schedule = course.getParsedSchedule();
+            if (!schedule.isEmpty() && fits(timetable, schedule)) {
+                for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                    timetable.addTimeSlot(new TimeSlot(schedule.getDay(m), schedule.getStartMinute(m),
+                        schedule.getEndMinute(m), course));
                 }
+                continue;
             }
-            
-            // If preferred schedule didn't work, try alternative slots
-            if (!scheduled) {
-                List<String> availableDays = new ArrayList<>(Arrays.asList(DAYS));
-                Collections.shuffle(availableDays);
-                
-                for (String day : availableDays) {
-                    List<String> availableTimeSlots = new ArrayList<>(Arrays.asList(TIME_SLOTS));
-                    Collections.shuffle(availableTimeSlots);
-                    
-                    for (String timeSlot : availableTimeSlots) {
-                        String[] times = timeSlot.split("-");
-                        TimeSlot slot = new TimeSlot(day, times[0], times[1], course);
-                        if (!timetable.hasConflict(slot)) {
-                            timetable.addTimeSlot(slot);
-                            scheduled = true;
-                            break;
-                        }
+            if (timetable.occupancy == WeekGrid.FULL) {
+                continue;
+            }
+
+            // If preferred schedule didn't work, try alternative slots, on
+            // the course's own weekdays relative to each other and with each
+            // meeting as long as it is now; pinned courses stay unplaced
+            MeetingShape shape = new MeetingShape(schedule);
+            if (shape.isPinned()) {
+                continue;
+            }
+            shuffle(dayOrder, random);
+            Schedule placed = null;
+            for (int d = 0; d < dayOrder.length && placed == null; d++) {
+                shuffle(slotOrder, random);
+                for (int slot : slotOrder) {
+                    int cell = WeekGrid.cell(dayOrder[d], slot);
+                    if (!shape.allows(cell)) {
+                        continue;
+                    }
+                    Schedule moved = shape.scheduleAt(cell);
+                    if (fits(timetable, moved)) {
+                        placed = moved;
+                        break;
                     }
-                    if (scheduled) break;
+                }
+            }
+            if (placed != null) {
+                for (int m = 0; m < placed.getMeetingCount(); m++) {
+                    timetable.addTimeSlot(new TimeSlot(placed.getDay(m), placed.getStartMinute(m),
+                        placed.getEndMinute(m), course));
                 }
             }
         }
@@ -94,26 +198,22 @@ public class Timetable {
         return timetable;
     }
 
-    public static List<Timetable> generateMultipleTimetables(List<Course> courses, List<String> preferences, int count) {
-        List<Timetable> timetables = new ArrayList<>();
-        Set<String> generatedSchedules = new HashSet<>();
-        int attempts = 0;
-        int maxAttempts = count * 10; // Prevent infinite loop
-
-        while (timetables.size() < count && attempts < maxAttempts) {
-            Timetable timetable = generateTimetable(courses, preferences);
-            String scheduleKey = timetable.getTimeSlots().stream()
-                .map(slot -> slot.getDay() + ":" + slot.getStartTime() + "-" + slot.getEndTime() + ":" + slot.getCourse().getCourseCode())
-                .sorted()
-                .collect(Collectors.joining("|"));
-
-            if (!generatedSchedules.contains(scheduleKey)) {
-                generatedSchedules.add(scheduleKey);
-                timetables.add(timetable);
+    // Checks every meeting before any of them is added
+    private static boolean fits(Timetable timetable, Schedule schedule) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (timetable.hasConflict(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m))) {
+                return false;
             }
-            attempts++;
         }
+        return true;
+    }
 
-        return timetables;
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
     }
-} 
\ No newline at end of file
+}
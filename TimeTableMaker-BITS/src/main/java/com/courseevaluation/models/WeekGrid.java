@@ -0,0 +1,118 @@
+package com.courseevaluation.models;
+
+// The fixed teaching grid: Monday to Friday, six 90-minute slots a day from
+// 09:00. Each of the 30 cells is one bit of a long (cell = day * 6 + slot),
+// so a whole week's occupancy is a single value and checking, taking or
+// freeing a cell is one bitwise operation.
+public final class WeekGrid {
+    public static final int DAYS = 5;
+    public static final int SLOTS_PER_DAY = 6;
+    public static final int CELLS = DAYS * SLOTS_PER_DAY;
+    public static final int FIRST_START = 9 * 60;
+    public static final int SLOT_LENGTH = 90;
+    public static final long FULL = (1L << CELLS) - 1;
+
+    private WeekGrid() {
+    }
+
+    public static int cell(int day, int slot) {
+        return day * SLOTS_PER_DAY + slot;
+    }
+
+    public static int dayOf(int cell) {
+        return cell / SLOTS_PER_DAY;
+    }
+
+    public static int startOf(int cell) {
+        return FIRST_START + (cell % SLOTS_PER_DAY) * SLOT_LENGTH;
+    }
+
+    public static long bit(int cell) {
+        return 1L << cell;
+    }
+
+    // The cell a meeting fills exactly, or -1 if it is not aligned to the grid
+    public static int cellOf(int day, int startMinute, int endMinute) {
+        if (day < 0 || day >= DAYS || endMinute - startMinute != SLOT_LENGTH) {
+            return -1;
+        }
+        int offset = startMinute - FIRST_START;
+        if (offset < 0 || offset % SLOT_LENGTH != 0 || offset / SLOT_LENGTH >= SLOTS_PER_DAY) {
+            return -1;
+        }
+        return cell(day, offset / SLOT_LENGTH);
+    }
+
+    // Every cell the meeting overlaps. A meeting conflicts with a grid-aligned
+    // meeting exactly when the latter's bit is in this mask.
+    public static long coverMask(int day, int startMinute, int endMinute) {
+        if (day < 0 || day >= DAYS) {
+            return 0;
+        }
+        long mask = 0;
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+            int start = FIRST_START + slot * SLOT_LENGTH;
+            if (startMinute < start + SLOT_LENGTH && start < endMinute) {
+                mask |= bit(cell(day, slot));
+            }
+        }
+        return mask;
+    }
+
+    // The weekdays a schedule meets on as offsets from its earliest one (bit
+    // 0 is that day): 1 for a single meeting, 0b10101 for Mon/Wed/Fri. Solvers
+    // that move a course keep this pattern and give every day the same slot;
+    // two meetings on one day become one.
+    public static int dayPattern(Schedule schedule) {
+        int days = 0;
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (schedule.getDay(m) < DAYS) {
+                days |= 1 << schedule.getDay(m);
+            }
+        }
+        return days == 0 ? 1 : days >>> Integer.numberOfTrailingZeros(days);
+    }
+
+    // Where a schedule sits on the grid: the cell its first meeting on its
+    // earliest weekday fills, or else the first cell that meeting overlaps;
+    // -1 if it has no meeting on the grid
+    public static int anchorCell(Schedule schedule) {
+        int anchor = -1;
+        int anchorDay = DAYS;
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            int day = schedule.getDay(m);
+            long cover = coverMask(day, schedule.getStartMinute(m), schedule.getEndMinute(m));
+            if (day < anchorDay && cover != 0) {
+                int cell = cellOf(day, schedule.getStartMinute(m), schedule.getEndMinute(m));
+                anchor = cell >= 0 ? cell : Long.numberOfTrailingZeros(cover);
+                anchorDay = day;
+            }
+        }
+        return anchor;
+    }
+
+    // Cells filled by a course with this day pattern anchored at the cell:
+    // the anchor's slot on every day of the pattern, wrapping past Friday
+    public static long patternCells(int dayPattern, int cell) {
+        int day = dayOf(cell);
+        int slot = cell % SLOTS_PER_DAY;
+        long cells = 0;
+        for (int days = dayPattern; days != 0; days &= days - 1) {
+            cells |= bit(cell((day + Integer.numberOfTrailingZeros(days)) % DAYS, slot));
+        }
+        return cells;
+    }
+
+    // Anchor cells at which a course with this day pattern would fill at
+    // least one of the given cells. Shifting an anchor by a day moves it six
+    // cells, so each day of the pattern is one rotation of the mask.
+    public static long anchorsTouching(int dayPattern, long cells) {
+        cells &= FULL;
+        long anchors = 0;
+        for (int days = dayPattern; days != 0; days &= days - 1) {
+            int shift = Integer.numberOfTrailingZeros(days) * SLOTS_PER_DAY;
+            anchors |= (cells >>> shift) | (cells << (CELLS - shift));
+        }
+        return anchors & FULL;
+    }
+}
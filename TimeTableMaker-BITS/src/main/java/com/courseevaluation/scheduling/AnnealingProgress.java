@@ -0,0 +1,51 @@
+package com.courseevaluation.scheduling;
+
+// A snapshot of a running SlotAnnealer, handed to its progress listener
+public class AnnealingProgress {
+    private final long iterations;
+    private final double iterationsPerSecond;
+    private final double temperature;
+    private final long currentCost;
+    private final long bestCost;
+    private final long elapsedMillis;
+
+    public AnnealingProgress(long iterations, double iterationsPerSecond, double temperature, long currentCost,
+            long bestCost, long elapsedMillis) {
+        this.iterations = iterations;
+        this.iterationsPerSecond = iterationsPerSecond;
+        this.temperature = temperature;
+        this.currentCost = currentCost;
+        this.bestCost = bestCost;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public double getIterationsPerSecond() {
+        return iterationsPerSecond;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public long getCurrentCost() {
+        return currentCost;
+    }
+
+    public long getBestCost() {
+        return bestCost;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d iterations (%.0f/s), T=%.3f, cost %d, best %d, %d ms",
+            iterations, iterationsPerSecond, temperature, currentCost, bestCost, elapsedMillis);
+    }
+}
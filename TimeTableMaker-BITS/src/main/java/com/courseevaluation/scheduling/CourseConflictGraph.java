@@ -0,0 +1,252 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.MeetingShape;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Which courses must not share a time slot, and how much it hurts if they
+// do: an edge joins two courses taken by the same student or taught by the
+// same instructor, weighted by the number of shared students. Stored in
+// compressed sparse rows (every course's neighbours are one slice of flat
+// arrays) so that 100k enrollments stay a few megabytes and a pass over all
+// edges touches memory in order.
+public class CourseConflictGraph {
+    // Lowest bit of the pair encoding, set for same-instructor pairs
+    private static final long INSTRUCTOR_PAIR = 1L;
+
+    private final List<Course> courses;
+    private final Map<String, Integer> indexByCode;
+    // Neighbours of course i are at positions offsets[i] until offsets[i + 1]
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final int[] sharedStudents;
+    private final boolean[] sameInstructor;
+    // Where each course's meetings go at each anchor cell
+    private final MeetingShape[] shapes;
+
+    private CourseConflictGraph(List<Course> courses, Map<String, Integer> indexByCode, int[] offsets,
+            int[] neighbors, int[] sharedStudents, boolean[] sameInstructor) {
+        this.courses = courses;
+        this.shapes = new MeetingShape[courses.size()];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = new MeetingShape(courses.get(i).getParsedSchedule());
+        }
+        this.indexByCode = indexByCode;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.sharedStudents = sharedStudents;
+        this.sameInstructor = sameInstructor;
+    }
+
+    // Enrollments in courses that are not in the list are ignored
+    public static CourseConflictGraph build(List<Course> courses, Collection<Enrollment> enrollments) {
+        List<Course> nodes = new ArrayList<>(courses);
+        Map<String, Integer> indexByCode = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            indexByCode.put(nodes.get(i).getCourseCode(), i);
+        }
+
+        // Each pair (a < b) becomes one long ordered by a, then b, then the
+        // INSTRUCTOR_PAIR flag; a student pair is recorded once per shared
+        // student, so after sorting every pair is one run
+        PairBuffer pairs = new PairBuffer();
+        Map<String, List<Integer>> coursesByStudent = new HashMap<>();
+        for (Enrollment enrollment : enrollments) {
+            Integer course = indexByCode.get(enrollment.getCourseCode());
+            if (course != null) {
+                coursesByStudent.computeIfAbsent(enrollment.getStudentUsername(), k -> new ArrayList<>(4))
+                    .add(course);
+            }
+        }
+        for (List<Integer> taken : coursesByStudent.values()) {
+            addPairs(pairs, taken, 0);
+        }
+        Map<String, List<Integer>> coursesByInstructor = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            coursesByInstructor.computeIfAbsent(nodes.get(i).getInstructor(), k -> new ArrayList<>(4)).add(i);
+        }
+        for (List<Integer> taught : coursesByInstructor.values()) {
+            addPairs(pairs, taught, INSTRUCTOR_PAIR);
+        }
+
+        long[] keys = pairs.toSortedArray();
+        // Collapse runs of equal pairs into edges
+        int edgeCount = 0;
+        int[] edgeA = new int[keys.length];
+        int[] edgeB = new int[keys.length];
+        int[] edgeShared = new int[keys.length];
+        boolean[] edgeInstructor = new boolean[keys.length];
+        for (int k = 0; k < keys.length; ) {
+            long pair = keys[k] & ~INSTRUCTOR_PAIR;
+            int shared = 0;
+            boolean instructor = false;
+            while (k < keys.length && (keys[k] & ~INSTRUCTOR_PAIR) == pair) {
+                if ((keys[k] & INSTRUCTOR_PAIR) != 0) {
+                    instructor = true;
+                } else {
+                    shared++;
+                }
+                k++;
+            }
+            edgeA[edgeCount] = (int) (pair >>> 32);
+            edgeB[edgeCount] = (int) (pair >>> 1) & Integer.MAX_VALUE;
+            edgeShared[edgeCount] = shared;
+            edgeInstructor[edgeCount] = instructor;
+            edgeCount++;
+        }
+
+        int n = nodes.size();
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[edgeA[e] + 1]++;
+            offsets[edgeB[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] neighbors = new int[2 * edgeCount];
+        int[] sharedStudents = new int[2 * edgeCount];
+        boolean[] sameInstructor = new boolean[2 * edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int a = fill[edgeA[e]]++;
+            neighbors[a] = edgeB[e];
+            sharedStudents[a] = edgeShared[e];
+            sameInstructor[a] = edgeInstructor[e];
+            int b = fill[edgeB[e]]++;
+            neighbors[b] = edgeA[e];
+            sharedStudents[b] = edgeShared[e];
+            sameInstructor[b] = edgeInstructor[e];
+        }
+        return new CourseConflictGraph(nodes, indexByCode, offsets, neighbors, sharedStudents, sameInstructor);
+    }
+
+    private static void addPairs(PairBuffer pairs, List<Integer> group, long flag) {
+        for (int x = 0; x < group.size(); x++) {
+            for (int y = x + 1; y < group.size(); y++) {
+                int a = group.get(x);
+                int b = group.get(y);
+                if (a != b) {
+                    pairs.add(((long) Math.min(a, b) << 32) | ((long) Math.max(a, b) << 1) | flag);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return courses.size();
+    }
+
+    public Course getCourse(int index) {
+        return courses.get(index);
+    }
+
+    public List<Course> getCourses() {
+        return new ArrayList<>(courses);
+    }
+
+    // -1 if the course is not in the graph
+    public int indexOf(String courseCode) {
+        Integer index = indexByCode.get(courseCode);
+        return index != null ? index : -1;
+    }
+
+    public int getEdgeCount() {
+        return neighbors.length / 2;
+    }
+
+    // Edges of course i are the positions firstEdge(i) until firstEdge(i + 1)
+    public int firstEdge(int course) {
+        return offsets[course];
+    }
+
+    public int neighbor(int edge) {
+        return neighbors[edge];
+    }
+
+    public int sharedStudents(int edge) {
+        return sharedStudents[edge];
+    }
+
+    public boolean sameInstructor(int edge) {
+        return sameInstructor[edge];
+    }
+
+    // Cells the course fills when anchored at the cell: the cells its
+    // meetings cover at that slot on each of its days (see MeetingShape)
+    public long cellMask(int course, int cell) {
+        return shapes[course].cells(cell);
+    }
+
+    // Cells the course may be anchored at: those where its meetings end by
+    // the last slot, or only where it is now for a course that cannot move
+    public long getAnchors(int course) {
+        return shapes[course].getAnchors();
+    }
+
+    public boolean allowsAnchor(int course, int cell) {
+        return shapes[course].allows(cell);
+    }
+
+    // Whether the course fills exactly its anchor cell wherever it goes
+    public boolean isOneCell(int course) {
+        return shapes[course].isOneCell();
+    }
+
+    // Whether two courses fill the same cells at every anchor, so they can
+    // trade anchors without changing what any cell holds
+    public boolean sameShape(int a, int b) {
+        return shapes[a].sameAs(shapes[b]);
+    }
+
+    // The course's schedule text when anchored at the cell; every meeting
+    // keeps its length
+    public String scheduleAt(int course, int cell) {
+        return shapes[course].scheduleAt(cell).toString();
+    }
+
+    // Clashes of the courses at the schedules they have now: students
+    // first, then instructor double-bookings
+    public long[] clashesAsScheduled() {
+        long students = 0;
+        long instructors = 0;
+        for (int course = 0; course < size(); course++) {
+            for (int e = firstEdge(course); e < firstEdge(course + 1); e++) {
+                int other = neighbors[e];
+                if (other > course
+                        && courses.get(course).getParsedSchedule().overlaps(courses.get(other).getParsedSchedule())) {
+                    students += sharedStudents[e];
+                    if (sameInstructor[e]) {
+                        instructors++;
+                    }
+                }
+            }
+        }
+        return new long[] {students, instructors};
+    }
+
+    // Growable long[] without boxing
+    private static final class PairBuffer {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
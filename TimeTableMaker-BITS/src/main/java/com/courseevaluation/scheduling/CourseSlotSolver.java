@@ -0,0 +1,146 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.WeekGrid;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Puts every course of a CourseConflictGraph into a WeekGrid cell (on each
+// of its meeting days, for courses that meet more than once, and keeping
+// the length of its meetings) so that as few students as possible have
+// two classes at once, with instructor double-bookings weighted far
+// heavier. It is a weighted graph colouring with 30 colours:
+//   1. greedy: courses in order of falling conflict weight, each into the
+//      cell where it clashes least with those already placed (the emptiest
+//      such cell, to keep rooms spread);
+//   2. descent: course by course, move to the cheapest cell whenever that
+//      strictly lowers the total, until a full pass changes nothing or the
+//      time budget runs out.
+// Both steps only look at a course's own edges, so a pass costs O(edges).
+// Courses only go to anchors the graph allows them (see getAnchors). stop()
+// may be called from any thread; it ends the descent of the running (or
+// next) solve() with what it has.
+public class CourseSlotSolver {
+    public static final long DEFAULT_INSTRUCTOR_WEIGHT = 1000;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 60_000;
+
+    private final CourseConflictGraph graph;
+    private long instructorWeight = DEFAULT_INSTRUCTOR_WEIGHT;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private volatile int passes;
+    private volatile boolean stopped;
+
+    public CourseSlotSolver(CourseConflictGraph graph) {
+        this.graph = graph;
+    }
+
+    // How many student clashes one instructor double-booking is worth
+    public void setInstructorWeight(long instructorWeight) {
+        this.instructorWeight = instructorWeight;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    // Descent passes of the last (or the running) solve()
+    public int getPasses() {
+        return passes;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public SlotAssignment solve() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        passes = 0;
+        int[] cells = greedy();
+        long[] cellCost = new long[WeekGrid.CELLS];
+        boolean improved = true;
+        while (improved && !stopped && System.nanoTime() - deadline < 0) {
+            improved = false;
+            passes++;
+            for (int course = 0; course < cells.length && !stopped; course++) {
+                costPerCell(course, cells, cellCost);
+                int best = cells[course];
+                for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+                    if (cellCost[cell] < cellCost[best]) {
+                        best = cell;
+                    }
+                }
+                if (best != cells[course]) {
+                    cells[course] = best;
+                    improved = true;
+                }
+            }
+        }
+        return new SlotAssignment(graph, cells);
+    }
+
+    // What the course would clash with anchored at each cell, given the
+    // others (unplaced ones have cell -1); Long.MAX_VALUE where it may not
+    // be anchored
+    void costPerCell(int course, int[] cells, long[] cellCost) {
+        Arrays.fill(cellCost, 0);
+        for (int e = graph.firstEdge(course); e < graph.firstEdge(course + 1); e++) {
+            int other = graph.neighbor(e);
+            if (cells[other] >= 0) {
+                for (long mask = graph.cellMask(other, cells[other]); mask != 0; mask &= mask - 1) {
+                    cellCost[Long.numberOfTrailingZeros(mask)] += edgeWeight(e);
+                }
+            }
+        }
+        // A course filling several cells pays for each of them
+        if (!graph.isOneCell(course)) {
+            long[] perCell = cellCost.clone();
+            for (int anchor = 0; anchor < WeekGrid.CELLS; anchor++) {
+                cellCost[anchor] = 0;
+                for (long mask = graph.cellMask(course, anchor); mask != 0; mask &= mask - 1) {
+                    cellCost[anchor] += perCell[Long.numberOfTrailingZeros(mask)];
+                }
+            }
+        }
+        for (long barred = ~graph.getAnchors(course) & WeekGrid.FULL; barred != 0; barred &= barred - 1) {
+            cellCost[Long.numberOfTrailingZeros(barred)] = Long.MAX_VALUE;
+        }
+    }
+
+    long edgeWeight(int edge) {
+        return graph.sharedStudents(edge) + (graph.sameInstructor(edge) ? instructorWeight : 0);
+    }
+
+    private int[] greedy() {
+        int n = graph.size();
+        long[] weight = new long[n];
+        Integer[] order = new Integer[n];
+        for (int course = 0; course < n; course++) {
+            order[course] = course;
+            for (int e = graph.firstEdge(course); e < graph.firstEdge(course + 1); e++) {
+                weight[course] += edgeWeight(e);
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(weight[b], weight[a]));
+        int[] cells = new int[n];
+        Arrays.fill(cells, -1);
+        int[] loads = new int[WeekGrid.CELLS];
+        long[] cellCost = new long[WeekGrid.CELLS];
+        for (int course : order) {
+            costPerCell(course, cells, cellCost);
+            int best = Long.numberOfTrailingZeros(graph.getAnchors(course));
+            for (int cell = best + 1; cell < WeekGrid.CELLS; cell++) {
+                if (!graph.allowsAnchor(course, cell)) {
+                    continue;
+                }
+                if (cellCost[cell] < cellCost[best]
+                        || (cellCost[cell] == cellCost[best] && loads[cell] < loads[best])) {
+                    best = cell;
+                }
+            }
+            cells[course] = best;
+            for (long mask = graph.cellMask(course, best); mask != 0; mask &= mask - 1) {
+                loads[Long.numberOfTrailingZeros(mask)]++;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,510 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// The best courses to add to a student's timetable: the largest total
+// value (the per-course part of a TimetableObjective, see courseGain, so
+// preferred courses and credits count) such that no two meetings overlap,
+// nothing clashes with the courses already taken, and the credits of the
+// whole load stay between a minimum and a maximum. A 0/1 knapsack on
+// credits with conflicts on top, solved exactly:
+//   - the week is cut into TimeSegments and every course becomes the
+//     bitmask of segments it occupies;
+//   - candidates are decided one by one in order of their first segment.
+//     No later candidate can touch a segment before its own first one, so
+//     the state is only (next candidate, credits so far, occupied segments
+//     from that candidate's first on) and every way of reaching a state
+//     shares one memoised answer;
+//   - branch and bound on top: a greedy set gives a total to beat, and a
+//     branch is cut when an upper bound (see bound) cannot beat it or when
+//     all remaining credits together miss the minimum. A memo entry for a
+//     cut branch only holds that bound, which is reused while it still
+//     cuts.
+// Of candidates with the same segments and credits only the most valuable
+// can ever be chosen, so the others are dropped up front. A catalogue of
+// hundreds of courses on the teaching grid is solved in milliseconds,
+// often by the bounds alone. Irregular meeting times cut the week into
+// many more segments, and hundreds of such courses can take seconds and
+// millions of states, so a time budget and stop() (from any thread) end
+// the search early with the best set it has seen; isComplete() tells
+// whether the answer is proven best.
+public class CreditKnapsack {
+    public static final int DEFAULT_MIN_CREDITS = 0;
+    public static final int DEFAULT_MAX_CREDITS = 20;
+    // States between looks at the clock and the stop flag
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final List<Course> candidates;
+    private final Set<String> preferred;
+    private final TimetableObjective objective;
+    private List<Course> taken = new ArrayList<>();
+    private int minCredits = DEFAULT_MIN_CREDITS;
+    private int maxCredits = DEFAULT_MAX_CREDITS;
+    private long timeBudgetMillis;
+    private long statesVisited;
+    private boolean complete;
+    private volatile boolean stopped;
+
+    public CreditKnapsack(List<Course> candidates, List<String> preferences, TimetableObjective objective) {
+        this.candidates = new ArrayList<>(candidates);
+        this.preferred = new HashSet<>(preferences);
+        this.objective = objective;
+    }
+
+    // Courses the student already has: they block their times and count
+    // towards the credit limits
+    public void setTaken(List<Course> taken) {
+        this.taken = new ArrayList<>(taken);
+    }
+
+    public void setMinCredits(int minCredits) {
+        this.minCredits = minCredits;
+    }
+
+    public void setMaxCredits(int maxCredits) {
+        this.maxCredits = maxCredits;
+    }
+
+    // 0 for no limit
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    // Ends the running (or next) solve() with the best set seen so far
+    public void stop() {
+        stopped = true;
+    }
+
+    // False if the last solve() was stopped or ran out of time, so a better
+    // set may exist
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Distinct states worked out by the last solve()
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+
+    // The courses to add with their total value, or null if no set of
+    // candidates brings the load within the credit limits. The set may be
+    // empty when the taken courses already meet the minimum and no
+    // candidate adds value.
+    public RankedTimetable solve() {
+        statesVisited = 0;
+        complete = true;
+        int takenCredits = 0;
+        Set<String> takenCodes = new HashSet<>();
+        List<Schedule> schedules = new ArrayList<>();
+        for (Course course : taken) {
+            takenCredits += course.getCredits();
+            takenCodes.add(course.getCourseCode());
+            schedules.add(course.getParsedSchedule());
+        }
+        int creditsLeft = maxCredits - takenCredits;
+        if (creditsLeft < 0) {
+            return null;
+        }
+        for (Course course : candidates) {
+            schedules.add(course.getParsedSchedule());
+        }
+        TimeSegments segments = new TimeSegments(schedules);
+        long[] blocked = new long[segments.words()];
+        for (Course course : taken) {
+            or(blocked, segments.mask(course.getParsedSchedule()));
+        }
+
+        // Best candidate per (segments, credits); courses without a
+        // schedule cannot be placed, as in TopTimetableSearch
+        Map<Item, Item> best = new LinkedHashMap<>();
+        for (Course course : candidates) {
+            Schedule schedule = course.getParsedSchedule();
+            long[] mask = segments.mask(schedule);
+            if (schedule.isEmpty() || takenCodes.contains(course.getCourseCode())
+                    || course.getCredits() > creditsLeft || intersects(mask, blocked)) {
+                continue;
+            }
+            Item item = new Item(course, objective.courseGain(course, preferred), mask);
+            Item known = best.get(item);
+            if (known == null || item.value > known.value) {
+                best.remove(item);
+                best.put(item, item);
+            }
+        }
+        List<Item> items = new ArrayList<>(best.values());
+        items.sort(Comparator.comparingInt((Item item) -> item.firstSegment)
+            .thenComparing(item -> item.course.getCourseCode()));
+
+        Search search = new Search(items, creditsLeft, minCredits - takenCredits);
+        try {
+            return search.run();
+        } catch (OutOfTime e) {
+            complete = false;
+            return search.incumbent();
+        }
+    }
+
+    private static void or(long[] into, long[] mask) {
+        for (int w = 0; w < into.length; w++) {
+            into[w] |= mask[w];
+        }
+    }
+
+    // Unwinds the search when it is stopped or out of time
+    private static final class OutOfTime extends RuntimeException {
+        OutOfTime() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A candidate course; equal when segments and credits are
+    private static final class Item {
+        final Course course;
+        final double value;
+        final long[] mask;
+        final int firstSegment;
+
+        Item(Course course, double value, long[] mask) {
+            this.course = course;
+            this.value = value;
+            this.mask = mask;
+            int first = 0;
+            for (int w = 0; w < mask.length; w++) {
+                if (mask[w] != 0) {
+                    first = w * 64 + Long.numberOfTrailingZeros(mask[w]);
+                    break;
+                }
+            }
+            this.firstSegment = first;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).course.getCredits() == course.getCredits()
+                && Arrays.equals(((Item) o).mask, mask);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(mask) + course.getCredits();
+        }
+    }
+
+    // A memo key: the next candidate, the credits chosen so far and the
+    // occupied segments that candidate or a later one could still hit
+    private static final class State {
+        final int next;
+        final int credits;
+        final long[] occupied;
+        final int hash;
+
+        State(int next, int credits, long[] occupied) {
+            this.next = next;
+            this.credits = credits;
+            this.occupied = occupied;
+            this.hash = (31 * next + credits) * 31 + Arrays.hashCode(occupied);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State other = (State) o;
+            return next == other.next && credits == other.credits && Arrays.equals(occupied, other.occupied);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // What the memo knows about a state: its exact value, or only an upper
+    // bound when the search there was cut off
+    private static final class Known {
+        final double value;
+        final boolean exact;
+
+        Known(double value, boolean exact) {
+            this.value = value;
+            this.exact = exact;
+        }
+    }
+
+    private final class Search {
+        // Below this two totals count as equal
+        private static final double EPSILON = 1e-9;
+
+        private final Item[] items;
+        private final int creditsLeft;
+        private final int creditsNeeded;
+        // Credits of items[i] and all after it
+        private final int[] suffixCredits;
+        // Items with positive value, most value per credit first
+        private final int[] byDensity;
+        private final Map<State, Known> memo = new HashMap<>();
+        // Scratch for bound(): per segment, and the items it looks at
+        private final double[] segmentShare;
+        private final int[] segmentDemand;
+        private final int[] surplusItems;
+        private final long deadlineNanos;
+        // The decisions on the way to the current state, and the best
+        // complete set met so far (the greedy one to begin with)
+        private final boolean[] path;
+        private double pathValue;
+        private List<Course> incumbentCourses;
+        private double incumbentValue = Double.NEGATIVE_INFINITY;
+
+        Search(List<Item> items, int creditsLeft, int creditsNeeded) {
+            this.items = items.toArray(new Item[0]);
+            this.creditsLeft = creditsLeft;
+            this.creditsNeeded = creditsNeeded;
+            this.suffixCredits = new int[this.items.length + 1];
+            for (int i = this.items.length - 1; i >= 0; i--) {
+                suffixCredits[i] = suffixCredits[i + 1] + this.items[i].course.getCredits();
+            }
+            int segments = this.items.length > 0 ? this.items[0].mask.length * 64 : 0;
+            this.segmentShare = new double[segments];
+            this.segmentDemand = new int[segments];
+            this.surplusItems = new int[this.items.length];
+            this.byDensity = IntStream.range(0, this.items.length)
+                .filter(i -> this.items[i].value > 0)
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> density(this.items[i])).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+            this.path = new boolean[this.items.length];
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        }
+
+        RankedTimetable incumbent() {
+            return incumbentCourses != null ? new RankedTimetable(incumbentCourses, incumbentValue) : null;
+        }
+
+        RankedTimetable run() {
+            List<Course> greedyCourses = new ArrayList<>();
+            double greedyTotal = greedy(greedyCourses);
+            if (greedyTotal > Double.NEGATIVE_INFINITY) {
+                incumbentCourses = greedyCourses;
+                incumbentValue = greedyTotal;
+            }
+            long[] occupied = new long[items.length > 0 ? items[0].mask.length : 1];
+            // Only asks whether anything beats the greedy set, which is
+            // usually answered by bounds alone
+            double total = best(0, 0, occupied, greedyTotal + EPSILON);
+            if (total <= greedyTotal + EPSILON) {
+                return greedyTotal == Double.NEGATIVE_INFINITY ? null : new RankedTimetable(greedyCourses, greedyTotal);
+            }
+            // Walk back down: skip a course whenever the rest still reaches
+            // what is left of the total, take it otherwise
+            List<Course> chosen = new ArrayList<>();
+            int credits = 0;
+            double left = total;
+            for (int i = 0; i < items.length; i++) {
+                path[i] = false;
+                pathValue = total - left;
+                double skip = best(i + 1, credits, trim(occupied, i + 1), left - EPSILON);
+                if (skip < left - EPSILON && canTake(i, credits, occupied)) {
+                    path[i] = true;
+                    chosen.add(items[i].course);
+                    credits += items[i].course.getCredits();
+                    left -= items[i].value;
+                    occupied = occupied.clone();
+                    or(occupied, items[i].mask);
+                }
+                occupied = trim(occupied, i + 1);
+            }
+            return new RankedTimetable(chosen, total);
+        }
+
+        // The most value items[i..] can still add when that is more than
+        // floor; otherwise an upper bound on it that is at most floor.
+        // occupied holds no segment before items[i]'s first.
+        private double best(int i, int credits, long[] occupied, double floor) {
+            if (credits + suffixCredits[i] < creditsNeeded) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            if (i == items.length) {
+                if (pathValue > incumbentValue) {
+                    incumbentCourses = new ArrayList<>();
+                    for (int j = 0; j < items.length; j++) {
+                        if (path[j]) {
+                            incumbentCourses.add(items[j].course);
+                        }
+                    }
+                    incumbentValue = pathValue;
+                }
+                return 0;
+            }
+            State state = new State(i, credits, occupied);
+            Known known = memo.get(state);
+            if (known != null && (known.exact || known.value <= floor)) {
+                return known.value;
+            }
+            // The first state looks too, so an early stop() is not missed
+            if (statesVisited++ % CHECK_INTERVAL == 0
+                    && (stopped || timeBudgetMillis > 0 && System.nanoTime() - deadlineNanos > 0)) {
+                throw new OutOfTime();
+            }
+            double result = bound(i, credits, occupied);
+            if (result > floor) {
+                result = Double.NEGATIVE_INFINITY;
+                // Taking first finds good totals early, which raises the
+                // floor for everything after
+                if (canTake(i, credits, occupied)) {
+                    long[] withItem = occupied.clone();
+                    or(withItem, items[i].mask);
+                    path[i] = true;
+                    pathValue += items[i].value;
+                    result = items[i].value + best(i + 1, credits + items[i].course.getCredits(),
+                        trim(withItem, i + 1), floor - items[i].value);
+                    pathValue -= items[i].value;
+                }
+                path[i] = false;
+                result = Math.max(result, best(i + 1, credits, trim(occupied, i + 1), Math.max(floor, result)));
+            }
+            memo.put(state, new Known(result, result > floor));
+            return result;
+        }
+
+        // Takes courses in order of value per credit while they fit; the
+        // total, or negative infinity if that misses the minimum credits
+        private double greedy(List<Course> chosen) {
+            long[] occupied = new long[items.length > 0 ? items[0].mask.length : 1];
+            int credits = 0;
+            double total = 0;
+            for (int i : byDensity) {
+                if (canTake(i, credits, occupied)) {
+                    or(occupied, items[i].mask);
+                    credits += items[i].course.getCredits();
+                    total += items[i].value;
+                    chosen.add(items[i].course);
+                }
+            }
+            return credits >= creditsNeeded ? total : Double.NEGATIVE_INFINITY;
+        }
+
+        // An upper bound on what items[i..] can add, the smaller of two
+        // relaxations of the problem as a linear program:
+        //   - a fractional knapsack on credits over the items that fit next
+        //     to occupied, ignoring clashes among them;
+        //   - a solution of its dual: every credit priced at the density
+        //     where the knapsack ran full, and every segment at a share of
+        //     what items bring beyond the price of their credits, enough
+        //     that each item's segments together cover its surplus. Shares
+        //     go to the segments most items want, so two preferred courses
+        //     in one slot only count once.
+        private double bound(int i, int credits, long[] occupied) {
+            int capacity = creditsLeft - credits;
+            double knapsack = 0;
+            double price = 0;
+            int surplusCount = 0;
+            for (int j : byDensity) {
+                Item item = items[j];
+                if (j < i || intersects(occupied, item.mask)) {
+                    continue;
+                }
+                surplusItems[surplusCount++] = j;
+                if (capacity < 0) {
+                    continue;
+                }
+                int itemCredits = item.course.getCredits();
+                if (itemCredits <= capacity) {
+                    knapsack += item.value;
+                    capacity -= itemCredits;
+                } else {
+                    knapsack += item.value * capacity / itemCredits;
+                    price = density(item);
+                    capacity = -1;
+                }
+            }
+
+            double dual = price * (creditsLeft - credits);
+            Arrays.fill(segmentDemand, 0);
+            Arrays.fill(segmentShare, 0);
+            int kept = 0;
+            for (int p = 0; p < surplusCount; p++) {
+                Item item = items[surplusItems[p]];
+                if (item.value - price * item.course.getCredits() > 0) {
+                    surplusItems[kept++] = surplusItems[p];
+                    for (int w = 0; w < item.mask.length; w++) {
+                        for (long bits = item.mask[w]; bits != 0; bits &= bits - 1) {
+                            segmentDemand[w * 64 + Long.numberOfTrailingZeros(bits)]++;
+                        }
+                    }
+                }
+            }
+            for (int p = 0; p < kept; p++) {
+                Item item = items[surplusItems[p]];
+                double missing = item.value - price * item.course.getCredits();
+                int target = -1;
+                for (int w = 0; w < item.mask.length; w++) {
+                    for (long bits = item.mask[w]; bits != 0; bits &= bits - 1) {
+                        int segment = w * 64 + Long.numberOfTrailingZeros(bits);
+                        missing -= segmentShare[segment];
+                        if (target < 0 || segmentDemand[segment] > segmentDemand[target]) {
+                            target = segment;
+                        }
+                    }
+                }
+                if (missing > 0) {
+                    if (target < 0) {
+                        // No segments, so nothing it could share
+                        dual += missing;
+                    } else {
+                        segmentShare[target] += missing;
+                    }
+                }
+            }
+            for (double share : segmentShare) {
+                dual += share;
+            }
+            return Math.min(knapsack, dual);
+        }
+
+        private boolean canTake(int i, int credits, long[] occupied) {
+            return credits + items[i].course.getCredits() <= creditsLeft && !intersects(occupied, items[i].mask);
+        }
+
+        // Drops the segments before items[i]'s first, which nothing from i
+        // on can hit; a new array, so states never share one
+        private long[] trim(long[] occupied, int i) {
+            long[] trimmed = new long[occupied.length];
+            if (i == items.length) {
+                return trimmed;
+            }
+            int first = items[i].firstSegment;
+            int word = first >>> 6;
+            trimmed[word] = occupied[word] & (-1L << first);
+            System.arraycopy(occupied, word + 1, trimmed, word + 1, occupied.length - word - 1);
+            return trimmed;
+        }
+    }
+
+    private static double density(Item item) {
+        int credits = item.course.getCredits();
+        return credits > 0 ? item.value / credits : Double.POSITIVE_INFINITY;
+    }
+}
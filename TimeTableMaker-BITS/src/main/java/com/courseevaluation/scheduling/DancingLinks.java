@@ -0,0 +1,265 @@
+package com.courseevaluation.scheduling;
+
+import java.util.Arrays;
+
+// Knuth's Algorithm X on dancing links: the exact cover problem as a sparse
+// 0/1 matrix of circular doubly linked lists, where covering a column (and
+// every row that uses it) unlinks nodes and uncovering puts them back in
+// reverse order with no copying at all. A solution picks rows that use
+// every primary column exactly once and every secondary column at most
+// once. The search branches on the primary column with the fewest rows
+// left.
+//
+// Nodes live in parallel int arrays: 0 is the root, 1..columns are the
+// column headers, the rest are the 1s of the rows. The search keeps an
+// explicit stack, so nextSolution() can stop after every solution and pick
+// up again where it left off.
+final class DancingLinks {
+    private static final int ROOT = 0;
+    // Nodes between two looks at the stop flag
+    private static final int STOP_CHECK_INTERVAL = 1024;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] columnOf;
+    private int[] rowOf;
+    // Rows left per column
+    private final int[] size;
+    private int nodes;
+    private int rows;
+
+    // Chosen row node per depth
+    private int[] choices;
+    private int depth;
+    private boolean started;
+    private boolean exhausted;
+    private long nodesVisited;
+    private volatile boolean stopped;
+    // Set when stop() cut a search short
+    private boolean cutShort;
+
+    // Columns 0..primary-1 must be covered, primary..primary+secondary-1 may be
+    DancingLinks(int primary, int secondary) {
+        int columns = primary + secondary;
+        int capacity = columns + 1 + 4 * columns + 16;
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        columnOf = new int[capacity];
+        rowOf = new int[capacity];
+        size = new int[columns + 1];
+        for (int header = 0; header <= columns; header++) {
+            up[header] = header;
+            down[header] = header;
+            columnOf[header] = header;
+            rowOf[header] = -1;
+            // Secondary headers link only to themselves, so they are never
+            // picked to branch on and a solution may leave them uncovered
+            boolean linked = header <= primary;
+            left[header] = linked ? (header == 0 ? primary : header - 1) : header;
+            right[header] = linked ? (header == primary ? 0 : header + 1) : header;
+        }
+        nodes = columns + 1;
+        choices = new int[16];
+    }
+
+    // Adds a row using the given (distinct) columns and returns its number
+    int addRow(int[] rowColumns) {
+        int row = rows++;
+        if (nodes + rowColumns.length > left.length) {
+            grow(Math.max(left.length * 2, nodes + rowColumns.length));
+        }
+        int first = nodes;
+        for (int k = 0; k < rowColumns.length; k++) {
+            int header = rowColumns[k] + 1;
+            int node = nodes++;
+            columnOf[node] = header;
+            rowOf[node] = row;
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+            left[node] = k == 0 ? node : node - 1;
+            right[node] = first;
+            right[left[node]] = node;
+            left[first] = node;
+        }
+        return row;
+    }
+
+    private void grow(int capacity) {
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        up = Arrays.copyOf(up, capacity);
+        down = Arrays.copyOf(down, capacity);
+        columnOf = Arrays.copyOf(columnOf, capacity);
+        rowOf = Arrays.copyOf(rowOf, capacity);
+    }
+
+    // Moves to the next solution; false once there are no more or stop()
+    // was called. Rows must not be added after the first call.
+    boolean nextSolution() {
+        if (exhausted) {
+            return false;
+        }
+        // After a solution the last choice is the first thing to undo
+        boolean backtrack = started;
+        started = true;
+        while (true) {
+            // Checked from the first node on, so an early stop() is not missed
+            if ((nodesVisited++ % STOP_CHECK_INTERVAL) == 0 && stopped) {
+                exhausted = true;
+                cutShort = true;
+                return false;
+            }
+            if (!backtrack) {
+                if (right[ROOT] == ROOT) {
+                    return true;
+                }
+                int column = smallestColumn();
+                if (size[column] == 0) {
+                    backtrack = true;
+                    continue;
+                }
+                cover(column);
+                push(down[column]);
+                continue;
+            }
+            if (depth == 0) {
+                exhausted = true;
+                return false;
+            }
+            int node = choices[--depth];
+            unselect(node);
+            int column = columnOf[node];
+            node = down[node];
+            if (node == column) {
+                uncover(column);
+                continue;
+            }
+            push(node);
+            backtrack = false;
+        }
+    }
+
+    // How many solutions there are, on a matrix not searched yet. Nothing
+    // stops at the solutions: once one primary column is left, each of its
+    // remaining rows completes one, so they are just added up. After stop()
+    // the links are put back on the way out and the count so far returned.
+    long countSolutions() {
+        started = true;
+        exhausted = true;
+        return countFrom();
+    }
+
+    private long countFrom() {
+        if ((nodesVisited++ % STOP_CHECK_INTERVAL) == 0 && stopped) {
+            cutShort = true;
+            return 0;
+        }
+        if (right[ROOT] == ROOT) {
+            return 1;
+        }
+        int column = smallestColumn();
+        if (size[column] == 0) {
+            return 0;
+        }
+        if (right[column] == ROOT && left[column] == ROOT) {
+            return size[column];
+        }
+        cover(column);
+        long count = 0;
+        for (int row = down[column]; row != column; row = down[row]) {
+            select(row);
+            count += countFrom();
+            unselect(row);
+            if (cutShort) {
+                break;
+            }
+        }
+        uncover(column);
+        return count;
+    }
+
+    // Rows of the current solution
+    int getDepth() {
+        return depth;
+    }
+
+    int getRow(int level) {
+        return rowOf[choices[level]];
+    }
+
+    long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    // False if stop() ended the search before it was done
+    boolean isComplete() {
+        return !cutShort;
+    }
+
+    // May be called from any thread
+    void stop() {
+        stopped = true;
+    }
+
+    private void push(int node) {
+        if (depth == choices.length) {
+            choices = Arrays.copyOf(choices, depth * 2);
+        }
+        choices[depth++] = node;
+        select(node);
+    }
+
+    private int smallestColumn() {
+        int best = right[ROOT];
+        for (int column = right[best]; column != ROOT && size[best] > 0; column = right[column]) {
+            if (size[column] < size[best]) {
+                best = column;
+            }
+        }
+        return best;
+    }
+
+    // Covers the other columns of the node's row
+    private void select(int node) {
+        for (int other = right[node]; other != node; other = right[other]) {
+            cover(columnOf[other]);
+        }
+    }
+
+    private void unselect(int node) {
+        for (int other = left[node]; other != node; other = left[other]) {
+            uncover(columnOf[other]);
+        }
+    }
+
+    private void cover(int column) {
+        right[left[column]] = right[column];
+        left[right[column]] = left[column];
+        for (int row = down[column]; row != column; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                size[columnOf[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int column) {
+        for (int row = up[column]; row != column; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                size[columnOf[node]]++;
+                down[up[node]] = node;
+                up[down[node]] = node;
+            }
+        }
+        right[left[column]] = column;
+        left[right[column]] = column;
+    }
+}
@@ -0,0 +1,158 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.MeetingShape;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.WeekGrid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// One way of putting a course into the week: either its own schedule (all
+// of its meetings) or its meetings moved to a WeekGrid anchor cell, each as
+// long as it is now (see MeetingShape). Meetings that fill a grid cell are
+// kept as bits in `cells`; the rest are kept as minute intervals plus the
+// mask of cells they touch, so conflict tests stay exact.
+public final class Placement {
+    private final Course course;
+    private final Schedule schedule;
+    // Packed meetings, sorted, for telling placements at the same times apart
+    private final int[] meetings;
+    private final long cells;
+    private final long cover;
+    private final int[] offGridDays;
+    private final int[] offGridStarts;
+    private final int[] offGridEnds;
+
+    private Placement(Course course, Schedule schedule, long cells, long cover, int[] days, int[] starts,
+            int[] ends) {
+        this.course = course;
+        this.schedule = schedule;
+        this.meetings = new int[schedule.getMeetingCount()];
+        for (int m = 0; m < meetings.length; m++) {
+            meetings[m] = schedule.getMeeting(m);
+        }
+        Arrays.sort(meetings);
+        this.cells = cells;
+        this.cover = cover;
+        this.offGridDays = days;
+        this.offGridStarts = starts;
+        this.offGridEnds = ends;
+    }
+
+    // The course at the times it is advertised with, or null if it has none
+    public static Placement ofSchedule(Course course) {
+        Schedule schedule = course.getParsedSchedule();
+        if (schedule.isEmpty()) {
+            return null;
+        }
+        return at(course, schedule);
+    }
+
+    // The course moved so that it starts at the cell, on the same weekdays
+    // relative to each other as in its own schedule and meeting as long on
+    // each; null if it is pinned or would run past the last slot there
+    public static Placement ofCell(Course course, int cell) {
+        return ofCell(course, new MeetingShape(course.getParsedSchedule()), cell);
+    }
+
+    static Placement ofCell(Course course, MeetingShape shape, int cell) {
+        if (shape.isPinned() || !shape.allows(cell)) {
+            return null;
+        }
+        return at(course, shape.scheduleAt(cell));
+    }
+
+    private static Placement at(Course course, Schedule schedule) {
+        long cells = 0;
+        long cover = 0;
+        int count = schedule.getMeetingCount();
+        int[] days = new int[count];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        int offGrid = 0;
+        for (int m = 0; m < count; m++) {
+            int day = schedule.getDay(m);
+            int start = schedule.getStartMinute(m);
+            int end = schedule.getEndMinute(m);
+            int cell = WeekGrid.cellOf(day, start, end);
+            if (cell >= 0) {
+                cells |= WeekGrid.bit(cell);
+            } else {
+                cover |= WeekGrid.coverMask(day, start, end);
+                days[offGrid] = day;
+                starts[offGrid] = start;
+                ends[offGrid] = end;
+                offGrid++;
+            }
+        }
+        return new Placement(course, schedule, cells, cover, trim(days, offGrid), trim(starts, offGrid),
+            trim(ends, offGrid));
+    }
+
+    private static int[] trim(int[] values, int length) {
+        if (values.length == length) {
+            return values;
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(values, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    // The times the course meets at in this placement
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    // Grid cells this placement fills exactly
+    public long getCells() {
+        return cells;
+    }
+
+    // Grid cells partly covered by its off-grid meetings
+    public long getCover() {
+        return cover;
+    }
+
+    // True if every meeting fills a grid cell exactly
+    public boolean isOnGrid() {
+        return offGridDays.length == 0;
+    }
+
+    public boolean isSingleCell() {
+        return offGridDays.length == 0 && Long.bitCount(cells) == 1;
+    }
+
+    // True if both put the course at the same times
+    public boolean sameTimesAs(Placement other) {
+        return Arrays.equals(meetings, other.meetings);
+    }
+
+    public boolean conflictsWith(Placement other) {
+        if ((cells & (other.cells | other.cover)) != 0 || (other.cells & cover) != 0) {
+            return true;
+        }
+        for (int i = 0; i < offGridDays.length; i++) {
+            for (int j = 0; j < other.offGridDays.length; j++) {
+                if (offGridDays[i] == other.offGridDays[j]
+                        && offGridStarts[i] < other.offGridEnds[j] && other.offGridStarts[j] < offGridEnds[i]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<TimeSlot> toTimeSlots() {
+        List<TimeSlot> slots = new ArrayList<>(schedule.getMeetingCount());
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            slots.add(new TimeSlot(schedule.getDay(m), schedule.getStartMinute(m), schedule.getEndMinute(m), course));
+        }
+        return slots;
+    }
+}
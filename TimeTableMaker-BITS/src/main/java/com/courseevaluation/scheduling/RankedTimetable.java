@@ -0,0 +1,46 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Timetable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// A set of courses at their own schedules together with its score
+public class RankedTimetable {
+    private final List<Course> courses;
+    private final double score;
+
+    public RankedTimetable(List<Course> courses, double score) {
+        this.courses = new ArrayList<>(courses);
+        this.score = score;
+    }
+
+    public List<Course> getCourses() {
+        return new ArrayList<>(courses);
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public Timetable toTimetable() {
+        Timetable timetable = new Timetable();
+        for (Course course : courses) {
+            Schedule schedule = course.getParsedSchedule();
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                timetable.addTimeSlot(new TimeSlot(schedule.getDay(m), schedule.getStartMinute(m),
+                    schedule.getEndMinute(m), course));
+            }
+        }
+        return timetable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2f %s", score,
+            courses.stream().map(Course::getCourseCode).collect(Collectors.joining(", ", "[", "]")));
+    }
+}
@@ -0,0 +1,63 @@
+package com.courseevaluation.scheduling;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// What rescheduling one course does to everyone else: the students whose
+// timetables get a new clash if only that course moves, the neighbouring
+// courses ScheduleRepair would move to fix it, and the students who still
+// have a new clash after those moves
+public class RepairPlan {
+    private final String courseCode;
+    private final String schedule;
+    private final Map<String, String> moves;
+    private final List<String> brokenWithoutRepair;
+    private final List<String> brokenStudents;
+
+    public RepairPlan(String courseCode, String schedule, Map<String, String> moves,
+            List<String> brokenWithoutRepair, List<String> brokenStudents) {
+        this.courseCode = courseCode;
+        this.schedule = schedule;
+        this.moves = moves;
+        this.brokenWithoutRepair = brokenWithoutRepair;
+        this.brokenStudents = brokenStudents;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public String getSchedule() {
+        return schedule;
+    }
+
+    // New schedule text per moved neighbour, not including the course itself
+    public Map<String, String> getMoves() {
+        return new LinkedHashMap<>(moves);
+    }
+
+    // The course's own change followed by the moves, for updateSchedules
+    public Map<String, String> getSchedules() {
+        Map<String, String> schedules = new LinkedHashMap<>();
+        schedules.put(courseCode, schedule);
+        schedules.putAll(moves);
+        return schedules;
+    }
+
+    // Usernames, sorted
+    public List<String> getBrokenWithoutRepair() {
+        return brokenWithoutRepair;
+    }
+
+    // Usernames, sorted
+    public List<String> getBrokenStudents() {
+        return brokenStudents;
+    }
+
+    @Override
+    public String toString() {
+        return "RepairPlan{" + courseCode + " -> " + schedule + ", moves=" + moves
+            + ", broken=" + brokenWithoutRepair.size() + ", brokenAfterRepair=" + brokenStudents.size() + "}";
+    }
+}
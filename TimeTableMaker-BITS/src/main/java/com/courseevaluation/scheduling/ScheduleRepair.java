@@ -0,0 +1,155 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.data.CourseDatabase;
+import com.courseevaluation.data.EnrollmentDatabase;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.MeetingShape;
+import com.courseevaluation.models.Schedule;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Repairs the timetable around one course that an admin has moved, instead
+// of rescheduling every course. The moved course stays where it was put; its
+// neighbours (courses sharing a student or its instructor) that now clash
+// with it are each moved to the grid slot with the fewest clashes among
+// their own neighbours (on the same weekdays relative to each other, each
+// meeting keeping its length, see MeetingShape), if that is better than
+// staying; pinned courses stay. Everything else is left alone. Only the
+// enrollments of the courses involved are read, so a plan costs
+// milliseconds however large the catalogue is.
+public class ScheduleRepair {
+    private final CourseDatabase courseDatabase;
+    private final EnrollmentDatabase enrollmentDatabase;
+    private long instructorWeight = CourseSlotSolver.DEFAULT_INSTRUCTOR_WEIGHT;
+
+    public ScheduleRepair(CourseDatabase courseDatabase, EnrollmentDatabase enrollmentDatabase) {
+        this.courseDatabase = courseDatabase;
+        this.enrollmentDatabase = enrollmentDatabase;
+    }
+
+    public void setInstructorWeight(long instructorWeight) {
+        this.instructorWeight = instructorWeight;
+    }
+
+    // Plans moving the course to the schedule; the databases are not changed
+    public RepairPlan plan(String courseCode, String schedule) {
+        Map<String, Schedule> changed = new HashMap<>();
+        Map<String, String> moves = new LinkedHashMap<>();
+        Course course = courseDatabase.findCourse(courseCode);
+        if (course == null) {
+            return new RepairPlan(courseCode, schedule, moves, new ArrayList<>(), new ArrayList<>());
+        }
+        Schedule target = Schedule.parse(schedule);
+        changed.put(courseCode, target);
+        List<String> moved = new ArrayList<>();
+        moved.add(courseCode);
+        List<String> brokenWithoutRepair = brokenStudents(moved, changed);
+        if (brokenWithoutRepair.isEmpty()) {
+            return new RepairPlan(courseCode, schedule, moves, brokenWithoutRepair, brokenWithoutRepair);
+        }
+
+        // Worst clashes first, so they get the pick of the free cells
+        Map<String, Long> neighbors = neighborWeights(course);
+        List<String> clashing = new ArrayList<>();
+        for (String neighbor : neighbors.keySet()) {
+            if (scheduleOf(neighbor, changed).overlaps(target)) {
+                clashing.add(neighbor);
+            }
+        }
+        clashing.sort((a, b) -> Long.compare(neighbors.get(b), neighbors.get(a)));
+        for (String neighbor : clashing) {
+            Course other = courseDatabase.findCourse(neighbor);
+            MeetingShape shape = new MeetingShape(other.getParsedSchedule());
+            if (shape.isPinned()) {
+                continue;
+            }
+            Map<String, Long> weights = neighborWeights(other);
+            long stayCost = cost(scheduleOf(neighbor, changed), weights, changed);
+            Schedule best = null;
+            long bestCost = stayCost;
+            for (long anchors = shape.getAnchors(); anchors != 0; anchors &= anchors - 1) {
+                Schedule candidate = shape.scheduleAt(Long.numberOfTrailingZeros(anchors));
+                long cellCost = cost(candidate, weights, changed);
+                if (cellCost < bestCost) {
+                    best = candidate;
+                    bestCost = cellCost;
+                }
+            }
+            if (best != null) {
+                changed.put(neighbor, best);
+                moves.put(neighbor, best.toString());
+                moved.add(neighbor);
+            }
+        }
+        return new RepairPlan(courseCode, schedule, moves, brokenWithoutRepair, brokenStudents(moved, changed));
+    }
+
+    // Students taking one of the changed courses together with a course it
+    // did not overlap before but does now
+    private List<String> brokenStudents(Collection<String> courseCodes, Map<String, Schedule> changed) {
+        TreeSet<String> broken = new TreeSet<>();
+        for (String code : courseCodes) {
+            Course course = courseDatabase.findCourse(code);
+            Schedule after = scheduleOf(code, changed);
+            for (Enrollment enrollment : enrollmentDatabase.getEnrollmentsByCourse(code)) {
+                String student = enrollment.getStudentUsername();
+                if (broken.contains(student)) {
+                    continue;
+                }
+                for (Enrollment other : enrollmentDatabase.getEnrollmentsByStudent(student)) {
+                    Course otherCourse = courseDatabase.findCourse(other.getCourseCode());
+                    if (otherCourse == null || otherCourse == course) {
+                        continue;
+                    }
+                    if (after.overlaps(scheduleOf(otherCourse.getCourseCode(), changed))
+                            && !course.getParsedSchedule().overlaps(otherCourse.getParsedSchedule())) {
+                        broken.add(student);
+                        break;
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(broken);
+    }
+
+    // Shared students per neighbouring course, plus instructorWeight for
+    // courses with the same instructor
+    private Map<String, Long> neighborWeights(Course course) {
+        Map<String, Long> weights = new HashMap<>();
+        String code = course.getCourseCode();
+        for (Enrollment enrollment : enrollmentDatabase.getEnrollmentsByCourse(code)) {
+            for (Enrollment other : enrollmentDatabase.getEnrollmentsByStudent(enrollment.getStudentUsername())) {
+                if (!other.getCourseCode().equals(code) && courseDatabase.findCourse(other.getCourseCode()) != null) {
+                    weights.merge(other.getCourseCode(), 1L, Long::sum);
+                }
+            }
+        }
+        for (Course taught : courseDatabase.getCoursesByInstructor(course.getInstructor())) {
+            if (!taught.getCourseCode().equals(code)) {
+                weights.merge(taught.getCourseCode(), instructorWeight, Long::sum);
+            }
+        }
+        return weights;
+    }
+
+    private long cost(Schedule schedule, Map<String, Long> weights, Map<String, Schedule> changed) {
+        long cost = 0;
+        for (Map.Entry<String, Long> entry : weights.entrySet()) {
+            if (schedule.overlaps(scheduleOf(entry.getKey(), changed))) {
+                cost += entry.getValue();
+            }
+        }
+        return cost;
+    }
+
+    private Schedule scheduleOf(String courseCode, Map<String, Schedule> changed) {
+        Schedule schedule = changed.get(courseCode);
+        return schedule != null ? schedule : courseDatabase.findCourse(courseCode).getParsedSchedule();
+    }
+}
@@ -0,0 +1,171 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Timetable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Every way of taking exactly one section from each of several groups (the
+// required parts of a programme, say) with no two sections meeting at the
+// same time, as an exact cover problem for DancingLinks:
+//   - a primary column per group, which exactly one chosen section covers;
+//   - a secondary column per TimeSegments segment, which at most one chosen
+//     section may occupy, so overlaps are exact at minute resolution;
+//   - a secondary column per course code, so a course listed in two groups
+//     is not taken twice.
+// Each section of a group is one row. Solutions come out in a fixed order,
+// one at a time, and count() walks them all without building any.
+// stop() (from any thread) ends the running or next count() or solveAll()
+// with what it has; isComplete() then says the result is partial.
+public class SectionPackageSolver {
+    private final List<List<Course>> groups;
+    // Row number -> the group and section it stands for
+    private final List<Course> rowSections = new ArrayList<>();
+    private final List<Integer> rowGroups = new ArrayList<>();
+    private final int primaryColumns;
+    private final int secondaryColumns;
+    private final List<int[]> rowColumns = new ArrayList<>();
+    private long nodesVisited;
+    private boolean complete = true;
+    private volatile DancingLinks running;
+    private volatile boolean stopped;
+
+    public SectionPackageSolver(List<List<Course>> groups) {
+        this.groups = new ArrayList<>();
+        List<Schedule> schedules = new ArrayList<>();
+        for (List<Course> group : groups) {
+            // A section listed twice would only repeat every package
+            Map<String, Course> sections = new LinkedHashMap<>();
+            for (Course section : group) {
+                sections.putIfAbsent(section.getCourseCode(), section);
+                schedules.add(section.getParsedSchedule());
+            }
+            this.groups.add(new ArrayList<>(sections.values()));
+        }
+        TimeSegments segments = new TimeSegments(schedules);
+        Map<String, Integer> codeColumns = new HashMap<>();
+        int firstCodeColumn = this.groups.size() + segments.size();
+        for (int g = 0; g < this.groups.size(); g++) {
+            for (Course section : this.groups.get(g)) {
+                long[] mask = segments.mask(section.getParsedSchedule());
+                int occupied = 0;
+                for (long word : mask) {
+                    occupied += Long.bitCount(word);
+                }
+                int[] columns = new int[2 + occupied];
+                int k = 0;
+                columns[k++] = g;
+                for (int w = 0; w < mask.length; w++) {
+                    for (long bits = mask[w]; bits != 0; bits &= bits - 1) {
+                        columns[k++] = this.groups.size() + w * 64 + Long.numberOfTrailingZeros(bits);
+                    }
+                }
+                columns[k] = codeColumns.computeIfAbsent(section.getCourseCode(),
+                    code -> firstCodeColumn + codeColumns.size());
+                rowColumns.add(columns);
+                rowSections.add(section);
+                rowGroups.add(g);
+            }
+        }
+        this.primaryColumns = this.groups.size();
+        this.secondaryColumns = segments.size() + codeColumns.size();
+    }
+
+    // Each search gets its own matrix, as the links are rewired while it runs
+    private DancingLinks newMatrix() {
+        DancingLinks matrix = new DancingLinks(primaryColumns, secondaryColumns);
+        for (int[] columns : rowColumns) {
+            matrix.addRow(columns);
+        }
+        running = matrix;
+        if (stopped) {
+            matrix.stop();
+        }
+        return matrix;
+    }
+
+    public void stop() {
+        stopped = true;
+        DancingLinks matrix = running;
+        if (matrix != null) {
+            matrix.stop();
+        }
+    }
+
+    // How many packages there are; none is built along the way
+    public long count() {
+        DancingLinks matrix = newMatrix();
+        long count = matrix.countSolutions();
+        nodesVisited = matrix.getNodesVisited();
+        complete = matrix.isComplete();
+        return count;
+    }
+
+    public boolean isSatisfiable() {
+        return newMatrix().nextSolution();
+    }
+
+    // Up to limit packages, each the chosen section per group in group order
+    public List<List<Course>> solveAll(int limit) {
+        List<List<Course>> found = new ArrayList<>();
+        DancingLinks matrix = newMatrix();
+        while (found.size() < limit && matrix.nextSolution()) {
+            found.add(currentPackage(matrix));
+        }
+        nodesVisited = matrix.getNodesVisited();
+        complete = matrix.isComplete();
+        return found;
+    }
+
+    // Packages as timetables, each searched for only when asked for
+    public TimetableIterator iterator() {
+        DancingLinks matrix = newMatrix();
+        return new TimetableIterator(matrix::nextSolution, () -> toTimetable(currentPackage(matrix)), matrix::stop);
+    }
+
+    public Stream<Timetable> stream() {
+        return iterator().stream();
+    }
+
+    // Search nodes of the last count() or solveAll()
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    // False if stop() cut the last count() or solveAll() short, so it
+    // missed packages
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private List<Course> currentPackage(DancingLinks matrix) {
+        Course[] chosen = new Course[groups.size()];
+        for (int level = 0; level < matrix.getDepth(); level++) {
+            int row = matrix.getRow(level);
+            chosen[rowGroups.get(row)] = rowSections.get(row);
+        }
+        List<Course> sections = new ArrayList<>(chosen.length);
+        for (Course section : chosen) {
+            sections.add(section);
+        }
+        return sections;
+    }
+
+    public static Timetable toTimetable(List<Course> sections) {
+        Timetable timetable = new Timetable();
+        for (Course section : sections) {
+            Schedule schedule = section.getParsedSchedule();
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                timetable.addTimeSlot(new TimeSlot(schedule.getDay(m), schedule.getStartMinute(m),
+                    schedule.getEndMinute(m), section));
+            }
+        }
+        return timetable;
+    }
+}
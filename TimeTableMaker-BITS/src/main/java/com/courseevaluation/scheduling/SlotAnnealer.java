@@ -0,0 +1,316 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.WeekGrid;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Simulated annealing over course-to-cell assignments, for catalogues far
+// too big for exact search. It starts from the courses' current schedules
+// (courses not on the grid, or at an anchor the graph does not allow them,
+// go to their cheapest allowed cell) and keeps, for every
+// course and every cell, the weight of the course's neighbours in that
+// cell. The cost change of moving a course, or of swapping two courses
+// between cells, is then a couple of table lookups, and applying a move
+// updates only the moved courses' neighbours.
+//
+// It is anytime: the best assignment seen is kept and returned when the
+// wall-clock budget runs out or stop() is called (from any thread,
+// including the progress listener; a stop before optimize() starts ends it
+// at once). Cost is counted as in CourseSlotSolver:
+// shared students plus instructorWeight per instructor double-booking.
+public class SlotAnnealer {
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 60_000;
+    public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 500;
+    // Share of the steps that try a swap instead of a move
+    private static final double SWAP_RATE = 0.2;
+    // Steps between looks at the clock and the stop flag
+    private static final int CHECK_INTERVAL = 1024;
+    private static final double FINAL_TEMPERATURE = 0.01;
+
+    private final CourseConflictGraph graph;
+    private long instructorWeight = CourseSlotSolver.DEFAULT_INSTRUCTOR_WEIGHT;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private long progressIntervalMillis = DEFAULT_PROGRESS_INTERVAL_MILLIS;
+    private int cellCapacity = Integer.MAX_VALUE;
+    private long seed = System.nanoTime();
+    private Consumer<AnnealingProgress> listener;
+    private volatile boolean stopped;
+
+    public SlotAnnealer(CourseConflictGraph graph) {
+        this.graph = graph;
+    }
+
+    public void setInstructorWeight(long instructorWeight) {
+        this.instructorWeight = instructorWeight;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    // Most courses one cell may hold (rooms); moves into a full cell are
+    // not tried, swaps keep the counts as they are
+    public void setCellCapacity(int cellCapacity) {
+        this.cellCapacity = cellCapacity;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setProgressListener(Consumer<AnnealingProgress> listener) {
+        this.listener = listener;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    // Anchor cells of the courses as scheduled now (WeekGrid.anchorCell),
+    // -1 for courses with no meeting on the grid or an anchor they may not
+    // have (a lab running past the last slot, say)
+    public static int[] cellsFromSchedules(CourseConflictGraph graph) {
+        int[] cells = new int[graph.size()];
+        for (int course = 0; course < cells.length; course++) {
+            int cell = WeekGrid.anchorCell(graph.getCourse(course).getParsedSchedule());
+            cells[course] = cell >= 0 && graph.allowsAnchor(course, cell) ? cell : -1;
+        }
+        return cells;
+    }
+
+    public SlotAssignment optimize() {
+        return optimize(cellsFromSchedules(graph));
+    }
+
+    // Starts from the given cells; -1 entries are placed greedily first
+    public SlotAssignment optimize(int[] start) {
+        int n = graph.size();
+        int cellCount = WeekGrid.CELLS;
+        int[] cells = start.clone();
+        for (int course = 0; course < n; course++) {
+            if (cells[course] >= 0 && !graph.allowsAnchor(course, cells[course])) {
+                cells[course] = -1;
+            }
+        }
+        int[] loads = new int[cellCount];
+        for (int course = 0; course < n; course++) {
+            if (cells[course] >= 0) {
+                addLoad(course, cells[course], 1, loads);
+            }
+        }
+        // conflict[course * 30 + cell]: weight of the course's neighbours there
+        long[] conflict = new long[n * cellCount];
+        for (int course = 0; course < n; course++) {
+            if (cells[course] >= 0) {
+                addToNeighbors(course, cells[course], 1, conflict);
+            }
+        }
+        for (int course = 0; course < n; course++) {
+            if (cells[course] < 0) {
+                int best = -1;
+                long bestCost = 0;
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (!graph.allowsAnchor(course, cell)) {
+                        continue;
+                    }
+                    long cellCost = costAt(course, cell, conflict);
+                    if (fits(course, cell, -1, loads) && (best < 0 || cellCost < bestCost)) {
+                        best = cell;
+                        bestCost = cellCost;
+                    }
+                }
+                // Everything full: capacity cannot be met, take the emptiest
+                if (best < 0) {
+                    for (int cell = 0; cell < cellCount; cell++) {
+                        if (graph.allowsAnchor(course, cell) && (best < 0 || loads[cell] < loads[best])) {
+                            best = cell;
+                        }
+                    }
+                }
+                cells[course] = best;
+                addLoad(course, best, 1, loads);
+                addToNeighbors(course, best, 1, conflict);
+            }
+        }
+        long cost = 0;
+        for (int course = 0; course < n; course++) {
+            cost += costAt(course, cells[course], conflict);
+        }
+        cost /= 2;
+
+        long bestCost = cost;
+        int[] bestCells = cells.clone();
+        if (n < 2) {
+            return new SlotAssignment(graph, bestCells);
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double startTemperature = Math.max(FINAL_TEMPERATURE, sampleUphill(cells, conflict, random));
+        long budget = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        long progressInterval = TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis);
+        long startNanos = System.nanoTime();
+        long lastReport = startNanos;
+        long lastReportIterations = 0;
+        double temperature = startTemperature;
+        long iteration = 0;
+        while (bestCost > 0) {
+            if (iteration % CHECK_INTERVAL == 0) {
+                long now = System.nanoTime();
+                long elapsed = now - startNanos;
+                if (stopped || elapsed >= budget) {
+                    break;
+                }
+                // Geometric cooling over the budget
+                temperature = startTemperature
+                    * Math.pow(FINAL_TEMPERATURE / startTemperature, (double) elapsed / budget);
+                if (listener != null && now - lastReport >= progressInterval) {
+                    double rate = (iteration - lastReportIterations) * 1e9 / (now - lastReport);
+                    listener.accept(new AnnealingProgress(iteration, rate, temperature, cost, bestCost,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed)));
+                    lastReport = now;
+                    lastReportIterations = iteration;
+                }
+            }
+            iteration++;
+
+            int course = random.nextInt(n);
+            int from = cells[course];
+            if (random.nextDouble() < SWAP_RATE) {
+                // Only courses filling the same cells, so cell loads stay put
+                int other = random.nextInt(n);
+                int to = cells[other];
+                if (to == from || !graph.sameShape(course, other)) {
+                    continue;
+                }
+                long delta = costAt(course, to, conflict) - costAt(course, from, conflict)
+                    + costAt(other, from, conflict) - costAt(other, to, conflict)
+                    // The pair's own edge was counted at the old cells on
+                    // both sides; this puts it right
+                    + 2 * weightBetween(course, other) * (Long.bitCount(graph.cellMask(course, from)
+                        & graph.cellMask(other, to)) - Long.bitCount(graph.cellMask(course, to)));
+                if (accept(delta, temperature, random)) {
+                    addToNeighbors(course, from, -1, conflict);
+                    addToNeighbors(other, to, -1, conflict);
+                    cells[course] = to;
+                    cells[other] = from;
+                    addToNeighbors(course, to, 1, conflict);
+                    addToNeighbors(other, from, 1, conflict);
+                    cost += delta;
+                }
+            } else {
+                int to = random.nextInt(cellCount - 1);
+                if (to >= from) {
+                    to++;
+                }
+                if (!graph.allowsAnchor(course, to) || !fits(course, to, from, loads)) {
+                    continue;
+                }
+                long delta = costAt(course, to, conflict) - costAt(course, from, conflict);
+                if (accept(delta, temperature, random)) {
+                    addToNeighbors(course, from, -1, conflict);
+                    addToNeighbors(course, to, 1, conflict);
+                    cells[course] = to;
+                    addLoad(course, from, -1, loads);
+                    addLoad(course, to, 1, loads);
+                    cost += delta;
+                }
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                System.arraycopy(cells, 0, bestCells, 0, n);
+            }
+        }
+        if (listener != null) {
+            long elapsed = System.nanoTime() - startNanos;
+            listener.accept(new AnnealingProgress(iteration, iteration * 1e9 / Math.max(1, elapsed), temperature,
+                cost, bestCost, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+        }
+        return new SlotAssignment(graph, bestCells);
+    }
+
+    private static boolean accept(long delta, double temperature, SplittableRandom random) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    // Adds (sign 1) or removes (sign -1) the course's weight in the cells
+    // it fills at the anchor from every neighbour's row of the conflict table
+    private void addToNeighbors(int course, int cell, int sign, long[] conflict) {
+        long mask = graph.cellMask(course, cell);
+        for (int e = graph.firstEdge(course); e < graph.firstEdge(course + 1); e++) {
+            int row = graph.neighbor(e) * WeekGrid.CELLS;
+            long weight = sign * edgeWeight(e);
+            for (long bits = mask; bits != 0; bits &= bits - 1) {
+                conflict[row + Long.numberOfTrailingZeros(bits)] += weight;
+            }
+        }
+    }
+
+    // The course's clash weight anchored at the cell
+    private long costAt(int course, int cell, long[] conflict) {
+        int row = course * WeekGrid.CELLS;
+        if (graph.isOneCell(course)) {
+            return conflict[row + cell];
+        }
+        long cost = 0;
+        for (long bits = graph.cellMask(course, cell); bits != 0; bits &= bits - 1) {
+            cost += conflict[row + Long.numberOfTrailingZeros(bits)];
+        }
+        return cost;
+    }
+
+    private void addLoad(int course, int cell, int sign, int[] loads) {
+        for (long bits = graph.cellMask(course, cell); bits != 0; bits &= bits - 1) {
+            loads[Long.numberOfTrailingZeros(bits)] += sign;
+        }
+    }
+
+    // Whether the cells the course would newly fill at `to` (leaving `from`,
+    // or -1) all have room
+    private boolean fits(int course, int to, int from, int[] loads) {
+        long added = graph.cellMask(course, to) & ~(from >= 0 ? graph.cellMask(course, from) : 0);
+        for (; added != 0; added &= added - 1) {
+            if (loads[Long.numberOfTrailingZeros(added)] >= cellCapacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long weightBetween(int a, int b) {
+        for (int e = graph.firstEdge(a); e < graph.firstEdge(a + 1); e++) {
+            if (graph.neighbor(e) == b) {
+                return edgeWeight(e);
+            }
+        }
+        return 0;
+    }
+
+    private long edgeWeight(int edge) {
+        return graph.sharedStudents(edge) + (graph.sameInstructor(edge) ? instructorWeight : 0);
+    }
+
+    // Mean cost increase of a few random moves: a start temperature at which
+    // a typical uphill move is accepted about a third of the time
+    private double sampleUphill(int[] cells, long[] conflict, SplittableRandom random) {
+        long total = 0;
+        int uphill = 0;
+        for (int sample = 0; sample < 1000; sample++) {
+            int course = random.nextInt(cells.length);
+            int to = random.nextInt(WeekGrid.CELLS);
+            if (!graph.allowsAnchor(course, to)) {
+                continue;
+            }
+            long delta = costAt(course, to, conflict) - costAt(course, cells[course], conflict);
+            if (delta > 0) {
+                total += delta;
+                uphill++;
+            }
+        }
+        return uphill == 0 ? 1 : (double) total / uphill;
+    }
+}
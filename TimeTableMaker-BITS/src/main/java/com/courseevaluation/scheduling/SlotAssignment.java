@@ -0,0 +1,98 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.WeekGrid;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A WeekGrid anchor cell for every course of a CourseConflictGraph (the
+// course then meets at that slot on each of its days, with its meetings'
+// own lengths, see CourseConflictGraph.cellMask), with what
+// it costs: a student clash for every student with two courses in one cell,
+// and an instructor double-booking for every two courses of one instructor
+// in one cell. Courses meeting several times a week count once per cell
+// they share.
+public class SlotAssignment {
+    private final CourseConflictGraph graph;
+    private final int[] cells;
+    private final long studentClashes;
+    private final int instructorClashes;
+
+    public SlotAssignment(CourseConflictGraph graph, int[] cells) {
+        this.graph = graph;
+        this.cells = cells.clone();
+        long students = 0;
+        int instructors = 0;
+        for (int course = 0; course < graph.size(); course++) {
+            for (int e = graph.firstEdge(course); e < graph.firstEdge(course + 1); e++) {
+                int other = graph.neighbor(e);
+                // Every edge is stored twice; count it from its lower end
+                if (other > course) {
+                    int shared = Long.bitCount(graph.cellMask(course, cells[course])
+                        & graph.cellMask(other, cells[other]));
+                    students += (long) shared * graph.sharedStudents(e);
+                    if (graph.sameInstructor(e)) {
+                        instructors += shared;
+                    }
+                }
+            }
+        }
+        this.studentClashes = students;
+        this.instructorClashes = instructors;
+    }
+
+    public CourseConflictGraph getGraph() {
+        return graph;
+    }
+
+    public int getCell(int course) {
+        return cells[course];
+    }
+
+    public int[] getCells() {
+        return cells.clone();
+    }
+
+    // Every cell the course fills
+    public long getCellMask(int course) {
+        return graph.cellMask(course, cells[course]);
+    }
+
+    public String getSchedule(int course) {
+        return graph.scheduleAt(course, cells[course]);
+    }
+
+    public long getStudentClashes() {
+        return studentClashes;
+    }
+
+    public int getInstructorClashes() {
+        return instructorClashes;
+    }
+
+    // New schedule text per course code, in graph order
+    public Map<String, String> getSchedules() {
+        Map<String, String> schedules = new LinkedHashMap<>();
+        for (int course = 0; course < cells.length; course++) {
+            schedules.put(graph.getCourse(course).getCourseCode(), getSchedule(course));
+        }
+        return schedules;
+    }
+
+    // Courses per cell
+    public int[] getCellLoads() {
+        int[] loads = new int[WeekGrid.CELLS];
+        for (int course = 0; course < cells.length; course++) {
+            for (long mask = getCellMask(course); mask != 0; mask &= mask - 1) {
+                loads[Long.numberOfTrailingZeros(mask)]++;
+            }
+        }
+        return loads;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotAssignment{studentClashes=" + studentClashes + ", instructorClashes=" + instructorClashes
+            + ", loads=" + Arrays.toString(getCellLoads()) + "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Schedule;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+// The week cut, day by day, at every minute where a meeting of the given
+// schedules starts or ends. Each piece (segment) lies wholly inside or
+// wholly outside every one of those meetings, so two of them overlap
+// exactly when they share a segment and a schedule becomes a plain bitmask
+// over the segments. For schedules aligned to the WeekGrid the segments
+// are the grid cells in use.
+final class TimeSegments {
+    // Per day, the sorted cut points; segment k of a day runs from cut k to
+    // cut k + 1 and has the number firstOfDay[day] + k
+    private final int[][] cuts;
+    private final int[] firstOfDay;
+    private final int size;
+
+    TimeSegments(Collection<Schedule> schedules) {
+        List<TreeSet<Integer>> cutsByDay = new ArrayList<>();
+        for (int day = 0; day < Schedule.DAY_NAMES.length; day++) {
+            cutsByDay.add(new TreeSet<>());
+        }
+        for (Schedule schedule : schedules) {
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                TreeSet<Integer> dayCuts = cutsByDay.get(schedule.getDay(m));
+                dayCuts.add(schedule.getStartMinute(m));
+                dayCuts.add(schedule.getEndMinute(m));
+            }
+        }
+        this.cuts = new int[cutsByDay.size()][];
+        this.firstOfDay = new int[cutsByDay.size()];
+        int next = 0;
+        for (int day = 0; day < cuts.length; day++) {
+            cuts[day] = cutsByDay.get(day).stream().mapToInt(Integer::intValue).toArray();
+            firstOfDay[day] = next;
+            next += Math.max(0, cuts[day].length - 1);
+        }
+        this.size = next;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Longs needed for a mask
+    int words() {
+        return Math.max(1, (size + 63) / 64);
+    }
+
+    // The segments the schedule occupies; it must be one of the schedules
+    // the cuts were made from
+    long[] mask(Schedule schedule) {
+        long[] mask = new long[words()];
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            int day = schedule.getDay(m);
+            int from = Arrays.binarySearch(cuts[day], schedule.getStartMinute(m));
+            int to = Arrays.binarySearch(cuts[day], schedule.getEndMinute(m));
+            for (int k = from; k < to; k++) {
+                int segment = firstOfDay[day] + k;
+                mask[segment >>> 6] |= 1L << segment;
+            }
+        }
+        return mask;
+    }
+}
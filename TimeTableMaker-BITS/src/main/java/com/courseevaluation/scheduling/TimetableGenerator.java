@@ -0,0 +1,148 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.FingerprintSet;
+import com.courseevaluation.models.Timetable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Builds up to targetCount distinct timetables on a ForkJoinPool within a
+// wall-clock budget. First the exact solver's placement tree is split into
+// tasks that the pool's workers steal from each other, which yields
+// timetables holding every course. If the courses cannot all be placed (or
+// the exact search runs out of its half of the budget) the rest is filled
+// with randomized greedy timetables that may leave courses out, also spread
+// over the pool. Timetables are deduplicated across threads by fingerprint.
+public class TimetableGenerator {
+    public static final int DEFAULT_TARGET_COUNT = 5;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 2000;
+    // Greedy attempts per wanted timetable, as the sequential version had
+    private static final int ATTEMPTS_PER_TIMETABLE = 10;
+    // Greedy attempts a task runs itself instead of splitting further
+    private static final int ATTEMPTS_PER_TASK = 4;
+    // How long iterator() lets the exact search look for its next timetable
+    // before handing over to greedy restarts
+    private static final long EXACT_STEP_BUDGET_MILLIS = 100;
+
+    private final List<Course> courses;
+    private final List<String> preferences;
+    private int targetCount = DEFAULT_TARGET_COUNT;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public TimetableGenerator(List<Course> courses, List<String> preferences) {
+        this.courses = new ArrayList<>(courses);
+        this.preferences = new ArrayList<>(preferences);
+    }
+
+    public void setTargetCount(int targetCount) {
+        this.targetCount = targetCount;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<Timetable> generate() {
+        if (targetCount <= 0) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        long budget = TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        FingerprintSet seen = new FingerprintSet();
+        List<Timetable> found = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger accepted = new AtomicInteger();
+
+        TimetableSolver solver = new TimetableSolver(courses);
+        solver.search(solution -> {
+            Timetable timetable = TimetableSolver.toTimetable(solution);
+            accept(timetable, seen, found, accepted);
+            return accepted.get() < targetCount;
+        }, pool, start + budget / 2);
+
+        if (accepted.get() < targetCount) {
+            pool.invoke(new Restarts(targetCount * ATTEMPTS_PER_TIMETABLE, start + budget, seen, found, accepted));
+        }
+        synchronized (found) {
+            return new ArrayList<>(found.subList(0, Math.min(found.size(), targetCount)));
+        }
+    }
+
+    // Distinct timetables one at a time: placements of all the courses from
+    // the exact search while it keeps finding them quickly, then greedy ones,
+    // until that many greedy attempts in a row bring nothing new. Neither
+    // targetCount nor the time budget applies; the caller stops reading when
+    // it has enough. Besides the exact search's own frontier, the iterator
+    // remembers the fingerprint (not the timetable) of every timetable it
+    // has handed out, so its memory grows by that much per result.
+    public TimetableIterator iterator() {
+        TimetableIterator exact = new TimetableSolver(courses).iterator(EXACT_STEP_BUDGET_MILLIS);
+        FingerprintSet seen = new FingerprintSet();
+        Timetable[] current = new Timetable[1];
+        return new TimetableIterator(() -> {
+            if (exact.hasNext()) {
+                current[0] = exact.next();
+                seen.add(current[0].getFingerprint());
+                return true;
+            }
+            for (int miss = 0; miss < ATTEMPTS_PER_TIMETABLE; miss++) {
+                Timetable candidate = Timetable.generateTimetable(courses, preferences);
+                if (seen.add(candidate.getFingerprint())) {
+                    current[0] = candidate;
+                    return true;
+                }
+            }
+            return false;
+        }, () -> current[0], exact::cancel);
+    }
+
+    private void accept(Timetable timetable, FingerprintSet seen, List<Timetable> found,
+            AtomicInteger accepted) {
+        if (seen.add(timetable.getFingerprint()) && accepted.incrementAndGet() <= targetCount) {
+            found.add(timetable);
+        }
+    }
+
+    // A share of the greedy attempts, halved until it is small enough to run
+    private final class Restarts extends RecursiveAction {
+        private final int attempts;
+        private final long deadlineNanos;
+        private final FingerprintSet seen;
+        private final List<Timetable> found;
+        private final AtomicInteger accepted;
+
+        Restarts(int attempts, long deadlineNanos, FingerprintSet seen, List<Timetable> found,
+                AtomicInteger accepted) {
+            this.attempts = attempts;
+            this.deadlineNanos = deadlineNanos;
+            this.seen = seen;
+            this.found = found;
+            this.accepted = accepted;
+        }
+
+        @Override
+        protected void compute() {
+            if (attempts > ATTEMPTS_PER_TASK) {
+                int half = attempts / 2;
+                invokeAll(new Restarts(half, deadlineNanos, seen, found, accepted),
+                    new Restarts(attempts - half, deadlineNanos, seen, found, accepted));
+                return;
+            }
+            for (int i = 0; i < attempts; i++) {
+                if (accepted.get() >= targetCount || System.nanoTime() - deadlineNanos > 0) {
+                    return;
+                }
+                accept(Timetable.generateTimetable(courses, preferences), seen, found, accepted);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Timetable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Distinct timetables searched for one at a time: nothing is computed until
+// hasNext() asks for the next one, so the first arrives as soon as it is
+// found and the caller stops whenever it likes. cancel() may be called from
+// any thread (a UI's "Stop" button, say) and ends the search at its next
+// step; closing the stream() cancels it too.
+public class TimetableIterator implements Iterator<Timetable> {
+    private final BooleanSupplier advance;
+    private final Supplier<Timetable> current;
+    private final Runnable onCancel;
+    private volatile boolean cancelled;
+    private boolean fetched;
+    private boolean hasCurrent;
+
+    // advance moves to the next timetable (false when there is none),
+    // current returns it
+    TimetableIterator(BooleanSupplier advance, Supplier<Timetable> current, Runnable onCancel) {
+        this.advance = advance;
+        this.current = current;
+        this.onCancel = onCancel;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (cancelled) {
+            return false;
+        }
+        if (!fetched) {
+            hasCurrent = advance.getAsBoolean();
+            fetched = true;
+        }
+        return hasCurrent && !cancelled;
+    }
+
+    @Override
+    public Timetable next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        return current.get();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        onCancel.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Stream<Timetable> stream() {
+        Spliterator<Timetable> spliterator = Spliterators.spliteratorUnknownSize(this,
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::cancel);
+    }
+}
@@ -0,0 +1,138 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// Weighted score of a set of courses taken at their own schedules. Higher
+// is better:
+//   + preferredWeight for every preferred course
+//   + creditWeight per credit
+//   - gapPenaltyPerHour for every hour between two classes on the same day
+//   - dayPenalty for every day on campus
+//   - earlyPenalty for every class starting before earlyCutoffMinute
+// The first two and the early-morning term belong to single courses
+// (see courseGain); days and gaps depend on the whole set. The penalties
+// are expected to be non-negative: TopTimetableSearch relies on days and
+// gaps never raising a score when it bounds a branch.
+public class TimetableObjective {
+    private double preferredWeight = 10;
+    private double creditWeight = 1;
+    private double gapPenaltyPerHour = 1;
+    private double dayPenalty = 2;
+    private double earlyPenalty = 1;
+    private int earlyCutoffMinute = 10 * 60;
+
+    public double getPreferredWeight() {
+        return preferredWeight;
+    }
+
+    public void setPreferredWeight(double preferredWeight) {
+        this.preferredWeight = preferredWeight;
+    }
+
+    public double getCreditWeight() {
+        return creditWeight;
+    }
+
+    public void setCreditWeight(double creditWeight) {
+        this.creditWeight = creditWeight;
+    }
+
+    public double getGapPenaltyPerHour() {
+        return gapPenaltyPerHour;
+    }
+
+    public void setGapPenaltyPerHour(double gapPenaltyPerHour) {
+        this.gapPenaltyPerHour = gapPenaltyPerHour;
+    }
+
+    public double getDayPenalty() {
+        return dayPenalty;
+    }
+
+    public void setDayPenalty(double dayPenalty) {
+        this.dayPenalty = dayPenalty;
+    }
+
+    public double getEarlyPenalty() {
+        return earlyPenalty;
+    }
+
+    public void setEarlyPenalty(double earlyPenalty) {
+        this.earlyPenalty = earlyPenalty;
+    }
+
+    public int getEarlyCutoffMinute() {
+        return earlyCutoffMinute;
+    }
+
+    public void setEarlyCutoffMinute(int earlyCutoffMinute) {
+        this.earlyCutoffMinute = earlyCutoffMinute;
+    }
+
+    // The part of the score a course brings on its own
+    public double courseGain(Course course, Set<String> preferred) {
+        double gain = creditWeight * course.getCredits();
+        if (preferred.contains(course.getCourseCode())) {
+            gain += preferredWeight;
+        }
+        Schedule schedule = course.getParsedSchedule();
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (schedule.getStartMinute(m) < earlyCutoffMinute) {
+                gain -= earlyPenalty;
+            }
+        }
+        return gain;
+    }
+
+    // Days (bit per Schedule day index) the course meets on
+    public static int dayMask(Course course) {
+        Schedule schedule = course.getParsedSchedule();
+        int mask = 0;
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            mask |= 1 << schedule.getDay(m);
+        }
+        return mask;
+    }
+
+    public double daysPenalty(int dayMask) {
+        return dayPenalty * Integer.bitCount(dayMask);
+    }
+
+    // Idle time between classes, summed over all days
+    public double gapsPenalty(List<Course> courses) {
+        int meetings = 0;
+        for (Course course : courses) {
+            meetings += course.getParsedSchedule().getMeetingCount();
+        }
+        // (day, start, end) packed so one sort orders by day, then start
+        long[] packed = new long[meetings];
+        int i = 0;
+        for (Course course : courses) {
+            Schedule schedule = course.getParsedSchedule();
+            for (int m = 0; m < schedule.getMeetingCount(); m++) {
+                packed[i++] = ((long) schedule.getDay(m) << 40) | ((long) schedule.getStartMinute(m) << 20)
+                    | schedule.getEndMinute(m);
+            }
+        }
+        Arrays.sort(packed);
+        long gapMinutes = 0;
+        int latestEnd = 0;
+        for (int k = 0; k < packed.length; k++) {
+            int start = (int) ((packed[k] >>> 20) & 0xFFFFF);
+            int end = (int) (packed[k] & 0xFFFFF);
+            if (k > 0 && (packed[k] >>> 40) == (packed[k - 1] >>> 40)) {
+                if (start > latestEnd) {
+                    gapMinutes += start - latestEnd;
+                }
+                latestEnd = Math.max(latestEnd, end);
+            } else {
+                latestEnd = end;
+            }
+        }
+        return gapPenaltyPerHour * gapMinutes / 60.0;
+    }
+}
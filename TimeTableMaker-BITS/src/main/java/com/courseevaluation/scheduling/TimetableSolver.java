@@ -0,0 +1,544 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.MeetingShape;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Timetable;
+import com.courseevaluation.models.WeekGrid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Exact timetable search: every course must be placed, either at its own
+// schedule or (if alternatives are allowed) moved to a free WeekGrid anchor
+// with its weekday pattern and meeting lengths kept (see MeetingShape;
+// pinned courses only go at their own times), with no two placements
+// overlapping. Depth-first backtracking that
+//   - branches on the course with the fewest remaining options (MRV),
+//   - removes the options of the other courses that clash with each choice
+//     (forward checking, one mask operation for the grid cells), and
+//   - once every open course is down to single-cell options, checks with a
+//     bipartite matching that the cells can still go round, which cuts off
+//     hopeless branches (such as more courses than free cells) at once.
+// The sequential search is deterministic: same input, same solutions in the
+// same order. It finds a placement whenever one exists, and returning null
+// from solve() is a proof that none does. search(visitor, pool, deadline)
+// explores the same tree on a ForkJoinPool, forking the top branches into
+// tasks that idle workers steal; solutions then arrive in no fixed order.
+public class TimetableSolver {
+    // Option 0 is the course's own schedule, option 1 + c is anchored at cell c
+    private static final int SCHEDULE_OPTION = 0;
+    // Parallel search keeps forking until there are about this many tasks
+    // per worker, so uneven subtrees still balance out
+    private static final int TASKS_PER_WORKER = 8;
+    // Nodes between two looks at the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final List<Course> courses;
+    private final Placement[][] options;
+    // WeekGrid.dayPattern of each course
+    private final int[] dayPatterns;
+    // True if every option 1 + c of the course fills exactly the cells of
+    // its day pattern at c, so clashes are found with one mask operation
+    private final boolean[] gridMoves;
+    // True if every option 1 + c of the course fills at least one cell
+    private final boolean[] fillsCells;
+    private final long[] initialOptions;
+    private final LongAdder nodesVisited = new LongAdder();
+
+    public TimetableSolver(List<Course> courses) {
+        this(courses, true);
+    }
+
+    public TimetableSolver(List<Course> courses, boolean allowAlternativeSlots) {
+        this.courses = new ArrayList<>(courses);
+        int n = this.courses.size();
+        this.options = new Placement[n][];
+        this.dayPatterns = new int[n];
+        this.gridMoves = new boolean[n];
+        this.fillsCells = new boolean[n];
+        this.initialOptions = new long[n];
+        for (int v = 0; v < n; v++) {
+            Course course = this.courses.get(v);
+            Placement own = Placement.ofSchedule(course);
+            dayPatterns[v] = WeekGrid.dayPattern(course.getParsedSchedule());
+            gridMoves[v] = true;
+            fillsCells[v] = true;
+            options[v] = new Placement[1 + (allowAlternativeSlots ? WeekGrid.CELLS : 0)];
+            options[v][SCHEDULE_OPTION] = own;
+            long available = own != null ? 1L : 0L;
+            if (allowAlternativeSlots) {
+                MeetingShape shape = new MeetingShape(course.getParsedSchedule());
+                // Null where the shape does not allow the anchor
+                for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+                    Placement moved = Placement.ofCell(course, shape, cell);
+                    options[v][1 + cell] = moved;
+                    if (moved != null) {
+                        gridMoves[v] &= moved.isOnGrid()
+                            && moved.getCells() == WeekGrid.patternCells(dayPatterns[v], cell);
+                        fillsCells[v] &= moved.getCells() != 0;
+                    }
+                }
+                // Anchors that meet at the same times as the course's own
+                // schedule or as an earlier anchor (a course meeting every
+                // day meets at the same times from any day) would repeat it
+                long cells = 0;
+                for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+                    Placement moved = options[v][1 + cell];
+                    if (moved == null) {
+                        continue;
+                    }
+                    boolean repeat = own != null && own.sameTimesAs(moved);
+                    for (int earlier = 0; earlier < cell && !repeat; earlier++) {
+                        repeat = options[v][1 + earlier] != null && options[v][1 + earlier].sameTimesAs(moved);
+                    }
+                    if (!repeat) {
+                        cells |= WeekGrid.bit(cell);
+                    }
+                }
+                available |= cells << 1;
+            }
+            initialOptions[v] = available;
+        }
+    }
+
+    public List<Course> getCourses() {
+        return new ArrayList<>(courses);
+    }
+
+    // The first placement found, or null if the courses cannot all be placed
+    public Timetable solve() {
+        List<Timetable> found = solveAll(1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public boolean isSatisfiable() {
+        return solve() != null;
+    }
+
+    // Up to limit distinct placements, in search order
+    public List<Timetable> solveAll(int limit) {
+        List<Timetable> found = new ArrayList<>();
+        if (limit <= 0) {
+            return found;
+        }
+        search(solution -> {
+            found.add(toTimetable(solution));
+            return found.size() < limit;
+        });
+        return found;
+    }
+
+    // Hands every solution (one placement per course, in course order) to
+    // the visitor until it returns false. The array is reused between calls.
+    // Returns true if the search space was exhausted.
+    public boolean search(Predicate<Placement[]> visitor) {
+        nodesVisited.reset();
+        return new Search(new Control(visitor, false, 0)).run();
+    }
+
+    // The same search spread over the pool. The visitor is called from
+    // several threads at once (each with its own array) and must be
+    // thread-safe; once it returns false, or System.nanoTime() passes
+    // deadlineNanos, the remaining tasks stop at their next node.
+    // Returns true if the search space was exhausted.
+    public boolean search(Predicate<Placement[]> visitor, ForkJoinPool pool, long deadlineNanos) {
+        nodesVisited.reset();
+        Control control = new Control(visitor, true, deadlineNanos);
+        Search root = new Search(control);
+        if (!root.feasibleAtRoot()) {
+            return true;
+        }
+        pool.invoke(new Branch(root, 0, (long) pool.getParallelism() * TASKS_PER_WORKER));
+        return !control.stopped;
+    }
+
+    // Solutions in search order, each searched for only when asked for.
+    // Only the path to the current one is held, however many there are.
+    public TimetableIterator iterator() {
+        return iterator(0);
+    }
+
+    // As above, but the iterator ends early if finding the next solution
+    // takes longer than stepBudgetMillis (0 for no limit)
+    public TimetableIterator iterator(long stepBudgetMillis) {
+        nodesVisited.reset();
+        Control control = new Control(null, stepBudgetMillis > 0, 0);
+        long stepBudget = TimeUnit.MILLISECONDS.toNanos(stepBudgetMillis);
+        Search search = new Search(control);
+        boolean feasible = search.feasibleAtRoot();
+        search.startAt(0);
+        return new TimetableIterator(() -> {
+            control.deadlineNanos = System.nanoTime() + stepBudget;
+            boolean found = feasible && search.nextSolution();
+            search.flushNodes();
+            return found;
+        }, () -> toTimetable(search.chosen), () -> control.stopped = true);
+    }
+
+    public Stream<Timetable> stream() {
+        return iterator().stream();
+    }
+
+    // Search nodes of the last search, for comparing strategies
+    public long getNodesVisited() {
+        return nodesVisited.sum();
+    }
+
+    public static Timetable toTimetable(Placement[] solution) {
+        Timetable timetable = new Timetable();
+        for (Placement placement : solution) {
+            for (TimeSlot slot : placement.toTimeSlots()) {
+                timetable.addTimeSlot(slot);
+            }
+        }
+        return timetable;
+    }
+
+    // Shared by every task of one search
+    private static final class Control {
+        final Predicate<Placement[]> visitor;
+        final boolean timed;
+        // Moved forward by the iterator before every step
+        long deadlineNanos;
+        volatile boolean stopped;
+
+        Control(Predicate<Placement[]> visitor, boolean timed, long deadlineNanos) {
+            this.visitor = visitor;
+            this.timed = timed;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    // One node of the tree: either forks a task per option of the most
+    // constrained course, or searches its whole subtree on this thread
+    private final class Branch extends RecursiveAction {
+        private final Search state;
+        private final int placed;
+        private final long tasksWanted;
+
+        Branch(Search state, int placed, long tasksWanted) {
+            this.state = state;
+            this.placed = placed;
+            this.tasksWanted = tasksWanted;
+        }
+
+        @Override
+        protected void compute() {
+            if (tasksWanted <= 1 || placed == state.n) {
+                state.runFrom(placed);
+                return;
+            }
+            if (state.control.stopped || !state.enter(placed)) {
+                state.flushNodes();
+                return;
+            }
+            int course = state.mostConstrained();
+            long available = state.remaining[course];
+            List<Branch> children = new ArrayList<>(Long.bitCount(available));
+            long share = Math.max(1, tasksWanted / Long.bitCount(available));
+            while (available != 0) {
+                int option = Long.numberOfTrailingZeros(available);
+                available &= available - 1;
+                Search child = new Search(state);
+                if (child.choose(course, options[course][option])) {
+                    children.add(new Branch(child, placed + 1, share));
+                }
+            }
+            state.flushNodes();
+            invokeAll(children);
+        }
+    }
+
+    private final class Search {
+        private final Control control;
+        private final int n = courses.size();
+        private final long[] remaining;
+        private final Placement[] chosen;
+        // Cells no open course can fill any more
+        private long taken;
+        // Undo log of option masks changed by forward checking
+        private int[] trailCourse;
+        private long[] trailOptions;
+        private int trailSize;
+        // Scratch space for the matching check
+        private final int[] cellOwner = new int[WeekGrid.CELLS];
+        private final long[] cellOptions = new long[n];
+        private long visitedCells;
+        private long nodes;
+        // The explicit stack, one frame per depth that is branching: frame d
+        // holds the course chosen there, the options it has left to try and
+        // what to restore before trying the next one
+        private final int[] frameCourse = new int[n];
+        private final long[] frameAvailable = new long[n];
+        private final int[] frameMark = new int[n];
+        private final long[] frameTaken = new long[n];
+        private int base;
+        private int top;
+        private boolean started;
+
+        Search(Control control) {
+            this.control = control;
+            this.remaining = initialOptions.clone();
+            this.chosen = new Placement[n];
+            this.trailCourse = new int[Math.max(16, n)];
+            this.trailOptions = new long[trailCourse.length];
+        }
+
+        // A copy of a node's state to hand to another task
+        Search(Search parent) {
+            this.control = parent.control;
+            this.remaining = parent.remaining.clone();
+            this.chosen = parent.chosen.clone();
+            this.taken = parent.taken;
+            this.trailCourse = new int[Math.max(16, n)];
+            this.trailOptions = new long[trailCourse.length];
+        }
+
+        boolean feasibleAtRoot() {
+            for (long available : remaining) {
+                if (available == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean run() {
+            if (!feasibleAtRoot()) {
+                return true;
+            }
+            return runFrom(0);
+        }
+
+        // Hands every solution below the current node (with `placed`
+        // courses placed) to the visitor. Returns true if it got through.
+        boolean runFrom(int placed) {
+            startAt(placed);
+            while (nextSolution()) {
+                if (!control.visitor.test(chosen)) {
+                    control.stopped = true;
+                }
+            }
+            flushNodes();
+            return !control.stopped;
+        }
+
+        void startAt(int placed) {
+            base = placed;
+            top = placed - 1;
+            started = false;
+        }
+
+        void flushNodes() {
+            nodesVisited.add(nodes);
+            nodes = 0;
+        }
+
+        // Counts the node and tells whether its subtree is worth searching
+        private boolean enter(int placed) {
+            nodes++;
+            if (control.timed && (nodes % DEADLINE_CHECK_INTERVAL) == 0
+                    && System.nanoTime() - control.deadlineNanos > 0) {
+                control.stopped = true;
+            }
+            return placed == n || canStillMatch();
+        }
+
+        // Takes a placement for the course; false if that leaves some other
+        // course without options. Undone by undo(mark) and clearing chosen.
+        private boolean choose(int course, Placement placement) {
+            chosen[course] = placement;
+            taken |= placement.getCells() | placement.getCover();
+            return forwardCheck(course, placement);
+        }
+
+        // Moves to the next solution below the starting node, leaving it in
+        // `chosen`; false once that subtree is used up or the search stopped
+        boolean nextSolution() {
+            if (!started) {
+                started = true;
+                if (open(base)) {
+                    return true;
+                }
+            }
+            while (top >= base) {
+                if (control.stopped) {
+                    return false;
+                }
+                int course = frameCourse[top];
+                if (chosen[course] != null) {
+                    undo(frameMark[top]);
+                    chosen[course] = null;
+                    taken = frameTaken[top];
+                }
+                long available = frameAvailable[top];
+                if (available == 0) {
+                    top--;
+                    continue;
+                }
+                int option = Long.numberOfTrailingZeros(available);
+                frameAvailable[top] = available & (available - 1);
+                frameMark[top] = trailSize;
+                if (choose(course, options[course][option]) && open(top + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Visits the node with `placed` courses placed: true if it is a
+        // solution, otherwise pushes a frame for it unless it is pruned
+        private boolean open(int placed) {
+            if (!enter(placed)) {
+                return false;
+            }
+            if (placed == n) {
+                return true;
+            }
+            int course = mostConstrained();
+            frameCourse[placed] = course;
+            frameAvailable[placed] = remaining[course];
+            frameTaken[placed] = taken;
+            top = placed;
+            return false;
+        }
+
+        private int mostConstrained() {
+            int best = -1;
+            int bestCount = Integer.MAX_VALUE;
+            for (int v = 0; v < n; v++) {
+                if (chosen[v] == null) {
+                    int count = Long.bitCount(remaining[v]);
+                    if (count < bestCount) {
+                        best = v;
+                        bestCount = count;
+                    }
+                }
+            }
+            return best;
+        }
+
+        // Drops every option of the open courses that clashes with the new
+        // placement; false if some course is left with nothing
+        private boolean forwardCheck(int placedCourse, Placement placement) {
+            long blockedCells = placement.getCells() | placement.getCover();
+            for (int v = 0; v < n; v++) {
+                if (v == placedCourse || chosen[v] != null) {
+                    continue;
+                }
+                long before = remaining[v];
+                long after;
+                if (gridMoves[v]) {
+                    long blockedOptions = dayPatterns[v] == 1 ? blockedCells
+                        : WeekGrid.anchorsTouching(dayPatterns[v], blockedCells);
+                    after = before & ~(blockedOptions << 1);
+                } else {
+                    // Meetings longer or shorter than a slot: test each anchor
+                    after = before;
+                    for (long anchors = before >>> 1; anchors != 0; anchors &= anchors - 1) {
+                        int cell = Long.numberOfTrailingZeros(anchors);
+                        Placement option = options[v][1 + cell];
+                        if (((option.getCells() | option.getCover()) & blockedCells) != 0
+                                && placement.conflictsWith(option)) {
+                            after &= ~(WeekGrid.bit(cell) << 1);
+                        }
+                    }
+                }
+                if ((after & 1L) != 0 && placement.conflictsWith(options[v][SCHEDULE_OPTION])) {
+                    after &= ~1L;
+                }
+                if (after != before) {
+                    if (trailSize == trailCourse.length) {
+                        trailCourse = Arrays.copyOf(trailCourse, trailSize * 2);
+                        trailOptions = Arrays.copyOf(trailOptions, trailSize * 2);
+                    }
+                    trailCourse[trailSize] = v;
+                    trailOptions[trailSize] = before;
+                    trailSize++;
+                    remaining[v] = after;
+                    if (after == 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void undo(int mark) {
+            while (trailSize > mark) {
+                trailSize--;
+                remaining[trailCourse[trailSize]] = trailOptions[trailSize];
+            }
+        }
+
+        // Every open course whose options all fill grid cells needs a cell
+        // of its own, so there cannot be more of them than cells left.
+        // When each open course can only take single grid cells, the rest
+        // of the problem is a bipartite matching of courses to cells. Returns
+        // false if no such matching exists; true otherwise, or if some course
+        // still has a multi-meeting or off-grid option.
+        private boolean canStillMatch() {
+            int needCell = 0;
+            for (int v = 0; v < n; v++) {
+                if (chosen[v] == null
+                        && ((remaining[v] & 1L) == 0 || options[v][SCHEDULE_OPTION].getCells() != 0)
+                        && ((remaining[v] >>> 1) == 0 || fillsCells[v])) {
+                    needCell++;
+                }
+            }
+            if (needCell > Long.bitCount(WeekGrid.FULL & ~taken)) {
+                return false;
+            }
+            int open = 0;
+            for (int v = 0; v < n; v++) {
+                if (chosen[v] != null) {
+                    continue;
+                }
+                long cells = remaining[v] >>> 1;
+                if (cells != 0 && !(gridMoves[v] && dayPatterns[v] == 1)) {
+                    return true;
+                }
+                if ((remaining[v] & 1L) != 0) {
+                    Placement own = options[v][SCHEDULE_OPTION];
+                    if (!own.isSingleCell()) {
+                        return true;
+                    }
+                    cells |= own.getCells();
+                }
+                cellOptions[open++] = cells;
+            }
+            if (open > WeekGrid.CELLS) {
+                return false;
+            }
+            Arrays.fill(cellOwner, -1);
+            for (int v = 0; v < open; v++) {
+                visitedCells = 0;
+                if (!augment(v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Kuhn's augmenting path search over at most 30 cells
+        private boolean augment(int v) {
+            long candidates = cellOptions[v];
+            while ((candidates &= ~visitedCells) != 0) {
+                int cell = Long.numberOfTrailingZeros(candidates);
+                visitedCells |= 1L << cell;
+                if (cellOwner[cell] < 0 || augment(cellOwner[cell])) {
+                    cellOwner[cell] = v;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// The K best timetables under a TimetableObjective. A timetable is any
+// non-empty set of candidate courses, taken at their own schedules, with no
+// two overlapping and within the course and credit limits.
+//
+// Branch and bound: candidates are sorted by the gain they bring on their
+// own, and each node only adds candidates after the last one it added, so
+// every set is met once. The K best so far sit in a min-heap; a branch is
+// cut when even the best imaginable completion (the current gain plus the
+// largest gains still compatible, ignoring the day and gap penalties that
+// can only lower the score) cannot beat the worst of them. Because the
+// candidates are sorted, once one candidate fails that test all later ones
+// do as well.
+public class TopTimetableSearch {
+    public static final int DEFAULT_MAX_COURSES = 5;
+
+    private final Placement[] candidates;
+    private final double[] gains;
+    private final int[] dayMasks;
+    private final TimetableObjective objective;
+    private int maxCourses = DEFAULT_MAX_COURSES;
+    private int maxCredits = Integer.MAX_VALUE;
+    private long nodesVisited;
+
+    public TopTimetableSearch(List<Course> courses, List<String> preferences, TimetableObjective objective) {
+        this.objective = objective;
+        Set<String> preferred = new HashSet<>(preferences);
+        List<Placement> usable = new ArrayList<>();
+        for (Course course : courses) {
+            // Courses without a schedule cannot be placed
+            Placement placement = Placement.ofSchedule(course);
+            if (placement != null) {
+                usable.add(placement);
+            }
+        }
+        usable.sort(Comparator.comparingDouble(
+            (Placement p) -> objective.courseGain(p.getCourse(), preferred)).reversed());
+        int n = usable.size();
+        this.candidates = usable.toArray(new Placement[0]);
+        this.gains = new double[n];
+        this.dayMasks = new int[n];
+        for (int i = 0; i < n; i++) {
+            gains[i] = objective.courseGain(candidates[i].getCourse(), preferred);
+            dayMasks[i] = TimetableObjective.dayMask(candidates[i].getCourse());
+        }
+    }
+
+    public void setMaxCourses(int maxCourses) {
+        this.maxCourses = maxCourses;
+    }
+
+    public void setMaxCredits(int maxCredits) {
+        this.maxCredits = maxCredits;
+    }
+
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    // Best first
+    public List<RankedTimetable> findBest(int k) {
+        nodesVisited = 0;
+        List<RankedTimetable> best = new ArrayList<>();
+        if (k <= 0 || maxCourses <= 0) {
+            return best;
+        }
+        Search search = new Search(k);
+        search.start();
+        best.addAll(search.heap);
+        best.sort(Comparator.comparingDouble(RankedTimetable::getScore).reversed());
+        return best;
+    }
+
+    private final class Search {
+        private final int k;
+        // Worst of the best K at the head
+        private final PriorityQueue<RankedTimetable> heap;
+        private final Placement[] chosen;
+        // Per depth: the candidates still open and prefix sums of their
+        // positive gains
+        private final int[][] open;
+        private final double[][] positivePrefix;
+        private final int[] openSize;
+
+        Search(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k, Comparator.comparingDouble(RankedTimetable::getScore));
+            int depth = Math.min(maxCourses, candidates.length) + 1;
+            this.chosen = new Placement[depth];
+            this.open = new int[depth][candidates.length];
+            this.positivePrefix = new double[depth][candidates.length + 1];
+            this.openSize = new int[depth];
+        }
+
+        void start() {
+            int size = 0;
+            for (int i = 0; i < candidates.length; i++) {
+                if (candidates[i].getCourse().getCredits() <= maxCredits) {
+                    open[0][size] = i;
+                    positivePrefix[0][size + 1] = positivePrefix[0][size] + Math.max(0, gains[i]);
+                    size++;
+                }
+            }
+            openSize[0] = size;
+            extend(0, 0, 0, 0);
+        }
+
+        // Offers the current set, then tries adding each open candidate.
+        // open[count] holds the candidates after the last one added that
+        // still fit next to every chosen course.
+        private void extend(int count, int credits, double gain, int dayMask) {
+            nodesVisited++;
+            double daysSoFar = objective.daysPenalty(dayMask);
+            if (count > 0) {
+                offer(count, gain - daysSoFar);
+            }
+            if (count == maxCourses) {
+                return;
+            }
+            int[] ids = open[count];
+            double[] prefix = positivePrefix[count];
+            int size = openSize[count];
+            int slots = maxCourses - count;
+            for (int p = 0; p < size; p++) {
+                int i = ids[p];
+                if (heap.size() == k) {
+                    double worst = heap.peek().getScore();
+                    double bound = gain + gains[i] + prefix[Math.min(size, p + slots)] - prefix[p + 1];
+                    if (bound - daysSoFar <= worst) {
+                        return;
+                    }
+                    // Tighter, but no longer falling with p: the days this
+                    // course adds will be on campus whatever comes next
+                    if (bound - objective.daysPenalty(dayMask | dayMasks[i]) <= worst) {
+                        continue;
+                    }
+                }
+                Placement placement = candidates[i];
+                int newCredits = credits + placement.getCourse().getCredits();
+                if (count + 1 < maxCourses) {
+                    narrow(count + 1, ids, p + 1, size, placement, newCredits);
+                }
+                chosen[count] = placement;
+                extend(count + 1, newCredits, gain + gains[i], dayMask | dayMasks[i]);
+                chosen[count] = null;
+            }
+        }
+
+        // Keeps the open candidates that also fit next to the new course
+        private void narrow(int depth, int[] ids, int from, int size, Placement added, int credits) {
+            int[] next = open[depth];
+            double[] prefix = positivePrefix[depth];
+            int nextSize = 0;
+            for (int p = from; p < size; p++) {
+                int i = ids[p];
+                if (credits + candidates[i].getCourse().getCredits() <= maxCredits
+                        && !added.conflictsWith(candidates[i])) {
+                    next[nextSize] = i;
+                    prefix[nextSize + 1] = prefix[nextSize] + Math.max(0, gains[i]);
+                    nextSize++;
+                }
+            }
+            openSize[depth] = nextSize;
+        }
+
+        // The gap penalty is only worked out when the rest could still
+        // make the cut
+        private void offer(int count, double scoreWithoutGaps) {
+            if (heap.size() == k && scoreWithoutGaps <= heap.peek().getScore()) {
+                return;
+            }
+            List<Course> courses = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) {
+                courses.add(chosen[c].getCourse());
+            }
+            double score = scoreWithoutGaps - objective.gapsPenalty(courses);
+            if (heap.size() < k) {
+                heap.add(new RankedTimetable(courses, score));
+            } else if (score > heap.peek().getScore()) {
+                heap.poll();
+                heap.add(new RankedTimetable(courses, score));
+            }
+        }
+    }
+}
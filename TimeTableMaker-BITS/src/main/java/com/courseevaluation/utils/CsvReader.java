@@ -0,0 +1,217 @@
+package com.courseevaluation.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Streaming reader for RFC 4180 style CSV: fields may be wrapped in double
+// quotes, and a quoted field may contain commas, line breaks and doubled
+// quotes. The unescaped characters of the current record are kept in one
+// reusable buffer with per-field offsets, so reading a record allocates
+// nothing until a field is asked for as a String. An empty field that is
+// not quoted reads as null and "" as the empty string, as CsvWriter writes
+// them.
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private int fieldCount;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Advances to the next non-empty record; returns false at end of input
+    public boolean next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return false;
+            }
+            if (c == '\n') {
+                continue;
+            }
+            if (c == '\r') {
+                if (peek() == '\n') {
+                    position++;
+                }
+                continue;
+            }
+            readRecord(c);
+            return true;
+        }
+    }
+
+    private void readRecord(int first) throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        int c = first;
+        while (true) {
+            startField(c == '"');
+            if (c == '"') {
+                // Quoted field: runs until a quote that is not doubled
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        break;
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            position++;
+                            append('"');
+                            continue;
+                        }
+                        c = read();
+                        break;
+                    }
+                    append((char) c);
+                }
+                // Anything between the closing quote and the separator is kept as-is
+                while (c != -1 && c != ',' && c != '\n' && c != '\r') {
+                    append((char) c);
+                    c = read();
+                }
+            } else {
+                while (c != -1 && c != ',' && c != '\n' && c != '\r') {
+                    append((char) c);
+                    c = read();
+                }
+            }
+            endField();
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                position++;
+            }
+            return;
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public String getString(int field) {
+        checkField(field);
+        if (fieldStart[field] == fieldEnd[field] && !fieldQuoted[field]) {
+            return null;
+        }
+        return new String(record, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    public int getInt(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (start == end) {
+            throw new NumberFormatException("Empty field " + field);
+        }
+        boolean negative = record[start] == '-';
+        if (negative || record[start] == '+') {
+            start++;
+            if (start == end) {
+                throw new NumberFormatException("Invalid number in field " + field);
+            }
+        }
+        // Accumulated as a negative number, which also reaches Integer.MIN_VALUE
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in field " + field + ": " + getString(field));
+            }
+            if (value < (limit + digit) / 10) {
+                throw new NumberFormatException("Number out of range in field " + field + ": " + getString(field));
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    // Compares a field without materializing it
+    public boolean fieldEquals(int field, String expected) {
+        checkField(field);
+        int length = fieldEnd[field] - fieldStart[field];
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (record[fieldStart[field] + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of a record with " + fieldCount + " fields");
+        }
+    }
+
+    private void startField(boolean quoted) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = recordLength;
+        fieldQuoted[fieldCount] = quoted;
+    }
+
+    private void endField() {
+        fieldEnd[fieldCount++] = recordLength;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            char[] grown = new char[record.length * 2];
+            System.arraycopy(record, 0, grown, 0, recordLength);
+            record = grown;
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
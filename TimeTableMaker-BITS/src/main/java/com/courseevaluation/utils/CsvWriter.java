@@ -0,0 +1,100 @@
+package com.courseevaluation.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Counterpart of CsvReader. Fields are written as-is unless they contain a
+// comma, quote or line break, in which case they are quoted and embedded
+// quotes are doubled. A null field is written as nothing and an empty
+// string as "", so the two read back apart (except a record holding only
+// a null field, which is an empty line).
+public class CsvWriter implements Flushable, Closeable {
+    private final Writer out;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        appendField(out, value);
+        return this;
+    }
+
+    public CsvWriter field(int value) throws IOException {
+        separator();
+        out.write(Integer.toString(value));
+        return this;
+    }
+
+    public void endRecord() throws IOException {
+        out.write('\n');
+        firstField = true;
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            out.write(',');
+        }
+        firstField = false;
+    }
+
+    // Builds a single record (without the line terminator)
+    public static String formatRecord(String... fields) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                appendField(builder, fields[i]);
+            }
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    private static void appendField(Appendable out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && !needsQuoting(value)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
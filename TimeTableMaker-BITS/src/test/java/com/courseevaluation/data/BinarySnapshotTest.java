@@ -0,0 +1,152 @@
+package com.courseevaluation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.courseevaluation.models.Admin;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.Instructor;
+import com.courseevaluation.models.Student;
+import com.courseevaluation.models.User;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinarySnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void usersReadBackAsWritten() throws IOException {
+        List<User> users = new ArrayList<>();
+        users.add(new Student("alice", "pw", "Alice", "CS", "2021A7PS001", "Computer Science", 3));
+        users.add(new Instructor("bob", "pw,\"x\"", "Bob \u00e9", "EEE", "I42", null));
+        Admin admin = new Admin("root", "", "Root", "Admin", "A1", "FULL");
+        admin.setStatus("SUSPENDED");
+        users.add(admin);
+
+        File file = folder.newFile("users.bin");
+        write(file, out -> BinarySnapshot.writeUsers(users, out));
+        List<User> read = BinarySnapshot.readUsers(file);
+
+        assertEquals(users.size(), read.size());
+        for (int i = 0; i < users.size(); i++) {
+            User expected = users.get(i);
+            User actual = read.get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getUsername(), actual.getUsername());
+            assertEquals(expected.getPassword(), actual.getPassword());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getDepartment(), actual.getDepartment());
+            assertEquals(expected.getStatus(), actual.getStatus());
+        }
+        Student student = (Student) read.get(0);
+        assertEquals("2021A7PS001", student.getStudentId());
+        assertEquals("Computer Science", student.getMajor());
+        assertEquals(3, student.getYear());
+        Instructor instructor = (Instructor) read.get(1);
+        assertEquals("I42", instructor.getInstructorId());
+        assertNull(instructor.getSpecialization());
+        assertEquals("FULL", ((Admin) read.get(2)).getAccessLevel());
+    }
+
+    @Test
+    public void coursesReadBackWithTheirMeetings() throws IOException {
+        List<Course> courses = new ArrayList<>();
+        courses.add(new Course("CS F211", "Data Structures", "bob", 4, "Mon 09:00-10:30; Wed 09:00-10:30", 60));
+        courses.add(new Course("LAB", "Lab", "bob", 1, "Tue 14:00-17:00", 20));
+        courses.add(new Course("TBA", null, "", 3, "", 10));
+        courses.get(0).setEnrolledStudents(42);
+
+        File file = folder.newFile("courses.bin");
+        write(file, out -> BinarySnapshot.writeCourses(courses, out));
+        assertCoursesEqual(courses, BinarySnapshot.readCourses(file));
+    }
+
+    @Test
+    public void firstVersionCourseFilesStillRead() throws IOException {
+        Course course = new Course("CS F211", "Data Structures", "bob", 4, "Mon 09:00-10:30; Thu 11:00-12:30", 60);
+        course.setEnrolledStudents(7);
+        File file = folder.newFile("courses-v1.bin");
+        // Version 1 had the schedule text only
+        write(file, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(0x43454353);
+            out.writeInt(1);
+            out.writeInt(1);
+            writeString(out, course.getCourseCode());
+            writeString(out, course.getTitle());
+            writeString(out, course.getInstructor());
+            out.writeInt(course.getCredits());
+            writeString(out, course.getSchedule());
+            out.writeInt(course.getEnrolledStudents());
+            out.writeInt(course.getMaxStudents());
+            out.flush();
+        });
+        assertCoursesEqual(Arrays.asList(course), BinarySnapshot.readCourses(file));
+    }
+
+    @Test
+    public void enrollmentsReadBackAsWritten() throws IOException {
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            enrollments.add(new Enrollment("s" + i, "C" + i % 37, "2024-01-" + (1 + i % 28),
+                i % 5 == 0 ? "DROPPED" : "ENROLLED"));
+        }
+        File file = folder.newFile("enrollments.bin");
+        write(file, out -> BinarySnapshot.writeEnrollments(enrollments, out));
+        List<Enrollment> read = BinarySnapshot.readEnrollments(file);
+        assertEquals(enrollments.size(), read.size());
+        for (int i = 0; i < enrollments.size(); i++) {
+            assertEquals(enrollments.get(i).getStudentUsername(), read.get(i).getStudentUsername());
+            assertEquals(enrollments.get(i).getCourseCode(), read.get(i).getCourseCode());
+            assertEquals(enrollments.get(i).getEnrollmentDate(), read.get(i).getEnrollmentDate());
+            assertEquals(enrollments.get(i).getStatus(), read.get(i).getStatus());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void aFileOfTheWrongKindIsRejected() throws IOException {
+        File file = folder.newFile("users.bin");
+        write(file, out -> BinarySnapshot.writeUsers(new ArrayList<>(), out));
+        BinarySnapshot.readCourses(file);
+    }
+
+    private static void assertCoursesEqual(List<Course> expected, List<Course> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Course a = expected.get(i);
+            Course b = actual.get(i);
+            assertEquals(a.getCourseCode(), b.getCourseCode());
+            assertEquals(a.getTitle(), b.getTitle());
+            assertEquals(a.getInstructor(), b.getInstructor());
+            assertEquals(a.getCredits(), b.getCredits());
+            assertEquals(a.getSchedule(), b.getSchedule());
+            assertEquals(a.getParsedSchedule(), b.getParsedSchedule());
+            assertEquals(a.getEnrolledStudents(), b.getEnrolledStudents());
+            assertEquals(a.getMaxStudents(), b.getMaxStudents());
+        }
+    }
+
+    private static void write(File file, SnapshotWriter.Content content) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            content.writeTo(out);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,84 @@
+package com.courseevaluation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CourseConflictMatrixTest {
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void conflictsMatchScheduleOverlapsThroughEveryEdit() throws IOException {
+        Random random = new Random(22);
+        File directory = folder.getRoot();
+        assertTrue(StorageFormat.CSV.fileFor(new File(directory, "courses").getPath()).createNewFile());
+        CourseDatabase database = new CourseDatabase(directory, DurabilityPolicy.osBuffered());
+        int nextCode = 0;
+        for (int op = 0; op < 600; op++) {
+            List<Course> courses = database.getAllCourses();
+            int kind = random.nextInt(10);
+            if (kind < 4 || courses.size() < 2) {
+                database.addCourse(course("C" + nextCode++, random));
+            } else if (kind < 6) {
+                // Freed ids are reused by the next additions
+                assertTrue(database.removeCourse(courses.get(random.nextInt(courses.size()))));
+            } else if (kind < 8) {
+                Course existing = courses.get(random.nextInt(courses.size()));
+                Course edited = course(existing.getCourseCode(), random);
+                assertTrue(database.updateCourse(existing.getCourseCode(), edited));
+            } else if (kind < 9) {
+                // Same schedule, so the matrix keeps the row
+                Course existing = courses.get(random.nextInt(courses.size()));
+                Course edited = new Course(existing.getCourseCode(), "Renamed", existing.getInstructor(),
+                    existing.getCredits(), existing.getSchedule(), existing.getMaxStudents());
+                assertTrue(database.updateCourse(existing.getCourseCode(), edited));
+            } else {
+                Course existing = courses.get(random.nextInt(courses.size()));
+                Course recoded = new Course("C" + nextCode++, existing.getTitle(), existing.getInstructor(),
+                    existing.getCredits(), existing.getSchedule(), existing.getMaxStudents());
+                assertTrue(database.updateCourse(existing.getCourseCode(), recoded));
+            }
+
+            courses = database.getAllCourses();
+            for (Course a : courses) {
+                for (Course b : courses) {
+                    if (a != b) {
+                        assertEquals(a.getParsedSchedule().overlaps(b.getParsedSchedule()), database.conflicts(a, b));
+                    }
+                }
+            }
+        }
+    }
+
+    // One to three meetings on different days, at any quarter hour and of
+    // any length up to three hours
+    private static Course course(String code, Random random) {
+        StringBuilder schedule = new StringBuilder();
+        int firstDay = random.nextInt(DAYS.length);
+        int meetings = 1 + random.nextInt(3);
+        for (int m = 0; m < meetings && firstDay + m < DAYS.length; m++) {
+            int start = 8 * 60 + 15 * random.nextInt(36);
+            int end = start + 15 * (2 + random.nextInt(11));
+            if (m > 0) {
+                schedule.append("; ");
+            }
+            schedule.append(DAYS[firstDay + m]).append(' ').append(time(start)).append('-').append(time(end));
+        }
+        return new Course(code, "Course " + code, "I" + random.nextInt(5), 3, schedule.toString(), 30);
+    }
+
+    private static String time(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
@@ -0,0 +1,194 @@
+package com.courseevaluation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.Student;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EnrollmentDatabaseTest {
+    private static final int COURSES = 8;
+    private static final int STUDENTS = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void enrollmentsSurviveReopeningAndCompaction() throws IOException {
+        File directory = folder.getRoot();
+        int[] roomy = new int[COURSES];
+        Arrays.fill(roomy, STUDENTS);
+        writeCourses(directory, roomy);
+        Random random = new Random(3);
+        Set<String> expected = new HashSet<>();
+
+        // Enough changes to pass the compaction threshold a few times
+        for (int round = 0; round < 3; round++) {
+            CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.osBuffered());
+            try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                    DurabilityPolicy.osBuffered())) {
+                assertEquals(expected, keys(enrollments.getAllEnrollments()));
+                for (int i = 0; i < 1500; i++) {
+                    Student student = student(random.nextInt(STUDENTS));
+                    Course course = courses.findCourse("C" + random.nextInt(COURSES));
+                    String key = student.getUsername() + "/" + course.getCourseCode();
+                    if (random.nextInt(5) == 0) {
+                        EnrollmentBatch batch = new EnrollmentBatch();
+                        Course other = courses.findCourse("C" + random.nextInt(COURSES));
+                        String otherKey = student.getUsername() + "/" + other.getCourseCode();
+                        if (other == course || expected.contains(key) || expected.contains(otherKey)) {
+                            continue;
+                        }
+                        assertTrue(enrollments.commit(batch.enroll(student, course).enroll(student, other)));
+                        expected.add(key);
+                        expected.add(otherKey);
+                    } else if (expected.contains(key)) {
+                        assertTrue(enrollments.dropCourse(student, course));
+                        expected.remove(key);
+                    } else {
+                        assertTrue(enrollments.enrollStudent(student, course));
+                        expected.add(key);
+                    }
+                }
+                if (round == 1) {
+                    enrollments.saveAs(StorageFormat.BINARY);
+                }
+            }
+        }
+
+        CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.osBuffered());
+        try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                DurabilityPolicy.osBuffered())) {
+            assertEquals(StorageFormat.BINARY, enrollments.getFormat());
+            assertEquals(expected, keys(enrollments.getAllEnrollments()));
+            Map<String, Integer> seats = new HashMap<>();
+            for (String key : expected) {
+                seats.merge(key.substring(key.indexOf('/') + 1), 1, Integer::sum);
+            }
+            for (Course course : courses.getAllCourses()) {
+                assertEquals(seats.getOrDefault(course.getCourseCode(), 0).intValue(),
+                    course.getEnrolledStudents());
+            }
+        }
+    }
+
+    @Test
+    public void aBatchWithAFullCourseChangesNothing() throws IOException {
+        File directory = folder.getRoot();
+        writeCourses(directory, 5, 1);
+        CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.syncEveryCommit());
+        try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                DurabilityPolicy.syncEveryCommit())) {
+            assertTrue(enrollments.enrollStudent(student(0), courses.findCourse("C1")));
+            assertFalse(enrollments.commit(new EnrollmentBatch()
+                .enroll(student(1), courses.findCourse("C0"))
+                .enroll(student(1), courses.findCourse("C1"))));
+            assertTrue(enrollments.getEnrollmentsByStudent("s1").isEmpty());
+            assertTrue(enrollments.getEnrollmentsByCourse("C0").isEmpty());
+            assertEquals(0, courses.findCourse("C0").getEnrolledStudents());
+            assertEquals(1, courses.findCourse("C1").getEnrolledStudents());
+            assertFalse(enrollments.isFailed());
+        }
+        String journal = new String(Files.readAllBytes(new File(directory, "enrollments.journal").toPath()),
+            StandardCharsets.UTF_8);
+        assertFalse(journal.contains("s1"));
+
+        courses = new CourseDatabase(directory, DurabilityPolicy.syncEveryCommit());
+        try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                DurabilityPolicy.syncEveryCommit())) {
+            assertEquals(new HashSet<>(Arrays.asList("s0/C1")), keys(enrollments.getAllEnrollments()));
+            assertEquals(0, courses.findCourse("C0").getEnrolledStudents());
+            assertEquals(1, courses.findCourse("C1").getEnrolledStudents());
+        }
+    }
+
+    @Test
+    public void seatsNeverOversellUnderContention() throws Exception {
+        int threads = 64;
+        int seats = 10;
+        for (int round = 0; round < 10; round++) {
+            File directory = folder.newFolder();
+            writeCourses(directory, seats);
+            CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.syncEveryCommit());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                    DurabilityPolicy.syncEveryCommit())) {
+                Course course = courses.findCourse("C0");
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    Student student = student(i);
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return enrollments.enrollStudent(student, course);
+                    }));
+                }
+                start.countDown();
+                int enrolled = 0;
+                for (Future<Boolean> result : results) {
+                    enrolled += result.get() ? 1 : 0;
+                }
+                assertEquals(seats, enrolled);
+                assertEquals(seats, course.getEnrolledStudents());
+                assertEquals(seats, enrollments.getEnrollmentsByCourse("C0").size());
+            } finally {
+                executor.shutdown();
+            }
+
+            courses = new CourseDatabase(directory, DurabilityPolicy.syncEveryCommit());
+            try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                    DurabilityPolicy.syncEveryCommit())) {
+                assertEquals(seats, enrollments.getAllEnrollments().size());
+                assertEquals(seats, courses.findCourse("C0").getEnrolledStudents());
+            }
+        }
+    }
+
+    private static Set<String> keys(List<Enrollment> enrollments) {
+        Set<String> keys = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            keys.add(enrollment.getStudentUsername() + "/" + enrollment.getCourseCode());
+        }
+        assertEquals(enrollments.size(), keys.size());
+        return keys;
+    }
+
+    private static Student student(int i) {
+        return new Student("s" + i, "pw", "Student " + i, "CS", "ID" + i, "CS", 1);
+    }
+
+    // Course Ci gets maxStudents[i] seats
+    private static void writeCourses(File directory, int... maxStudents) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < maxStudents.length; i++) {
+            csv.append("C").append(i).append(",Course ").append(i).append(",3,I").append(i)
+                .append(",Mon 09:00-10:30,0,").append(maxStudents[i]).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(StorageFormat.CSV.fileFor(
+                new File(directory, "courses").getPath()))) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.courseevaluation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EnrollmentJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsReplayInOrderAfterReopening() throws IOException {
+        String path = new File(folder.getRoot(), "enrollments.journal").getPath();
+        List<String> written = new ArrayList<>();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.syncEveryCommit())) {
+            journal.open(written::add);
+            for (int i = 0; i < 50; i++) {
+                List<String> records = new ArrayList<>();
+                for (int r = 0; r <= i % 4; r++) {
+                    records.add("ENROLL,s" + i + ",C" + r + ",2024-01-01,ENROLLED");
+                }
+                journal.commit(journal.write(records));
+                written.addAll(records);
+            }
+            assertEquals(written.size(), journal.getRecordCount());
+        }
+        assertEquals(written, replay(path));
+    }
+
+    @Test
+    public void aTornTailIsDroppedAndLaterRecordsSurvive() throws IOException {
+        String path = new File(folder.getRoot(), "enrollments.journal").getPath();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.syncEveryCommit())) {
+            journal.open(record -> { });
+            journal.commit(journal.write(Arrays.asList("DROP,a,C1")));
+            journal.commit(journal.write(Arrays.asList("DROP,b,C1", "DROP,b,C2")));
+        }
+        // A crash in the middle of a transaction, then in the middle of a line
+        append(path, "BEGIN,3\nDROP,c,C1\nDROP,c,C2\nDRO");
+
+        List<String> replayed = new ArrayList<>();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.syncEveryCommit())) {
+            journal.open(replayed::add);
+            assertEquals(Arrays.asList("DROP,a,C1", "DROP,b,C1", "DROP,b,C2"), replayed);
+            journal.commit(journal.write(Arrays.asList("DROP,d,C1")));
+        }
+        assertEquals(Arrays.asList("DROP,a,C1", "DROP,b,C1", "DROP,b,C2", "DROP,d,C1"), replay(path));
+    }
+
+    @Test
+    public void rotatingOntoALeftoverCompactionKeepsEveryRecord() throws IOException {
+        String path = new File(folder.getRoot(), "enrollments.journal").getPath();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.syncEveryCommit())) {
+            journal.open(record -> { });
+            journal.commit(journal.write(Arrays.asList("DROP,a,C1")));
+            journal.rotate();
+            assertTrue(journal.isCompacting());
+            // The snapshot for the first rotation failed, so the second
+            // rotation has to add to the same compaction journal
+            journal.commit(journal.write(Arrays.asList("DROP,b,C1", "DROP,b,C2")));
+            journal.rotate();
+            assertEquals(0, journal.getRecordCount());
+            journal.commit(journal.write(Arrays.asList("DROP,c,C1")));
+        }
+        assertEquals(Arrays.asList("DROP,a,C1", "DROP,b,C1", "DROP,b,C2", "DROP,c,C1"), replay(path));
+
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.syncEveryCommit())) {
+            journal.open(record -> { });
+            journal.rotate();
+            journal.compactionFinished();
+            assertFalse(journal.isCompacting());
+        }
+        assertEquals(new ArrayList<String>(), replay(path));
+    }
+
+    @Test(expected = IOException.class)
+    public void recordsWithLineBreaksAreRefused() throws IOException {
+        String path = new File(folder.getRoot(), "enrollments.journal").getPath();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.osBuffered())) {
+            journal.open(record -> { });
+            journal.write(Arrays.asList("DROP,a,\"C\n1\""));
+        }
+    }
+
+    private static List<String> replay(String path) throws IOException {
+        List<String> replayed = new ArrayList<>();
+        try (EnrollmentJournal journal = new EnrollmentJournal(path, DurabilityPolicy.osBuffered())) {
+            journal.open(replayed::add);
+        }
+        return replayed;
+    }
+
+    private static void append(String path, String text) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path, true)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
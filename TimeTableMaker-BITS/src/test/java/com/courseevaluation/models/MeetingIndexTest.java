@@ -0,0 +1,77 @@
+package com.courseevaluation.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class MeetingIndexTest {
+
+    @Test
+    public void matchesAListOfIntervals() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < 50; trial++) {
+            MeetingIndex<Integer> index = new MeetingIndex<>();
+            // {day, start, end, value}
+            List<int[]> meetings = new ArrayList<>();
+            int nextValue = 0;
+            for (int op = 0; op < 2000; op++) {
+                int kind = random.nextInt(10);
+                if (kind < 4 || meetings.isEmpty()) {
+                    int[] meeting = randomInterval(random, nextValue++);
+                    index.add(meeting[0], meeting[1], meeting[2], meeting[3]);
+                    meetings.add(meeting);
+                } else if (kind < 7) {
+                    int[] meeting = meetings.remove(random.nextInt(meetings.size()));
+                    assertTrue(index.remove(meeting[0], meeting[1], meeting[2], meeting[3]));
+                } else if (kind < 8) {
+                    // Nothing of this value at this interval
+                    int[] missing = randomInterval(random, -1);
+                    assertFalse(index.remove(missing[0], missing[1], missing[2], missing[3]));
+                } else {
+                    int[] query = randomInterval(random, 0);
+                    List<Integer> expected = new ArrayList<>();
+                    for (int[] meeting : meetings) {
+                        if (meeting[0] == query[0] && meeting[1] < query[2] && query[1] < meeting[2]) {
+                            expected.add(meeting[3]);
+                        }
+                    }
+                    List<Integer> found = new ArrayList<>();
+                    index.findOverlapping(query[0], query[1], query[2], found);
+                    Collections.sort(expected);
+                    Collections.sort(found);
+                    assertEquals(expected, found);
+                    assertEquals(!expected.isEmpty(), index.overlapsAny(query[0], query[1], query[2]));
+                }
+                assertEquals(meetings.size(), index.size());
+            }
+        }
+    }
+
+    @Test
+    public void schedulesAreIndexedByEveryMeeting() {
+        MeetingIndex<String> index = new MeetingIndex<>();
+        index.add(Schedule.parse("Mon 09:00-10:30; Wed 09:00-10:30"), "A");
+        index.add(Schedule.parse("Wed 10:00-11:00"), "B");
+        index.add(Schedule.parse("Fri 14:00-17:00"), "C");
+        assertEquals(List.of("A", "B"), index.findOverlapping(Schedule.parse("Mon 10:00-10:15; Wed 10:15-10:45")));
+        assertFalse(index.overlapsAny(Schedule.parse("Wed 11:00-12:00; Fri 13:00-14:00")));
+        index.remove(Schedule.parse("Mon 09:00-10:30; Wed 09:00-10:30"), "A");
+        assertEquals(List.of("B"), index.findOverlapping(Schedule.parse("Wed 09:00-17:00")));
+        assertEquals(2, index.size());
+    }
+
+    // Starts on a coarse grid so that equal intervals, which share a node,
+    // come up often
+    private static int[] randomInterval(Random random, int value) {
+        int day = random.nextInt(3);
+        int start = 480 + 15 * random.nextInt(40);
+        int end = start + 15 * (1 + random.nextInt(random.nextInt(10) == 0 ? 40 : 8));
+        return new int[] {day, start, end, value};
+    }
+}
@@ -0,0 +1,205 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.WeekGrid;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class CourseSlotSolverTest {
+
+    @Test
+    public void clashCountsMatchARecountFromTheEnrollments() {
+        Random random = new Random(19);
+        for (int trial = 0; trial < 100; trial++) {
+            List<Course> courses = catalogue(random);
+            List<Enrollment> enrollments = enrollments(random, courses);
+            CourseConflictGraph graph = CourseConflictGraph.build(courses, enrollments);
+            int[] cells = randomCells(random, graph);
+            SlotAssignment assignment = new SlotAssignment(graph, cells);
+
+            Map<String, List<Integer>> byStudent = new HashMap<>();
+            for (Enrollment enrollment : enrollments) {
+                byStudent.computeIfAbsent(enrollment.getStudentUsername(), s -> new ArrayList<>())
+                    .add(graph.indexOf(enrollment.getCourseCode()));
+            }
+            long students = 0;
+            for (List<Integer> taken : byStudent.values()) {
+                for (int a = 0; a < taken.size(); a++) {
+                    for (int b = a + 1; b < taken.size(); b++) {
+                        students += sharedCells(assignment, taken.get(a), taken.get(b));
+                    }
+                }
+            }
+            long instructors = 0;
+            for (int a = 0; a < graph.size(); a++) {
+                for (int b = a + 1; b < graph.size(); b++) {
+                    if (graph.getCourse(a).getInstructor().equals(graph.getCourse(b).getInstructor())) {
+                        instructors += sharedCells(assignment, a, b);
+                    }
+                }
+            }
+            assertEquals(students, assignment.getStudentClashes());
+            assertEquals(instructors, assignment.getInstructorClashes());
+        }
+    }
+
+    @Test
+    public void movedCoursesKeepTheirMeetingLengths() {
+        Random random = new Random(1919);
+        for (int trial = 0; trial < 100; trial++) {
+            List<Course> courses = catalogue(random);
+            CourseConflictGraph graph = CourseConflictGraph.build(courses, enrollments(random, courses));
+            SlotAssignment assignment = new SlotAssignment(graph, randomCells(random, graph));
+            for (int course = 0; course < graph.size(); course++) {
+                Schedule before = graph.getCourse(course).getParsedSchedule();
+                Schedule after = Schedule.parse(assignment.getSchedule(course));
+                if (hasWeekendMeeting(before)) {
+                    // Pinned where it is
+                    assertEquals(before, after);
+                    continue;
+                }
+                assertEquals(minutesPerDay(before), minutesPerDay(after));
+                for (int m = 0; m < after.getMeetingCount(); m++) {
+                    assertTrue(after.getStartMinute(m) >= WeekGrid.FIRST_START);
+                    assertTrue(after.getEndMinute(m)
+                        <= WeekGrid.FIRST_START + WeekGrid.SLOTS_PER_DAY * WeekGrid.SLOT_LENGTH);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sharedCellsMeanOverlappingMeetings() {
+        Random random = new Random(191919);
+        for (int trial = 0; trial < 100; trial++) {
+            List<Course> courses = new ArrayList<>();
+            for (Course course : catalogue(random)) {
+                if (!hasWeekendMeeting(course.getParsedSchedule())) {
+                    courses.add(course);
+                }
+            }
+            CourseConflictGraph graph = CourseConflictGraph.build(courses, new ArrayList<>());
+            SlotAssignment assignment = new SlotAssignment(graph, randomCells(random, graph));
+            for (int a = 0; a < graph.size(); a++) {
+                for (int b = a + 1; b < graph.size(); b++) {
+                    Schedule first = Schedule.parse(assignment.getSchedule(a));
+                    Schedule second = Schedule.parse(assignment.getSchedule(b));
+                    assertEquals(sharedCells(assignment, a, b) > 0, first.overlaps(second));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void solveEndsWhereNoSingleMoveHelps() {
+        Random random = new Random(19191919);
+        for (int trial = 0; trial < 50; trial++) {
+            List<Course> courses = catalogue(random);
+            CourseConflictGraph graph = CourseConflictGraph.build(courses, enrollments(random, courses));
+            SlotAssignment solved = new CourseSlotSolver(graph).solve();
+            long cost = cost(solved);
+            int[] cells = solved.getCells();
+            for (int course = 0; course < graph.size(); course++) {
+                assertTrue(graph.allowsAnchor(course, cells[course]));
+                for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+                    if (graph.allowsAnchor(course, cell)) {
+                        int[] moved = cells.clone();
+                        moved[course] = cell;
+                        assertTrue(cost(new SlotAssignment(graph, moved)) >= cost);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stopBeforeSolveKeepsTheGreedyStart() {
+        Random random = new Random(7);
+        List<Course> courses = catalogue(random);
+        CourseConflictGraph graph = CourseConflictGraph.build(courses, enrollments(random, courses));
+        CourseSlotSolver solver = new CourseSlotSolver(graph);
+        solver.stop();
+        solver.solve();
+        assertEquals(0, solver.getPasses());
+    }
+
+    // A random catalogue plus a lab, a one-hour class on two days and a
+    // Saturday course
+    static List<Course> catalogue(Random random) {
+        List<Course> courses = RandomCourses.catalogue(random, 4 + random.nextInt(5));
+        courses.add(new Course("LAB", "Lab", "I0", 2, "Tue 14:00-17:00", 30));
+        courses.add(new Course("HOUR", "Hour", "I1", 2, "Wed 15:00-16:00; Fri 15:00-16:00", 30));
+        courses.add(new Course("SAT", "Saturday", "I2", 2, "Sat 10:00-12:00", 30));
+        return courses;
+    }
+
+    static List<Enrollment> enrollments(Random random, List<Course> courses) {
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (int student = 0; student < 20; student++) {
+            List<Course> shuffled = new ArrayList<>(courses);
+            Collections.shuffle(shuffled, random);
+            for (Course course : shuffled.subList(0, 3)) {
+                enrollments.add(new Enrollment("s" + student, course.getCourseCode(), "2024-01-01", "ENROLLED"));
+            }
+        }
+        return enrollments;
+    }
+
+    static int[] randomCells(Random random, CourseConflictGraph graph) {
+        int[] cells = new int[graph.size()];
+        for (int course = 0; course < cells.length; course++) {
+            long anchors = graph.getAnchors(course);
+            int pick = random.nextInt(Long.bitCount(anchors));
+            for (int skip = 0; skip < pick; skip++) {
+                anchors &= anchors - 1;
+            }
+            cells[course] = Long.numberOfTrailingZeros(anchors);
+        }
+        return cells;
+    }
+
+    static long cost(SlotAssignment assignment) {
+        return assignment.getStudentClashes()
+            + CourseSlotSolver.DEFAULT_INSTRUCTOR_WEIGHT * assignment.getInstructorClashes();
+    }
+
+    private static int sharedCells(SlotAssignment assignment, int a, int b) {
+        return Long.bitCount(assignment.getCellMask(a) & assignment.getCellMask(b));
+    }
+
+    private static boolean hasWeekendMeeting(Schedule schedule) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (schedule.getDay(m) >= WeekGrid.DAYS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Minutes on each meeting day, smallest first: a move may rotate the
+    // days past Friday, so which day comes first can change
+    private static List<Integer> minutesPerDay(Schedule schedule) {
+        int[] minutes = new int[WeekGrid.DAYS];
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            minutes[schedule.getDay(m)] += schedule.getEndMinute(m) - schedule.getStartMinute(m);
+        }
+        List<Integer> days = new ArrayList<>();
+        for (int minute : minutes) {
+            if (minute > 0) {
+                days.add(minute);
+            }
+        }
+        Collections.sort(days);
+        return days;
+    }
+}
@@ -0,0 +1,147 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class CreditKnapsackTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void findsTheBruteForceOptimum() {
+        Random random = new Random(24);
+        TimetableObjective objective = new TimetableObjective();
+        for (int trial = 0; trial < 300; trial++) {
+            List<Course> catalogue = RandomCourses.catalogue(random, 13);
+            List<Course> taken = new ArrayList<>();
+            for (Course course : catalogue.subList(0, random.nextInt(3))) {
+                if (!clashes(taken, course)) {
+                    taken.add(course);
+                }
+            }
+            List<Course> candidates = new ArrayList<>(catalogue.subList(taken.size(), catalogue.size()));
+            Set<String> preferred = new HashSet<>();
+            for (Course course : candidates) {
+                if (random.nextInt(4) == 0) {
+                    preferred.add(course.getCourseCode());
+                }
+            }
+            int minCredits = random.nextInt(15);
+            int maxCredits = minCredits + random.nextInt(12);
+
+            CreditKnapsack knapsack = new CreditKnapsack(candidates, new ArrayList<>(preferred), objective);
+            knapsack.setTaken(taken);
+            knapsack.setMinCredits(minCredits);
+            knapsack.setMaxCredits(maxCredits);
+            RankedTimetable result = knapsack.solve();
+            assertTrue(knapsack.isComplete());
+
+            double expected = bruteForce(candidates, taken, preferred, objective, minCredits, maxCredits);
+            if (expected == Double.NEGATIVE_INFINITY) {
+                assertNull(result);
+            } else {
+                assertNotNull(result);
+                assertEquals(expected, result.getScore(), EPSILON);
+                assertValid(result, taken, preferred, objective, minCredits, maxCredits);
+            }
+        }
+    }
+
+    @Test
+    public void aSpentBudgetStillGivesAValidSelection() {
+        Random random = new Random(2424);
+        List<Course> candidates = RandomCourses.catalogue(random, 400);
+        List<String> preferences = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            preferences.add("C" + random.nextInt(candidates.size()));
+        }
+        TimetableObjective objective = new TimetableObjective();
+        CreditKnapsack knapsack = new CreditKnapsack(candidates, preferences, objective);
+        knapsack.setTimeBudgetMillis(1);
+        RankedTimetable result = knapsack.solve();
+        assertNotNull(result);
+        assertValid(result, new ArrayList<>(), new HashSet<>(preferences), objective,
+            CreditKnapsack.DEFAULT_MIN_CREDITS, CreditKnapsack.DEFAULT_MAX_CREDITS);
+    }
+
+    @Test
+    public void stopBeforeSolveGivesTheGreedySelection() {
+        Random random = new Random(242424);
+        List<Course> candidates = RandomCourses.catalogue(random, 400);
+        TimetableObjective objective = new TimetableObjective();
+        CreditKnapsack knapsack = new CreditKnapsack(candidates, new ArrayList<>(), objective);
+        knapsack.stop();
+        RankedTimetable result = knapsack.solve();
+        assertFalse(knapsack.isComplete());
+        assertNotNull(result);
+        assertValid(result, new ArrayList<>(), new HashSet<>(), objective,
+            CreditKnapsack.DEFAULT_MIN_CREDITS, CreditKnapsack.DEFAULT_MAX_CREDITS);
+    }
+
+    private static void assertValid(RankedTimetable result, List<Course> taken, Set<String> preferred,
+            TimetableObjective objective, int minCredits, int maxCredits) {
+        List<Course> load = new ArrayList<>(taken);
+        double value = 0;
+        for (Course course : result.getCourses()) {
+            assertFalse(course.getParsedSchedule().isEmpty());
+            assertFalse(clashes(load, course));
+            load.add(course);
+            value += objective.courseGain(course, preferred);
+        }
+        int credits = credits(load);
+        assertTrue(credits >= minCredits && credits <= maxCredits);
+        assertEquals(value, result.getScore(), EPSILON);
+    }
+
+    // The best total of any clash-free subset that keeps the load within
+    // the limits, or negative infinity if there is none
+    private static double bruteForce(List<Course> candidates, List<Course> taken, Set<String> preferred,
+            TimetableObjective objective, int minCredits, int maxCredits) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int subset = 0; subset < 1 << candidates.size(); subset++) {
+            List<Course> load = new ArrayList<>(taken);
+            double value = 0;
+            boolean valid = true;
+            for (int i = 0; i < candidates.size() && valid; i++) {
+                if ((subset >> i & 1) != 0) {
+                    Course course = candidates.get(i);
+                    valid = !course.getParsedSchedule().isEmpty() && !clashes(load, course);
+                    load.add(course);
+                    value += objective.courseGain(course, preferred);
+                }
+            }
+            int credits = credits(load);
+            if (valid && credits >= minCredits && credits <= maxCredits) {
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+
+    private static boolean clashes(List<Course> load, Course course) {
+        for (Course other : load) {
+            if (other.getParsedSchedule().overlaps(course.getParsedSchedule())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int credits(List<Course> courses) {
+        int credits = 0;
+        for (Course course : courses) {
+            credits += course.getCredits();
+        }
+        return credits;
+    }
+}
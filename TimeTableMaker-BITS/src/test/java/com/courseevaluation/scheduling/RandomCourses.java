@@ -0,0 +1,51 @@
+package com.courseevaluation.scheduling;
+
+import com.courseevaluation.models.Course;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Small random catalogues for checking the solvers against brute force:
+// a mix of grid slots, off-grid times and multi-day courses
+final class RandomCourses {
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    private RandomCourses() {
+    }
+
+    static List<Course> catalogue(Random random, int size) {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            courses.add(new Course("C" + i, "Course " + i, "I" + random.nextInt(3), 1 + random.nextInt(4),
+                schedule(random), 30));
+        }
+        return courses;
+    }
+
+    static String schedule(Random random) {
+        StringBuilder text = new StringBuilder();
+        int meetings = 1 + random.nextInt(2);
+        for (int m = 0; m < meetings; m++) {
+            // Mostly weekdays; now and then a Saturday
+            String day = DAYS[random.nextInt(10) == 0 ? 5 : random.nextInt(5)];
+            int start;
+            int end;
+            if (random.nextBoolean()) {
+                start = 540 + 90 * random.nextInt(6);
+                end = start + 90;
+            } else {
+                start = 480 + 30 * random.nextInt(18);
+                end = start + 30 * (1 + random.nextInt(4));
+            }
+            if (text.length() > 0) {
+                text.append("; ");
+            }
+            text.append(day).append(' ').append(time(start)).append('-').append(time(end));
+        }
+        return text.toString();
+    }
+
+    private static String time(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+}
@@ -0,0 +1,147 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.data.CourseDatabase;
+import com.courseevaluation.data.DurabilityPolicy;
+import com.courseevaluation.data.EnrollmentDatabase;
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.Student;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScheduleRepairTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void movesTheNeighbourOutOfTheNewClash() throws IOException {
+        File directory = emptyDirectory();
+        CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.osBuffered());
+        courses.addCourse(new Course("A", "A", "I0", 3, "Mon 09:00-10:30; Wed 09:00-10:30", 30));
+        courses.addCourse(new Course("B", "B", "I1", 3, "Tue 14:00-17:00", 30));
+        try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                DurabilityPolicy.osBuffered())) {
+            assertTrue(enrollments.enrollStudent(student("s1"), courses.findCourse("A")));
+            assertTrue(enrollments.enrollStudent(student("s1"), courses.findCourse("B")));
+            assertTrue(enrollments.enrollStudent(student("s2"), courses.findCourse("A")));
+
+            RepairPlan plan = new ScheduleRepair(courses, enrollments).plan("A", "Tue 15:00-16:30; Thu 15:00-16:30");
+            assertEquals(List.of("s1"), plan.getBrokenWithoutRepair());
+            assertEquals(List.of("B"), new ArrayList<>(plan.getMoves().keySet()));
+            Schedule moved = Schedule.parse(plan.getMoves().get("B"));
+            assertFalse(moved.overlaps(Schedule.parse("Tue 15:00-16:30; Thu 15:00-16:30")));
+            assertEquals(minutesPerDay(courses.findCourse("B").getParsedSchedule()), minutesPerDay(moved));
+            assertEquals(List.of(), plan.getBrokenStudents());
+        }
+    }
+
+    @Test
+    public void brokenStudentsMatchARecount() throws IOException {
+        Random random = new Random(21);
+        for (int trial = 0; trial < 40; trial++) {
+            File directory = emptyDirectory();
+            CourseDatabase courses = new CourseDatabase(directory, DurabilityPolicy.osBuffered());
+            for (Course course : RandomCourses.catalogue(random, 6 + random.nextInt(6))) {
+                courses.addCourse(course);
+            }
+            List<Course> catalogue = courses.getAllCourses();
+            try (EnrollmentDatabase enrollments = new EnrollmentDatabase(courses, directory,
+                    DurabilityPolicy.osBuffered())) {
+                for (int s = 0; s < 25; s++) {
+                    List<Course> shuffled = new ArrayList<>(catalogue);
+                    Collections.shuffle(shuffled, random);
+                    for (Course course : shuffled.subList(0, 3)) {
+                        assertTrue(enrollments.enrollStudent(student("s" + s), course));
+                    }
+                }
+                Course course = catalogue.get(random.nextInt(catalogue.size()));
+                // Another course's time, so a clash is likely
+                String target = catalogue.get(random.nextInt(catalogue.size())).getSchedule();
+                RepairPlan plan = new ScheduleRepair(courses, enrollments).plan(course.getCourseCode(), target);
+
+                Map<String, Schedule> before = new HashMap<>();
+                for (Course c : catalogue) {
+                    before.put(c.getCourseCode(), c.getParsedSchedule());
+                }
+                Map<String, Schedule> onlyMoved = new HashMap<>(before);
+                onlyMoved.put(course.getCourseCode(), Schedule.parse(target));
+                Map<String, Schedule> repaired = new HashMap<>(onlyMoved);
+                for (Map.Entry<String, String> move : plan.getMoves().entrySet()) {
+                    Schedule from = before.get(move.getKey());
+                    Schedule to = Schedule.parse(move.getValue());
+                    assertFalse(move.getKey().equals(course.getCourseCode()));
+                    assertTrue(from.overlaps(Schedule.parse(target)));
+                    assertEquals(minutesPerDay(from), minutesPerDay(to));
+                    repaired.put(move.getKey(), to);
+                }
+
+                List<Enrollment> all = enrollments.getAllEnrollments();
+                assertEquals(broken(all, before, onlyMoved), plan.getBrokenWithoutRepair());
+                assertEquals(broken(all, before, repaired), plan.getBrokenStudents());
+            }
+        }
+    }
+
+    // Students with two courses that overlap after the change but did not
+    // before
+    private static List<String> broken(List<Enrollment> enrollments, Map<String, Schedule> before,
+            Map<String, Schedule> after) {
+        Map<String, List<String>> byStudent = new HashMap<>();
+        for (Enrollment enrollment : enrollments) {
+            byStudent.computeIfAbsent(enrollment.getStudentUsername(), s -> new ArrayList<>())
+                .add(enrollment.getCourseCode());
+        }
+        TreeSet<String> broken = new TreeSet<>();
+        for (Map.Entry<String, List<String>> entry : byStudent.entrySet()) {
+            List<String> taken = entry.getValue();
+            for (int a = 0; a < taken.size(); a++) {
+                for (int b = a + 1; b < taken.size(); b++) {
+                    String first = taken.get(a);
+                    String second = taken.get(b);
+                    if (after.get(first).overlaps(after.get(second))
+                            && !before.get(first).overlaps(before.get(second))) {
+                        broken.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(broken);
+    }
+
+    // Minutes on each meeting day, smallest first: meetings on one day are
+    // moved as one
+    private static List<Integer> minutesPerDay(Schedule schedule) {
+        Map<Integer, Integer> minutes = new HashMap<>();
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            minutes.merge(schedule.getDay(m), schedule.getEndMinute(m) - schedule.getStartMinute(m), Integer::sum);
+        }
+        List<Integer> days = new ArrayList<>(minutes.values());
+        Collections.sort(days);
+        return days;
+    }
+
+    private File emptyDirectory() throws IOException {
+        File directory = folder.newFolder();
+        assertTrue(new File(directory, "courses.csv").createNewFile());
+        return directory;
+    }
+
+    private static Student student(String username) {
+        return new Student(username, "pw", username, "CS", username, "CS", 1);
+    }
+}
@@ -0,0 +1,144 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class SectionPackageSolverTest {
+
+    @Test
+    public void countsAndListsTheSamePackagesAsBruteForce() {
+        Random random = new Random(25);
+        for (int trial = 0; trial < 300; trial++) {
+            List<Course> sections = RandomCourses.catalogue(random, 6 + random.nextInt(8));
+            List<List<Course>> groups = new ArrayList<>();
+            int groupCount = 1 + random.nextInt(4);
+            for (int g = 0; g < groupCount; g++) {
+                List<Course> group = new ArrayList<>();
+                int size = 1 + random.nextInt(4);
+                for (int s = 0; s < size; s++) {
+                    // Sections may repeat within a group or across groups
+                    group.add(sections.get(random.nextInt(sections.size())));
+                }
+                groups.add(group);
+            }
+
+            Set<String> expected = new HashSet<>();
+            choose(groups, new ArrayList<>(), expected);
+
+            SectionPackageSolver solver = new SectionPackageSolver(groups);
+            assertEquals(expected.size(), solver.count());
+            assertEquals(!expected.isEmpty(), solver.isSatisfiable());
+            List<List<Course>> packages = solver.solveAll(Integer.MAX_VALUE);
+            Set<String> found = new HashSet<>();
+            for (List<Course> sectionPackage : packages) {
+                assertEquals(groups.size(), sectionPackage.size());
+                for (int g = 0; g < groups.size(); g++) {
+                    assertTrue(groups.get(g).contains(sectionPackage.get(g)));
+                }
+                found.add(key(sectionPackage));
+            }
+            assertEquals(packages.size(), found.size());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void stopBeforeCountGivesAPartialCount() {
+        // Each group meets at its own time, so every one of the 8^8
+        // combinations is a package
+        List<List<Course>> groups = new ArrayList<>();
+        String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+        for (int g = 0; g < 8; g++) {
+            List<Course> group = new ArrayList<>();
+            for (int s = 0; s < 8; s++) {
+                int start = 8 * 60 + 45 * g;
+                String time = String.format("%s %02d:%02d-%02d:%02d", days[s % days.length], start / 60, start % 60,
+                    (start + 30) / 60, (start + 30) % 60);
+                group.add(new Course("G" + g + "S" + s, "Section", "I", 3, time, 30));
+            }
+            groups.add(group);
+        }
+        SectionPackageSolver solver = new SectionPackageSolver(groups);
+        solver.stop();
+        assertEquals(0, solver.count());
+        assertFalse(solver.isComplete());
+        assertTrue(solver.solveAll(10).isEmpty());
+        assertFalse(solver.isComplete());
+
+        SectionPackageSolver unstopped = new SectionPackageSolver(groups.subList(0, 3));
+        assertEquals(8 * 8 * 8, unstopped.count());
+        assertTrue(unstopped.isComplete());
+    }
+
+    @Test
+    public void stopDuringCountEndsIt() throws Exception {
+        List<List<Course>> groups = new ArrayList<>();
+        for (int g = 0; g < 12; g++) {
+            List<Course> group = new ArrayList<>();
+            for (int s = 0; s < 10; s++) {
+                int start = 8 * 60 + 45 * g;
+                String time = String.format("Mon %02d:%02d-%02d:%02d", start / 60, start % 60,
+                    (start + 30) / 60, (start + 30) % 60);
+                group.add(new Course("G" + g + "S" + s, "Section", "I", 3, time, 30));
+            }
+            groups.add(group);
+        }
+        // 10^12 packages: far too many to count before the stop
+        SectionPackageSolver solver = new SectionPackageSolver(groups);
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            solver.stop();
+        });
+        stopper.start();
+        long count = solver.count();
+        stopper.join();
+        assertFalse(solver.isComplete());
+        assertTrue(count < 1_000_000_000_000L);
+    }
+
+    // One section per group, in group order: no course twice and no two
+    // sections overlapping
+    private static void choose(List<List<Course>> groups, List<Course> chosen, Set<String> found) {
+        if (chosen.size() == groups.size()) {
+            found.add(key(chosen));
+            return;
+        }
+        Set<String> tried = new HashSet<>();
+        for (Course section : groups.get(chosen.size())) {
+            if (!tried.add(section.getCourseCode())) {
+                continue;
+            }
+            boolean fits = true;
+            for (Course other : chosen) {
+                fits &= !other.getCourseCode().equals(section.getCourseCode())
+                    && !other.getParsedSchedule().overlaps(section.getParsedSchedule());
+            }
+            if (fits) {
+                chosen.add(section);
+                choose(groups, chosen, found);
+                chosen.remove(chosen.size() - 1);
+            }
+        }
+    }
+
+    private static String key(List<Course> sections) {
+        StringBuilder key = new StringBuilder();
+        for (Course section : sections) {
+            key.append(section.getCourseCode()).append('|');
+        }
+        return key.toString();
+    }
+}
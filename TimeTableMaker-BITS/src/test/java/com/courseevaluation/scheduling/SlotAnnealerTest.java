@@ -0,0 +1,144 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Enrollment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class SlotAnnealerTest {
+    private static final String EVERY_DAY =
+        "Mon 09:00-10:30; Tue 09:00-10:30; Wed 09:00-10:30; Thu 09:00-10:30; Fri 09:00-10:30";
+
+    @Test
+    public void reachesTheBruteForceOptimum() {
+        Random random = new Random(20);
+        for (int trial = 0; trial < 5; trial++) {
+            // Eight courses meeting every day share six slots, so some
+            // clashes cannot be avoided
+            List<Course> courses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                courses.add(new Course("D" + i, "Daily " + i, "I" + random.nextInt(6), 3, EVERY_DAY, 30));
+            }
+            List<Enrollment> enrollments = new ArrayList<>();
+            for (int student = 0; student < 30; student++) {
+                for (int i = 0; i < courses.size(); i++) {
+                    if (random.nextInt(3) == 0) {
+                        enrollments.add(new Enrollment("s" + student, "D" + i, "2024-01-01", "ENROLLED"));
+                    }
+                }
+            }
+            CourseConflictGraph graph = CourseConflictGraph.build(courses, enrollments);
+            long[][] weights = weights(graph, enrollments);
+
+            SlotAnnealer annealer = new SlotAnnealer(graph);
+            annealer.setSeed(trial);
+            annealer.setTimeBudgetMillis(500);
+            SlotAssignment annealed = annealer.optimize();
+            assertEquals(bruteForce(graph, weights), CourseSlotSolverTest.cost(annealed));
+            assertEquals(cost(graph, weights, annealed.getCells()), CourseSlotSolverTest.cost(annealed));
+        }
+    }
+
+    @Test
+    public void neverEndsWorseThanItsStart() {
+        Random random = new Random(2020);
+        for (int trial = 0; trial < 20; trial++) {
+            List<Course> courses = CourseSlotSolverTest.catalogue(random);
+            CourseConflictGraph graph = CourseConflictGraph.build(courses,
+                CourseSlotSolverTest.enrollments(random, courses));
+            int[] start = CourseSlotSolverTest.randomCells(random, graph);
+            SlotAnnealer annealer = new SlotAnnealer(graph);
+            annealer.setSeed(trial);
+            annealer.setTimeBudgetMillis(50);
+            SlotAssignment annealed = annealer.optimize(start);
+            assertTrue(CourseSlotSolverTest.cost(annealed)
+                <= CourseSlotSolverTest.cost(new SlotAssignment(graph, start)));
+            for (int course = 0; course < graph.size(); course++) {
+                assertTrue(graph.allowsAnchor(course, annealed.getCell(course)));
+            }
+        }
+    }
+
+    @Test
+    public void stopBeforeOptimizeKeepsTheStart() {
+        Random random = new Random(202020);
+        List<Course> courses = CourseSlotSolverTest.catalogue(random);
+        CourseConflictGraph graph = CourseConflictGraph.build(courses,
+            CourseSlotSolverTest.enrollments(random, courses));
+        int[] start = CourseSlotSolverTest.randomCells(random, graph);
+        SlotAnnealer annealer = new SlotAnnealer(graph);
+        annealer.stop();
+        assertArrayEquals(start, annealer.optimize(start).getCells());
+    }
+
+    // Shared students plus the instructor weight per pair, from the
+    // enrollments rather than the graph's edges
+    private static long[][] weights(CourseConflictGraph graph, List<Enrollment> enrollments) {
+        int n = graph.size();
+        long[][] weights = new long[n][n];
+        for (Enrollment a : enrollments) {
+            for (Enrollment b : enrollments) {
+                int first = graph.indexOf(a.getCourseCode());
+                int second = graph.indexOf(b.getCourseCode());
+                if (a.getStudentUsername().equals(b.getStudentUsername()) && first != second) {
+                    weights[first][second]++;
+                }
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                if (a != b && graph.getCourse(a).getInstructor().equals(graph.getCourse(b).getInstructor())) {
+                    weights[a][b] += CourseSlotSolver.DEFAULT_INSTRUCTOR_WEIGHT;
+                }
+            }
+        }
+        return weights;
+    }
+
+    private static long bruteForce(CourseConflictGraph graph, long[][] weights) {
+        // Anchors filling the same cells cost the same, so one of each
+        List<List<Integer>> anchors = new ArrayList<>();
+        for (int course = 0; course < graph.size(); course++) {
+            List<Integer> distinct = new ArrayList<>();
+            List<Long> masks = new ArrayList<>();
+            for (long bits = graph.getAnchors(course); bits != 0; bits &= bits - 1) {
+                int cell = Long.numberOfTrailingZeros(bits);
+                if (!masks.contains(graph.cellMask(course, cell))) {
+                    masks.add(graph.cellMask(course, cell));
+                    distinct.add(cell);
+                }
+            }
+            anchors.add(distinct);
+        }
+        return bruteForce(graph, weights, anchors, new int[graph.size()], 0);
+    }
+
+    private static long bruteForce(CourseConflictGraph graph, long[][] weights, List<List<Integer>> anchors,
+            int[] cells, int course) {
+        if (course == cells.length) {
+            return cost(graph, weights, cells);
+        }
+        long best = Long.MAX_VALUE;
+        for (int cell : anchors.get(course)) {
+            cells[course] = cell;
+            best = Math.min(best, bruteForce(graph, weights, anchors, cells, course + 1));
+        }
+        return best;
+    }
+
+    private static long cost(CourseConflictGraph graph, long[][] weights, int[] cells) {
+        long cost = 0;
+        for (int a = 0; a < cells.length; a++) {
+            for (int b = a + 1; b < cells.length; b++) {
+                cost += weights[a][b] * Long.bitCount(graph.cellMask(a, cells[a]) & graph.cellMask(b, cells[b]));
+            }
+        }
+        return cost;
+    }
+}
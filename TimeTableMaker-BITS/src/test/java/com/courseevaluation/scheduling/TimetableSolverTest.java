@@ -0,0 +1,244 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import com.courseevaluation.models.Schedule;
+import com.courseevaluation.models.TimeSlot;
+import com.courseevaluation.models.Timetable;
+import com.courseevaluation.models.WeekGrid;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class TimetableSolverTest {
+
+    @Test
+    public void ownSchedulesAreSatisfiableExactlyWhenNoTwoOverlap() {
+        Random random = new Random(14);
+        for (int trial = 0; trial < 300; trial++) {
+            List<Course> courses = RandomCourses.catalogue(random, 2 + random.nextInt(5));
+            boolean clashFree = true;
+            for (int a = 0; a < courses.size(); a++) {
+                for (int b = a + 1; b < courses.size(); b++) {
+                    clashFree &= !courses.get(a).getParsedSchedule().overlaps(courses.get(b).getParsedSchedule());
+                }
+            }
+            assertEquals(clashFree, new TimetableSolver(courses, false).isSatisfiable());
+        }
+    }
+
+    @Test
+    public void findsEveryDistinctPlacementThatBruteForceFinds() {
+        Random random = new Random(1414);
+        for (int trial = 0; trial < 25; trial++) {
+            List<Course> courses = RandomCourses.catalogue(random, 3);
+            Set<String> expected = bruteForce(courses);
+
+            TimetableSolver solver = new TimetableSolver(courses);
+            Set<String> found = new HashSet<>();
+            List<String> order = new ArrayList<>();
+            assertTrue(solver.search(solution -> {
+                String key = key(solution);
+                found.add(key);
+                order.add(key);
+                return true;
+            }));
+            assertEquals(expected, found);
+            // Options filling the same cells are offered once
+            assertEquals(found.size(), order.size());
+
+            Set<String> parallel = ConcurrentHashMap.newKeySet();
+            assertTrue(solver.search(solution -> {
+                parallel.add(key(solution));
+                return true;
+            }, ForkJoinPool.commonPool(), System.nanoTime() + 60_000_000_000L));
+            assertEquals(expected, parallel);
+        }
+    }
+
+    @Test
+    public void moreFullWeekCoursesThanSlotsCannotBePlaced() {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < WeekGrid.SLOTS_PER_DAY + 1; i++) {
+            courses.add(new Course("F" + i, "Daily " + i, "I", 3,
+                "Mon 09:00-10:30; Tue 09:00-10:30; Wed 09:00-10:30; Thu 09:00-10:30; Fri 09:00-10:30", 30));
+        }
+        assertNull(new TimetableSolver(courses).solve());
+        assertTrue(new TimetableSolver(courses.subList(0, WeekGrid.SLOTS_PER_DAY)).isSatisfiable());
+    }
+
+    @Test
+    public void movedCoursesKeepTheirMeetingLengths() {
+        Random random = new Random(2323);
+        for (int trial = 0; trial < 4; trial++) {
+            List<Course> courses = new ArrayList<>();
+            courses.add(new Course("LAB", "Lab", "I", 2, "Tue 14:00-17:00", 30));
+            courses.add(new Course("HOUR", "Hour", "I", 2, "Wed 15:00-16:00; Fri 15:00-16:00", 30));
+            courses.add(new Course("SAT", "Saturday", "I", 2, "Sat 19:00-21:00", 30));
+            courses.add(new Course("R", "Random", "I", 2, RandomCourses.schedule(random), 30));
+
+            TimetableSolver solver = new TimetableSolver(courses);
+            int[] solutions = new int[1];
+            assertTrue(solver.search(solution -> {
+                for (Placement placement : solution) {
+                    Schedule before = placement.getCourse().getParsedSchedule();
+                    Schedule after = Schedule.parse(slotText(placement.toTimeSlots()));
+                    boolean moved = !placement.sameTimesAs(Placement.ofSchedule(placement.getCourse()));
+                    // Weekend courses are pinned where they are
+                    assertTrue(!moved || !hasWeekendMeeting(before));
+                    if (!moved) {
+                        continue;
+                    }
+                    assertEquals(minutesPerDay(before), minutesPerDay(after));
+                    for (int m = 0; m < after.getMeetingCount(); m++) {
+                        assertTrue(after.getStartMinute(m) >= WeekGrid.FIRST_START);
+                        assertTrue(after.getEndMinute(m)
+                            <= WeekGrid.FIRST_START + WeekGrid.SLOTS_PER_DAY * WeekGrid.SLOT_LENGTH);
+                    }
+                }
+                for (int a = 0; a < solution.length; a++) {
+                    for (int b = a + 1; b < solution.length; b++) {
+                        assertFalse(overlap(solution[a], solution[b]));
+                    }
+                }
+                solutions[0]++;
+                return true;
+            }));
+            assertTrue(solutions[0] > 0);
+
+            // Greedy timetables move courses the same way
+            for (int attempt = 0; attempt < 20; attempt++) {
+                Timetable greedy = Timetable.generateTimetable(courses, new ArrayList<>());
+                for (Course course : courses) {
+                    List<TimeSlot> slots = new ArrayList<>();
+                    for (TimeSlot slot : greedy.getTimeSlots()) {
+                        if (slot.getCourse() == course) {
+                            slots.add(slot);
+                        }
+                    }
+                    if (!slots.isEmpty()) {
+                        assertEquals(minutesPerDay(course.getParsedSchedule()),
+                            minutesPerDay(Schedule.parse(slotText(slots))));
+                    }
+                }
+            }
+        }
+    }
+
+    // Every way of giving each course one of its placements with no two
+    // overlapping, told apart by the times they end up at
+    private static Set<String> bruteForce(List<Course> courses) {
+        List<List<Placement>> options = new ArrayList<>();
+        for (Course course : courses) {
+            Map<String, Placement> distinct = new LinkedHashMap<>();
+            Placement own = Placement.ofSchedule(course);
+            if (own != null) {
+                distinct.put(slots(own), own);
+            }
+            for (int cell = 0; cell < WeekGrid.CELLS; cell++) {
+                Placement moved = Placement.ofCell(course, cell);
+                if (moved != null) {
+                    distinct.putIfAbsent(slots(moved), moved);
+                }
+            }
+            options.add(new ArrayList<>(distinct.values()));
+        }
+        Set<String> found = new HashSet<>();
+        choose(options, new Placement[courses.size()], 0, found);
+        return found;
+    }
+
+    private static void choose(List<List<Placement>> options, Placement[] chosen, int course, Set<String> found) {
+        if (course == chosen.length) {
+            found.add(key(chosen));
+            return;
+        }
+        for (Placement option : options.get(course)) {
+            boolean clash = false;
+            for (int earlier = 0; earlier < course && !clash; earlier++) {
+                clash = overlap(chosen[earlier], option);
+            }
+            if (!clash) {
+                chosen[course] = option;
+                choose(options, chosen, course + 1, found);
+            }
+        }
+    }
+
+    private static boolean overlap(Placement a, Placement b) {
+        for (TimeSlot slot : a.toTimeSlots()) {
+            for (TimeSlot other : b.toTimeSlots()) {
+                if (slot.overlaps(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String key(Placement[] solution) {
+        StringBuilder key = new StringBuilder();
+        for (Placement placement : solution) {
+            key.append(placement.getCourse().getCourseCode()).append('=').append(slots(placement)).append('|');
+        }
+        return key.toString();
+    }
+
+    private static String slotText(List<TimeSlot> slots) {
+        String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+        List<String> meetings = new ArrayList<>();
+        for (TimeSlot slot : slots) {
+            meetings.add(String.format("%s %02d:%02d-%02d:%02d", days[slot.getDayIndex()],
+                slot.getStartMinute() / 60, slot.getStartMinute() % 60, slot.getEndMinute() / 60,
+                slot.getEndMinute() % 60));
+        }
+        return String.join("; ", meetings);
+    }
+
+    private static boolean hasWeekendMeeting(Schedule schedule) {
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            if (schedule.getDay(m) >= WeekGrid.DAYS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Minutes on each meeting day, smallest first: a move may rotate the
+    // days past Friday, so which day comes first can change
+    private static List<Integer> minutesPerDay(Schedule schedule) {
+        int[] minutes = new int[7];
+        for (int m = 0; m < schedule.getMeetingCount(); m++) {
+            minutes[schedule.getDay(m)] += schedule.getEndMinute(m) - schedule.getStartMinute(m);
+        }
+        List<Integer> days = new ArrayList<>();
+        for (int minute : minutes) {
+            if (minute > 0) {
+                days.add(minute);
+            }
+        }
+        Collections.sort(days);
+        return days;
+    }
+
+    private static String slots(Placement placement) {
+        List<String> slots = new ArrayList<>();
+        for (TimeSlot slot : placement.toTimeSlots()) {
+            slots.add(slot.getDayIndex() + ":" + slot.getStartMinute() + "-" + slot.getEndMinute());
+        }
+        slots.sort(null);
+        return String.join(",", slots);
+    }
+}
@@ -0,0 +1,113 @@
+package com.courseevaluation.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.courseevaluation.models.Course;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class TopTimetableSearchTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void findsTheSameBestScoresAsBruteForce() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 200; trial++) {
+            List<Course> courses = RandomCourses.catalogue(random, 4 + random.nextInt(8));
+            List<String> preferences = new ArrayList<>();
+            for (Course course : courses) {
+                if (random.nextInt(4) == 0) {
+                    preferences.add(course.getCourseCode());
+                }
+            }
+            TimetableObjective objective = new TimetableObjective();
+            objective.setGapPenaltyPerHour(random.nextInt(3));
+            objective.setDayPenalty(random.nextInt(4));
+            int maxCourses = 1 + random.nextInt(5);
+            int maxCredits = 3 + random.nextInt(12);
+            int k = 1 + random.nextInt(6);
+
+            TopTimetableSearch search = new TopTimetableSearch(courses, preferences, objective);
+            search.setMaxCourses(maxCourses);
+            search.setMaxCredits(maxCredits);
+            List<RankedTimetable> best = search.findBest(k);
+
+            List<Double> expected = bruteForce(courses, new HashSet<>(preferences), objective, maxCourses,
+                maxCredits);
+            assertEquals(Math.min(k, expected.size()), best.size());
+            for (int i = 0; i < best.size(); i++) {
+                assertEquals(expected.get(i), best.get(i).getScore(), EPSILON);
+                assertValid(best.get(i), new HashSet<>(preferences), objective, maxCourses, maxCredits);
+            }
+        }
+    }
+
+    private static void assertValid(RankedTimetable timetable, Set<String> preferred, TimetableObjective objective,
+            int maxCourses, int maxCredits) {
+        List<Course> courses = timetable.getCourses();
+        assertFalse(courses.isEmpty());
+        assertTrue(courses.size() <= maxCourses);
+        assertTrue(credits(courses) <= maxCredits);
+        for (int a = 0; a < courses.size(); a++) {
+            for (int b = a + 1; b < courses.size(); b++) {
+                assertFalse(courses.get(a).getParsedSchedule().overlaps(courses.get(b).getParsedSchedule()));
+            }
+        }
+        assertEquals(score(courses, preferred, objective), timetable.getScore(), EPSILON);
+    }
+
+    // Scores of every allowed set, best first
+    private static List<Double> bruteForce(List<Course> courses, Set<String> preferred, TimetableObjective objective,
+            int maxCourses, int maxCredits) {
+        List<Double> scores = new ArrayList<>();
+        for (int subset = 1; subset < 1 << courses.size(); subset++) {
+            List<Course> chosen = new ArrayList<>();
+            for (int i = 0; i < courses.size(); i++) {
+                if ((subset >> i & 1) != 0) {
+                    chosen.add(courses.get(i));
+                }
+            }
+            if (chosen.size() > maxCourses || credits(chosen) > maxCredits || clashes(chosen)) {
+                continue;
+            }
+            scores.add(score(chosen, preferred, objective));
+        }
+        scores.sort((a, b) -> Double.compare(b, a));
+        return scores;
+    }
+
+    private static boolean clashes(List<Course> courses) {
+        for (int a = 0; a < courses.size(); a++) {
+            for (int b = a + 1; b < courses.size(); b++) {
+                if (courses.get(a).getParsedSchedule().overlaps(courses.get(b).getParsedSchedule())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int credits(List<Course> courses) {
+        int credits = 0;
+        for (Course course : courses) {
+            credits += course.getCredits();
+        }
+        return credits;
+    }
+
+    private static double score(List<Course> courses, Set<String> preferred, TimetableObjective objective) {
+        double score = 0;
+        int days = 0;
+        for (Course course : courses) {
+            score += objective.courseGain(course, preferred);
+            days |= TimetableObjective.dayMask(course);
+        }
+        return score - objective.daysPenalty(days) - objective.gapsPenalty(courses);
+    }
+}
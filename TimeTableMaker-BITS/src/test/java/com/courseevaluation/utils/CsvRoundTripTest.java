@@ -0,0 +1,131 @@
+package com.courseevaluation.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class CsvRoundTripTest {
+    private static final String[] PIECES = {"a", "bc", " ", ",", "\"", "\n", "\r", "\r\n", "\u00e9"};
+
+    @Test
+    public void recordsReadBackAsWritten() throws IOException {
+        Random random = new Random(6);
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String[] fields = new String[1 + random.nextInt(6)];
+            for (int f = 0; f < fields.length; f++) {
+                fields[f] = randomField(random);
+            }
+            if (fields.length == 1 && fields[0] == null) {
+                // Written as an empty line, which the reader skips
+                continue;
+            }
+            records.add(fields);
+        }
+
+        StringWriter text = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(text)) {
+            for (String[] fields : records) {
+                for (String field : fields) {
+                    writer.field(field);
+                }
+                writer.endRecord();
+            }
+        }
+        try (CsvReader reader = new CsvReader(new StringReader(text.toString()))) {
+            for (String[] fields : records) {
+                assertTrue(reader.next());
+                assertEquals(fields.length, reader.getFieldCount());
+                for (int f = 0; f < fields.length; f++) {
+                    assertEquals(fields[f], reader.getString(f));
+                }
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void formatRecordMatchesTheWriter() throws IOException {
+        Random random = new Random(66);
+        for (int i = 0; i < 500; i++) {
+            String[] fields = new String[2 + random.nextInt(4)];
+            for (int f = 0; f < fields.length; f++) {
+                fields[f] = randomField(random);
+            }
+            StringWriter text = new StringWriter();
+            CsvWriter writer = new CsvWriter(text);
+            for (String field : fields) {
+                writer.field(field);
+            }
+            writer.endRecord();
+            assertEquals(text.toString(), CsvWriter.formatRecord(fields) + "\n");
+        }
+    }
+
+    @Test
+    public void nullAndEmptyStayApart() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(CsvWriter.formatRecord(null, "", "x") + "\r\n"));
+        assertTrue(reader.next());
+        assertEquals(3, reader.getFieldCount());
+        assertNull(reader.getString(0));
+        assertEquals("", reader.getString(1));
+        assertEquals("x", reader.getString(2));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void intsReadBackAsWritten() throws IOException {
+        int[] values = {0, 7, -7, 2024, Integer.MAX_VALUE, -Integer.MAX_VALUE, Integer.MIN_VALUE};
+        StringWriter text = new StringWriter();
+        CsvWriter writer = new CsvWriter(text);
+        for (int value : values) {
+            writer.field(value);
+        }
+        writer.endRecord();
+        CsvReader reader = new CsvReader(new StringReader(text.toString()));
+        assertTrue(reader.next());
+        for (int f = 0; f < values.length; f++) {
+            assertEquals(values[f], reader.getInt(f));
+            assertTrue(reader.fieldEquals(f, Integer.toString(values[f])));
+        }
+
+        // One past either end, or a hand-edited seat count, must not wrap
+        String[] outOfRange = {"2147483648", "-2147483649", "99999999999", "+2147483648", "-99999999999"};
+        reader = new CsvReader(new StringReader(CsvWriter.formatRecord(outOfRange)));
+        assertTrue(reader.next());
+        for (int f = 0; f < outOfRange.length; f++) {
+            try {
+                reader.getInt(f);
+                fail("Read " + outOfRange[f] + " as an int");
+            } catch (NumberFormatException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static String randomField(Random random) {
+        int kind = random.nextInt(8);
+        if (kind == 0) {
+            return null;
+        }
+        if (kind == 1) {
+            return "";
+        }
+        StringBuilder field = new StringBuilder();
+        int pieces = 1 + random.nextInt(kind == 2 ? 400 : 5);
+        for (int p = 0; p < pieces; p++) {
+            field.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return field.toString();
+    }
+}